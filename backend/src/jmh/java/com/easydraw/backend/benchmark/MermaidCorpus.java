@@ -0,0 +1,79 @@
+package com.easydraw.backend.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准语料：按节点数生成贴近模型真实输出的 Mermaid 流程图。
+ *
+ * <p>包含围栏代码块、注释、subgraph、判断节点与带文本的分支、中文节点文本（含全角与半角括号）、
+ * classDef / class 样式行，以及少量虚线与回边。同一参数总是生成相同内容，便于跨提交对比。
+ */
+final class MermaidCorpus {
+
+  private static final String[] VERBS = {
+    "审核", "提交", "确认", "分配", "通知", "归档", "校验", "生成", "发送", "汇总", "登记", "复核"
+  };
+  private static final String[] OBJECTS = {
+    "订单", "报销单", "合同", "发票", "采购申请", "库存记录", "客户资料", "工单", "付款计划", "验收报告"
+  };
+  private static final String[] DEPARTMENTS = {"销售部", "财务部", "仓储部", "法务部", "采购部", "客服中心"};
+  private static final int SUBGRAPH_SIZE = 40;
+
+  private MermaidCorpus() {}
+
+  static String llmOutput(int nodes, long seed) {
+    Random random = new Random(seed);
+    StringBuilder sb = new StringBuilder(nodes * 48);
+    sb.append("```mermaid\n");
+    sb.append("flowchart TD\n");
+    sb.append("    %% 由业务描述生成的审批流程，共 ").append(nodes).append(" 个节点\n");
+    sb.append("    N0([开始])\n");
+
+    int subgraphs = 0;
+    for (int i = 1; i < nodes; i++) {
+      if (i % SUBGRAPH_SIZE == 1) {
+        if (subgraphs > 0) {
+          sb.append("    end\n");
+        }
+        String department = DEPARTMENTS[subgraphs % DEPARTMENTS.length];
+        sb.append("    subgraph S").append(subgraphs).append('[').append(department).append("]\n");
+        subgraphs++;
+      }
+      int parent = Math.max(0, i - 1 - random.nextInt(Math.min(i, 4)));
+      if (i % 7 == 0) {
+        // 判断节点：两条带文本的分支
+        sb.append("    N").append(parent).append(" --> N").append(i).append('{')
+            .append(label(random, i)).append("？}\n");
+        sb.append("    N").append(i).append(" -->|是| N").append(i + 1).append('\n');
+        sb.append("    N").append(i).append(" -->|否| N").append(Math.max(0, i - 3)).append('\n');
+      } else if (i % 7 == 1 && i > 1) {
+        sb.append("    N").append(i).append('[').append(label(random, i)).append("]\n");
+      } else {
+        String arrow = random.nextInt(20) == 0 ? " -.-> " : " --> ";
+        sb.append("    N").append(parent).append(arrow).append('N').append(i).append('[')
+            .append(label(random, i)).append("]\n");
+      }
+    }
+    if (subgraphs > 0) {
+      sb.append("    end\n");
+    }
+    sb.append("    N").append(nodes - 1).append(" --> END([结束])\n");
+    sb.append("    classDef decision fill:#fff3cd,stroke:#d39e00,stroke-width:2px\n");
+    sb.append("    classDef done fill:#d4edda,stroke:#28a745\n");
+    for (int i = 7; i < nodes; i += 7) {
+      sb.append("    class N").append(i).append(" decision\n");
+    }
+    sb.append("    class END done\n");
+    sb.append("```\n");
+    return sb.toString();
+  }
+
+  private static String label(Random random, int i) {
+    String text = VERBS[random.nextInt(VERBS.length)] + OBJECTS[random.nextInt(OBJECTS.length)];
+    return switch (i % 5) {
+      case 0 -> text + "（" + DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + "）";
+      case 3 -> text + " (v" + (1 + random.nextInt(3)) + ")";
+      default -> text;
+    };
+  }
+}
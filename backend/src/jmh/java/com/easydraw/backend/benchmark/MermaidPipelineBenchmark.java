@@ -0,0 +1,79 @@
+package com.easydraw.backend.benchmark;
+
+import com.easydraw.backend.dto.DiagramError;
+import com.easydraw.backend.mermaid.BasicMermaidValidator;
+import com.easydraw.backend.mermaid.MermaidRepairer;
+import com.easydraw.backend.mermaid.MermaidSanitizer;
+import com.easydraw.backend.util.CodeFences;
+import com.easydraw.backend.util.MermaidToDrawioConverter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 模型输出后处理各阶段的基准：去围栏、清洗、校验、转 draw.io XML，以及生成接口的完整后处理链路
+ * （去围栏 → 清洗 → 本地修复 → 校验）。
+ *
+ * <p>同时输出吞吐（ops/ms）与采样延迟分布；分配速率由 {@code -prof gc} 给出（jmh profile 默认开启）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MermaidPipelineBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  public int nodes;
+
+  private String raw;
+  private String stripped;
+  private String cleaned;
+  private BasicMermaidValidator validator;
+
+  @Setup
+  public void setUp() {
+    raw = MermaidCorpus.llmOutput(nodes, 42L);
+    stripped = CodeFences.strip(raw);
+    cleaned = MermaidSanitizer.clean(stripped);
+    validator = new BasicMermaidValidator();
+  }
+
+  @Benchmark
+  public String stripCodeFence() {
+    return CodeFences.strip(raw);
+  }
+
+  @Benchmark
+  public String sanitize() {
+    return MermaidSanitizer.clean(stripped);
+  }
+
+  @Benchmark
+  public List<DiagramError> validate() {
+    return validator.validate(cleaned, "flowchart");
+  }
+
+  @Benchmark
+  public String toDrawioXml() {
+    return MermaidToDrawioConverter.toDrawioXml(cleaned);
+  }
+
+  @Benchmark
+  public List<DiagramError> postProcess() {
+    String content = MermaidSanitizer.clean(CodeFences.strip(raw));
+    content = MermaidRepairer.repair(content, "flowchart").content();
+    return validator.validate(content, "flowchart");
+  }
+}
@@ -0,0 +1,67 @@
+package com.easydraw.backend.loadtest;
+
+/**
+ * 桩服务按系统提示词返回的固定内容：Mermaid、PlantUML 或样式指令 JSON。
+ */
+final class CannedResponses {
+
+  static final String MERMAID =
+      """
+      ```mermaid
+      flowchart TD
+          A([开始]) --> B[提交报销申请]
+          B --> C{金额是否超过 5000 元？}
+          C -->|是| D[部门经理审批]
+          C -->|否| E[直属主管审批]
+          D --> F{审批是否通过？}
+          E --> F
+          F -->|否| G[退回申请人修改]
+          G --> B
+          F -->|是| H[财务部复核（发票与明细）]
+          H --> I[出纳付款]
+          I --> J[归档凭证]
+          J --> K([结束])
+          subgraph 财务部
+              H
+              I
+              J
+          end
+          classDef decision fill:#fff3cd,stroke:#d39e00
+          class C,F decision
+      ```
+      """;
+
+  static final String PLANTUML =
+      """
+      @startuml
+      start
+      :提交报销申请;
+      if (金额是否超过 5000 元？) then (是)
+        :部门经理审批;
+      else (否)
+        :直属主管审批;
+      endif
+      :财务部复核;
+      :出纳付款;
+      stop
+      @enduml
+      """;
+
+  static final String STYLE =
+      """
+      {"action": "modifyStyle", "target": "selected", \
+      "styles": {"fillColor": "#DAE8FC", "strokeColor": "#6C8EBF", "rounded": 1, "shadow": 1}}
+      """;
+
+  private CannedResponses() {}
+
+  static String forSystemPrompt(String systemPrompt) {
+    if (systemPrompt == null) {
+      return MERMAID;
+    }
+    if (systemPrompt.contains("modifyStyle")) {
+      return STYLE;
+    }
+    return systemPrompt.contains("PlantUML") ? PLANTUML : MERMAID;
+  }
+}
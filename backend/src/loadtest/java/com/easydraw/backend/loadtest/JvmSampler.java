@@ -0,0 +1,122 @@
+package com.easydraw.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每秒读取一次被测服务的 actuator 指标（线程数、堆内存、进程 CPU），记录最大值与平均值。
+ *
+ * <p>通过 HTTP 读取而不是直接用 MXBean，这样压测独立启动的后端时也能得到同样的数据。actuator 不可用时
+ * 对应指标保持为空。
+ */
+final class JvmSampler implements AutoCloseable {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** 指标名 → actuator 路径 */
+  private static final Map<String, String> METRICS =
+      Map.of(
+          "threads", "jvm.threads.live",
+          "heapBytes", "jvm.memory.used?tag=area:heap",
+          "cpu", "process.cpu.usage");
+
+  private final String target;
+  private final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+  private final Map<String, Series> series = new LinkedHashMap<>();
+  private ScheduledExecutorService scheduler;
+
+  JvmSampler(String target) {
+    this.target = target;
+    METRICS.keySet().stream().sorted().forEach(name -> series.put(name, new Series()));
+  }
+
+  void start() {
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "loadtest-jvm-sampler");
+              t.setDaemon(true);
+              return t;
+            });
+    scheduler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+  }
+
+  /** 指标名 → {max, avg, samples}，未采到的指标不出现 */
+  synchronized Map<String, Map<String, Number>> summary() {
+    Map<String, Map<String, Number>> result = new LinkedHashMap<>();
+    series.forEach(
+        (name, s) -> {
+          if (s.count > 0) {
+            Map<String, Number> values = new LinkedHashMap<>();
+            values.put("max", s.max);
+            values.put("avg", s.sum / s.count);
+            values.put("samples", s.count);
+            result.put(name, values);
+          }
+        });
+    return result;
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private void sample() {
+    METRICS.forEach(
+        (name, path) -> {
+          Double value = read(path);
+          if (value != null) {
+            synchronized (this) {
+              series.get(name).add(value);
+            }
+          }
+        });
+  }
+
+  private Double read(String path) {
+    try {
+      HttpRequest request =
+          HttpRequest.newBuilder(URI.create(target + "/actuator/metrics/" + path))
+              .timeout(Duration.ofSeconds(2))
+              .GET()
+              .build();
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() != 200) {
+        return null;
+      }
+      JsonNode measurements = MAPPER.readTree(response.body()).path("measurements");
+      return measurements.isEmpty() ? null : measurements.get(0).path("value").asDouble();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static final class Series {
+    private double max;
+    private double sum;
+    private long count;
+
+    void add(double value) {
+      max = count == 0 ? value : Math.max(max, value);
+      sum += value;
+      count++;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.easydraw.backend.loadtest;
+
+import java.util.Random;
+
+/**
+ * 桩服务的延迟分布（毫秒）。
+ *
+ * <ul>
+ *   <li>{@code fixed:2000}：固定 2000ms
+ *   <li>{@code uniform:500-3000}：500 到 3000ms 均匀分布
+ *   <li>{@code lognormal:2000:0.5}：中位数 2000ms、sigma 0.5 的对数正态分布，接近真实模型的长尾
+ * </ul>
+ */
+final class LatencyDistribution {
+
+  private final String spec;
+  private final String kind;
+  private final double a;
+  private final double b;
+
+  private LatencyDistribution(String spec, String kind, double a, double b) {
+    this.spec = spec;
+    this.kind = kind;
+    this.a = a;
+    this.b = b;
+  }
+
+  static LatencyDistribution parse(String spec) {
+    String[] parts = spec.trim().split(":");
+    try {
+      switch (parts[0]) {
+        case "fixed":
+          return new LatencyDistribution(spec, "fixed", Double.parseDouble(parts[1]), 0);
+        case "uniform":
+          String[] range = parts[1].split("-");
+          return new LatencyDistribution(
+              spec, "uniform", Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+        case "lognormal":
+          return new LatencyDistribution(
+              spec, "lognormal", Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+        default:
+          break;
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("延迟分布格式错误: " + spec, e);
+    }
+    throw new IllegalArgumentException("不支持的延迟分布: " + spec);
+  }
+
+  long sampleMillis(Random random) {
+    double value =
+        switch (kind) {
+          case "uniform" -> a + random.nextDouble() * (b - a);
+          case "lognormal" -> a * Math.exp(b * random.nextGaussian());
+          default -> a;
+        };
+    return Math.max(0, Math.round(value));
+  }
+
+  @Override
+  public String toString() {
+    return spec;
+  }
+}
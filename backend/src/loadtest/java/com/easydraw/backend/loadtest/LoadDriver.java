@@ -0,0 +1,203 @@
+package com.easydraw.backend.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以固定并发（闭环：每个工作线程收到响应后立即发下一个请求）压后端接口，按接口统计状态码与延迟。
+ *
+ * <p>每个请求的提示词都带序号且 bypassCache=true，避免结果缓存、指令缓存与相同请求合并掩盖模型调用开销。
+ */
+final class LoadDriver {
+
+  /** 可压测的接口，按名称在 endpoints 参数中引用 */
+  enum Endpoint {
+    DIAGRAM("diagram", "/api/ai/diagram"),
+    DIAGRAM_REACTIVE("diagram-reactive", "/api/ai/diagram/reactive"),
+    DIAGRAM_STREAM("diagram-stream", "/api/ai/diagram/stream"),
+    STYLE("style", "/api/ai/style"),
+    STYLE_REACTIVE("style-reactive", "/api/ai/style/reactive");
+
+    final String label;
+    final String path;
+
+    Endpoint(String label, String path) {
+      this.label = label;
+      this.path = path;
+    }
+
+    static Endpoint of(String label) {
+      return Arrays.stream(values())
+          .filter(e -> e.label.equals(label.trim().toLowerCase(Locale.ROOT)))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("未知接口: " + label));
+    }
+
+    boolean isStyle() {
+      return this == STYLE || this == STYLE_REACTIVE;
+    }
+  }
+
+  /** 单个接口的统计 */
+  static final class Stats {
+    final LongAdder succeeded = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    final ConcurrentLinkedQueue<Long> latencyMicros = new ConcurrentLinkedQueue<>();
+
+    void record(boolean ok, String outcome, long micros) {
+      (ok ? succeeded : failed).increment();
+      outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+      latencyMicros.add(micros);
+    }
+
+    long[] sortedLatencies() {
+      long[] values = latencyMicros.stream().mapToLong(Long::longValue).toArray();
+      Arrays.sort(values);
+      return values;
+    }
+  }
+
+  private final String target;
+  private final String stubBaseUrl;
+  private final List<Endpoint> weighted;
+  private final int concurrency;
+  private final Duration requestTimeout;
+  private final HttpClient client;
+  private final AtomicLong sequence = new AtomicLong();
+
+  LoadDriver(
+      String target,
+      String stubBaseUrl,
+      Map<Endpoint, Integer> weights,
+      int concurrency,
+      Duration requestTimeout) {
+    this.target = target;
+    this.stubBaseUrl = stubBaseUrl;
+    this.concurrency = concurrency;
+    this.requestTimeout = requestTimeout;
+    List<Endpoint> list = new ArrayList<>();
+    weights.forEach(
+        (endpoint, weight) -> {
+          for (int i = 0; i < weight; i++) {
+            list.add(endpoint);
+          }
+        });
+    if (list.isEmpty()) {
+      throw new IllegalArgumentException("endpoints 不能为空");
+    }
+    this.weighted = List.copyOf(list);
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(
+                Executors.newCachedThreadPool(
+                    r -> {
+                      Thread t = new Thread(r, "loadtest-http");
+                      t.setDaemon(true);
+                      return t;
+                    }))
+            .build();
+  }
+
+  /**
+   * 预热 warmup 后统计 duration 时长内完成的请求。
+   */
+  Map<Endpoint, Stats> run(Duration warmup, Duration duration) throws InterruptedException {
+    Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    for (Endpoint endpoint : weighted) {
+      stats.putIfAbsent(endpoint, new Stats());
+    }
+    long measureFrom = System.nanoTime() + warmup.toNanos();
+    long end = measureFrom + duration.toNanos();
+    CountDownLatch done = new CountDownLatch(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      Thread worker =
+          new Thread(
+              () -> {
+                try {
+                  work(stats, measureFrom, end);
+                } finally {
+                  done.countDown();
+                }
+              },
+              "loadtest-worker-" + i);
+      worker.setDaemon(true);
+      worker.start();
+    }
+    done.await();
+    return stats;
+  }
+
+  private void work(Map<Endpoint, Stats> stats, long measureFrom, long end) {
+    while (System.nanoTime() < end) {
+      Endpoint endpoint = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+      long start = System.nanoTime();
+      boolean ok;
+      String outcome;
+      try {
+        HttpResponse<String> response =
+            client.send(request(endpoint), HttpResponse.BodyHandlers.ofString());
+        outcome = String.valueOf(response.statusCode());
+        ok = response.statusCode() / 100 == 2;
+        if (ok
+            && endpoint == Endpoint.DIAGRAM_STREAM
+            && !response.body().contains("event:done")) {
+          // SSE 以 error 事件结束时状态码仍是 200
+          ok = false;
+          outcome = "sse-error";
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        ok = false;
+        outcome = e.getClass().getSimpleName();
+      }
+      if (start >= measureFrom) {
+        stats.get(endpoint).record(ok, outcome, (System.nanoTime() - start) / 1_000);
+      }
+    }
+  }
+
+  private HttpRequest request(Endpoint endpoint) {
+    long n = sequence.incrementAndGet();
+    String modelConfig =
+        "{\"baseUrl\":\"" + stubBaseUrl + "\",\"apiKey\":\"stub-key\",\"model\":\"stub-model\"}";
+    String body =
+        endpoint.isStyle()
+            ? "{\"prompt\":\"让选中的图形看起来更有层次感，方案 "
+                + n
+                + "\",\"modelConfig\":"
+                + modelConfig
+                + "}"
+            : "{\"language\":\"mermaid\",\"diagramType\":\"flowchart\",\"bypassCache\":true,"
+                + "\"prompt\":\"报销审批流程：员工提交、主管审批、财务复核、出纳付款，编号 "
+                + n
+                + "\",\"modelConfig\":"
+                + modelConfig
+                + "}";
+    return HttpRequest.newBuilder(URI.create(target + endpoint.path))
+        .timeout(requestTimeout)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+}
@@ -0,0 +1,235 @@
+package com.easydraw.backend.loadtest;
+
+import com.easydraw.backend.EasyDrawBackendApplication;
+import com.easydraw.backend.loadtest.LoadDriver.Endpoint;
+import com.easydraw.backend.loadtest.LoadDriver.Stats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 压测入口：启动模型桩服务，把后端的 ModelConfig.baseUrl 指向它，按目标并发压测并输出报告。
+ *
+ * <p>参数为 {@code key=value}，以 {@code --} 开头的参数原样传给内嵌启动的后端（如
+ * {@code --spring.threads.virtual.enabled=true}）：
+ *
+ * <ul>
+ *   <li>concurrency（50）、duration（60s）、warmup（10s）、request-timeout（180s）
+ *   <li>endpoints（diagram:1,style:1）：接口及权重，见 {@link Endpoint}
+ *   <li>latency（lognormal:2000:0.5）：桩服务延迟分布，见 {@link LatencyDistribution}
+ *   <li>error-rate（0）、error-status（503）、chunk-size（16）、chunk-delay（20ms）
+ *   <li>target：已启动后端的地址（含 context-path）；为空时在本进程内启动后端
+ *   <li>stub-port（0）、stub-only（false）：只启动桩服务，供独立启动的后端或手工调试使用
+ *   <li>result（target/loadtest-result.json）：JSON 报告路径
+ * </ul>
+ */
+public final class LoadTest {
+
+  private LoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new LinkedHashMap<>();
+    List<String> springArgs = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith("--")) {
+        springArgs.add(arg);
+      } else if (arg.contains("=")) {
+        int i = arg.indexOf('=');
+        options.put(arg.substring(0, i).trim(), arg.substring(i + 1).trim());
+      } else if (!arg.isBlank()) {
+        throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+      }
+    }
+
+    int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "50"));
+    Duration duration = duration(options.getOrDefault("duration", "60s"));
+    Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+    Duration requestTimeout = duration(options.getOrDefault("request-timeout", "180s"));
+    Map<Endpoint, Integer> weights =
+        endpoints(options.getOrDefault("endpoints", "diagram:1,style:1"));
+    LatencyDistribution latency =
+        LatencyDistribution.parse(options.getOrDefault("latency", "lognormal:2000:0.5"));
+
+    try (StubChatServer stub =
+        new StubChatServer(
+            latency,
+            Double.parseDouble(options.getOrDefault("error-rate", "0")),
+            Integer.parseInt(options.getOrDefault("error-status", "503")),
+            Integer.parseInt(options.getOrDefault("chunk-size", "16")),
+            duration(options.getOrDefault("chunk-delay", "20ms")).toMillis())) {
+      stub.start(Integer.parseInt(options.getOrDefault("stub-port", "0")));
+      System.out.println("模型桩服务: " + stub.baseUrl() + "，延迟 " + latency);
+      if (Boolean.parseBoolean(options.getOrDefault("stub-only", "false"))) {
+        Thread.currentThread().join();
+      }
+
+      ConfigurableApplicationContext context = null;
+      String target = options.getOrDefault("target", "");
+      if (target.isBlank()) {
+        springArgs.add(0, "--server.port=0");
+        context =
+            SpringApplication.run(
+                EasyDrawBackendApplication.class, springArgs.toArray(String[]::new));
+        target =
+            "http://127.0.0.1:"
+                + context.getEnvironment().getProperty("local.server.port")
+                + context.getEnvironment().getProperty("server.servlet.context-path", "");
+      }
+      try (JvmSampler sampler = new JvmSampler(target)) {
+        System.out.printf(
+            Locale.ROOT,
+            "压测 %s：并发 %d，预热 %ss，时长 %ss，接口 %s%n",
+            target,
+            concurrency,
+            warmup.toSeconds(),
+            duration.toSeconds(),
+            options.getOrDefault("endpoints", "diagram:1,style:1"));
+        LoadDriver driver =
+            new LoadDriver(target, stub.baseUrl(), weights, concurrency, requestTimeout);
+        sampler.start();
+        Map<Endpoint, Stats> stats = driver.run(warmup, duration);
+        Map<String, Object> report = report(options, concurrency, duration, stats, sampler, stub);
+        print(report);
+        Path result = Path.of(options.getOrDefault("result", "target/loadtest-result.json"));
+        write(result, report);
+        System.out.println("报告已写入 " + result.toAbsolutePath());
+      } finally {
+        if (context != null) {
+          context.close();
+        }
+      }
+    }
+  }
+
+  private static Map<String, Object> report(
+      Map<String, String> options,
+      int concurrency,
+      Duration duration,
+      Map<Endpoint, Stats> stats,
+      JvmSampler sampler,
+      StubChatServer stub) {
+    double seconds = duration.toMillis() / 1000.0;
+    Map<String, Object> endpoints = new LinkedHashMap<>();
+    stats.forEach(
+        (endpoint, s) -> {
+          long[] latencies = s.sortedLatencies();
+          long total = s.succeeded.sum() + s.failed.sum();
+          Map<String, Object> item = new LinkedHashMap<>();
+          item.put("requests", total);
+          item.put("throughput", round(total / seconds));
+          item.put("errorRate", total == 0 ? 0 : round((double) s.failed.sum() / total));
+          item.put("p50Ms", percentileMillis(latencies, 0.50));
+          item.put("p90Ms", percentileMillis(latencies, 0.90));
+          item.put("p99Ms", percentileMillis(latencies, 0.99));
+          item.put("maxMs", percentileMillis(latencies, 1.0));
+          Map<String, Long> outcomes = new TreeMap<>();
+          s.outcomes.forEach((k, v) -> outcomes.put(k, v.sum()));
+          item.put("outcomes", outcomes);
+          endpoints.put(endpoint.label, item);
+        });
+
+    Map<String, Object> stubStats = new LinkedHashMap<>();
+    stubStats.put("requests", stub.requests());
+    stubStats.put("streamed", stub.streamed());
+    stubStats.put("injectedErrors", stub.injectedErrors());
+    stubStats.put("maxInFlight", stub.maxInFlight());
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("options", options);
+    report.put("concurrency", concurrency);
+    report.put("durationSeconds", seconds);
+    report.put("endpoints", endpoints);
+    report.put("jvm", sampler.summary());
+    report.put("stub", stubStats);
+    return report;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void print(Map<String, Object> report) {
+    System.out.println();
+    System.out.printf(
+        Locale.ROOT,
+        "%-18s %8s %9s %8s %8s %8s %8s %8s  %s%n",
+        "endpoint",
+        "requests",
+        "req/s",
+        "err%",
+        "p50ms",
+        "p90ms",
+        "p99ms",
+        "maxms",
+        "outcomes");
+    ((Map<String, Map<String, Object>>) report.get("endpoints"))
+        .forEach(
+            (name, item) ->
+                System.out.printf(
+                    Locale.ROOT,
+                    "%-18s %8d %9.2f %8.2f %8d %8d %8d %8d  %s%n",
+                    name,
+                    item.get("requests"),
+                    item.get("throughput"),
+                    ((Number) item.get("errorRate")).doubleValue() * 100,
+                    item.get("p50Ms"),
+                    item.get("p90Ms"),
+                    item.get("p99Ms"),
+                    item.get("maxMs"),
+                    item.get("outcomes")));
+    System.out.println("JVM: " + report.get("jvm"));
+    System.out.println("桩服务: " + report.get("stub"));
+  }
+
+  private static void write(Path path, Map<String, Object> report) throws IOException {
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .writeValue(path.toFile(), report);
+  }
+
+  /** 最近秩法取分位值 */
+  private static long percentileMillis(long[] sortedMicros, double quantile) {
+    if (sortedMicros.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(quantile * sortedMicros.length);
+    return sortedMicros[Math.max(0, rank - 1)] / 1_000;
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 100) / 100.0;
+  }
+
+  private static Duration duration(String value) {
+    return DurationStyle.detectAndParse(value);
+  }
+
+  private static Map<Endpoint, Integer> endpoints(String spec) {
+    Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+    for (String part : spec.split(",")) {
+      if (part.isBlank()) {
+        continue;
+      }
+      String[] pair = part.split(":");
+      int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+      if (weight < 0) {
+        throw new IllegalArgumentException("接口权重不能为负数: " + part);
+      }
+      weights.merge(Endpoint.of(pair[0]), weight, Integer::sum);
+    }
+    return weights;
+  }
+}
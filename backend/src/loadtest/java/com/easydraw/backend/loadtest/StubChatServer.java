@@ -0,0 +1,245 @@
+package com.easydraw.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内嵌的 OpenAI 兼容桩服务：处理 {@code POST .../chat/completions}，按配置的延迟分布与错误率返回固定内容。
+ *
+ * <ul>
+ *   <li>非流式：等待一次采样延迟后返回完整响应（带 usage）
+ *   <li>流式（{@code "stream": true}）：采样延迟作为首个片段的等待时间，之后每 chunkSize 个字符一个片段，
+ *       片段间隔 chunkDelay
+ *   <li>错误：按 errorRate 返回 errorStatus（429 时带 {@code Retry-After: 1}），同样先等待采样延迟
+ * </ul>
+ *
+ * <p>每个请求占用一个线程等待，与真实提供方一样不会因压测端并发过高而排队。
+ */
+final class StubChatServer implements AutoCloseable {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final LatencyDistribution latency;
+  private final double errorRate;
+  private final int errorStatus;
+  private final int chunkSize;
+  private final long chunkDelayMillis;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder streamed = new LongAdder();
+  private final LongAdder injectedErrors = new LongAdder();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  private HttpServer server;
+  private ExecutorService executor;
+
+  StubChatServer(
+      LatencyDistribution latency,
+      double errorRate,
+      int errorStatus,
+      int chunkSize,
+      long chunkDelayMillis) {
+    this.latency = latency;
+    this.errorRate = errorRate;
+    this.errorStatus = errorStatus;
+    this.chunkSize = Math.max(1, chunkSize);
+    this.chunkDelayMillis = chunkDelayMillis;
+  }
+
+  void start(int port) throws IOException {
+    AtomicInteger threads = new AtomicInteger();
+    executor =
+        Executors.newCachedThreadPool(
+            r -> {
+              Thread t = new Thread(r, "stub-llm-" + threads.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /** 填入 ModelConfig.baseUrl 的地址 */
+  String baseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+  }
+
+  long requests() {
+    return requests.sum();
+  }
+
+  long streamed() {
+    return streamed.sum();
+  }
+
+  long injectedErrors() {
+    return injectedErrors.sum();
+  }
+
+  int maxInFlight() {
+    return maxInFlight.get();
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0);
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"POST".equals(exchange.getRequestMethod())
+          || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+        send(exchange, 404, "{\"error\":{\"message\":\"not found\"}}");
+        return;
+      }
+      requests.increment();
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        respond(exchange);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void respond(HttpExchange exchange) throws IOException, InterruptedException {
+    JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+    String content = CannedResponses.forSystemPrompt(systemPrompt(request));
+    String model = request.path("model").asText("stub-model");
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Thread.sleep(latency.sampleMillis(random));
+
+    if (random.nextDouble() < errorRate) {
+      injectedErrors.increment();
+      if (errorStatus == 429) {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+      }
+      send(exchange, errorStatus, "{\"error\":{\"message\":\"stub injected error\"}}");
+      return;
+    }
+    if (request.path("stream").asBoolean(false)) {
+      streamed.increment();
+      stream(exchange, model, content, request.path("stream_options").path("include_usage"));
+      return;
+    }
+
+    ObjectNode body = MAPPER.createObjectNode();
+    body.put("id", "chatcmpl-" + UUID.randomUUID());
+    body.put("object", "chat.completion");
+    body.put("created", System.currentTimeMillis() / 1000);
+    body.put("model", model);
+    ObjectNode choice = body.putArray("choices").addObject();
+    choice.put("index", 0);
+    choice.putObject("message").put("role", "assistant").put("content", content);
+    choice.put("finish_reason", "stop");
+    body.set("usage", usage(request, content));
+    send(exchange, 200, MAPPER.writeValueAsString(body));
+  }
+
+  private void stream(HttpExchange exchange, String model, String content, JsonNode includeUsage)
+      throws IOException, InterruptedException {
+    exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+    exchange.sendResponseHeaders(200, 0);
+    String id = "chatcmpl-" + UUID.randomUUID();
+    OutputStream out = exchange.getResponseBody();
+    for (int i = 0; i < content.length(); i += chunkSize) {
+      if (i > 0 && chunkDelayMillis > 0) {
+        Thread.sleep(chunkDelayMillis);
+      }
+      String text = content.substring(i, Math.min(content.length(), i + chunkSize));
+      writeEvent(out, chunk(id, model, text, null));
+    }
+    writeEvent(out, chunk(id, model, null, "stop"));
+    if (includeUsage.asBoolean(false)) {
+      ObjectNode last = chunk(id, model, null, null);
+      last.putArray("choices");
+      last.set("usage", usage(null, content));
+      writeEvent(out, last);
+    }
+    out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private static ObjectNode chunk(String id, String model, String text, String finishReason) {
+    ObjectNode body = MAPPER.createObjectNode();
+    body.put("id", id);
+    body.put("object", "chat.completion.chunk");
+    body.put("created", System.currentTimeMillis() / 1000);
+    body.put("model", model);
+    ObjectNode choice = body.putArray("choices").addObject();
+    choice.put("index", 0);
+    ObjectNode delta = choice.putObject("delta");
+    if (text != null) {
+      delta.put("role", "assistant").put("content", text);
+    }
+    if (finishReason == null) {
+      choice.putNull("finish_reason");
+    } else {
+      choice.put("finish_reason", finishReason);
+    }
+    return body;
+  }
+
+  /** 按约 2 个字符 1 个 token 粗略估算用量 */
+  private static ObjectNode usage(JsonNode request, String content) {
+    int prompt = request == null ? 0 : request.path("messages").toString().length() / 2;
+    int completion = content.length() / 2;
+    ObjectNode usage = MAPPER.createObjectNode();
+    usage.put("prompt_tokens", prompt);
+    usage.put("completion_tokens", completion);
+    usage.put("total_tokens", prompt + completion);
+    return usage;
+  }
+
+  private static String systemPrompt(JsonNode request) {
+    JsonNode messages = request.path("messages");
+    if (messages instanceof ArrayNode array) {
+      for (JsonNode message : array) {
+        if ("system".equals(message.path("role").asText())) {
+          return message.path("content").asText();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static void writeEvent(OutputStream out, ObjectNode event) throws IOException {
+    String line = "data: " + MAPPER.writeValueAsString(event) + "\n\n";
+    out.write(line.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  private static void send(HttpExchange exchange, int status, String json) throws IOException {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    exchange.getResponseBody().write(bytes);
+  }
+}
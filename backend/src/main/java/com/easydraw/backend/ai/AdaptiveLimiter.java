@@ -0,0 +1,158 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.BulkheadProperties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个端点的自适应并发上限（AIMD）。
+ *
+ * <p>上限被用到一半以上时，每次成功调用加 1/limit（约每轮加一）；调用失败或耗时超过平滑平均耗时的
+ * slowCallRatio 倍时乘以 backoffRatio。取消的调用只归还许可，不参与调整。使用 ReentrantLock 而非
+ * synchronized，排队等待不会钉住虚拟线程。
+ */
+final class AdaptiveLimiter {
+
+  enum Outcome {
+    SUCCESS,
+    FAILURE,
+    IGNORED
+  }
+
+  private static final double LATENCY_SMOOTHING = 0.1;
+
+  private final BulkheadProperties properties;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+
+  private double limit;
+  private int inFlight;
+  private int queued;
+  /** 成功调用耗时的指数平滑平均值，0 表示还没有样本 */
+  private double averageLatencyNanos;
+
+  AdaptiveLimiter(BulkheadProperties properties) {
+    this.properties = properties;
+    this.limit =
+        Math.max(
+            properties.getMinLimit(),
+            Math.min(properties.getMaxLimit(), properties.getInitialLimit()));
+  }
+
+  /**
+   * 获取许可。
+   *
+   * @param wait 并发已满时是否排队等待；为 false 时直接拒绝
+   */
+  Permit acquire(boolean wait) {
+    lock.lock();
+    try {
+      if (inFlight < (int) limit) {
+        inFlight++;
+        return new Permit();
+      }
+      if (!wait || queued >= properties.getMaxQueue()) {
+        throw new AiOverloadedException(
+            AiOverloadedException.Reason.QUEUE_FULL,
+            "模型服务繁忙，请稍后重试（并发上限 " + (int) limit + "）",
+            properties.getQueueTimeout());
+      }
+      queued++;
+      try {
+        long remaining = properties.getQueueTimeout().toNanos();
+        while (inFlight >= (int) limit) {
+          if (remaining <= 0) {
+            throw new AiOverloadedException(
+                AiOverloadedException.Reason.QUEUE_TIMEOUT,
+                "模型服务繁忙，排队等待超时",
+                properties.getQueueTimeout());
+          }
+          remaining = released.awaitNanos(remaining);
+        }
+        inFlight++;
+        return new Permit();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("请求已取消", e);
+      } finally {
+        queued--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int limit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int inFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int queued() {
+    lock.lock();
+    try {
+      return queued;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void onRelease(Outcome outcome, long latencyNanos) {
+    lock.lock();
+    try {
+      boolean saturated = inFlight * 2 >= limit;
+      inFlight--;
+      if (outcome == Outcome.FAILURE) {
+        decrease();
+      } else if (outcome == Outcome.SUCCESS) {
+        boolean slow =
+            averageLatencyNanos > 0
+                && latencyNanos > averageLatencyNanos * properties.getSlowCallRatio();
+        averageLatencyNanos =
+            averageLatencyNanos == 0
+                ? latencyNanos
+                : averageLatencyNanos * (1 - LATENCY_SMOOTHING) + latencyNanos * LATENCY_SMOOTHING;
+        if (slow) {
+          decrease();
+        } else if (saturated) {
+          // 上限没用满时不加，避免低负载下把上限抬到没有验证过的高度
+          limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+        }
+      }
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void decrease() {
+    limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+  }
+
+  /**
+   * 一次调用持有的许可，释放时回报结果与耗时；重复释放无效。
+   */
+  final class Permit {
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean releasedOnce = new AtomicBoolean();
+
+    void release(Outcome outcome) {
+      if (releasedOnce.compareAndSet(false, true)) {
+        onRelease(outcome, System.nanoTime() - startNanos);
+      }
+    }
+  }
+}
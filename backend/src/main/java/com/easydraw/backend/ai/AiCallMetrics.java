@@ -0,0 +1,157 @@
+package com.easydraw.backend.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 模型调用指标：单次端点调用耗时（含重试；同步调用的重试要重新获取舱壁许可，这段排队也计入）与
+ * token 用量。
+ *
+ * <ul>
+ *   <li>{@code ai.call{provider,model,outcome}}：带直方图，outcome 为 success / error / timeout /
+ *       cancelled
+ *   <li>{@code ai.tokens{provider,model,type}}：type 为 prompt / completion，取自响应的 usage；
+ *       提供方未返回 usage（如流式调用未开启 stream_options）时不计
+ * </ul>
+ *
+ * <p>model 来自请求参数，取值个数由 {@link com.easydraw.backend.diagnostics.BoundedTagMeterFilter}
+ * 限制。
+ */
+@Component
+public class AiCallMetrics {
+
+  static final String SUCCESS = "success";
+  static final String CANCELLED = "cancelled";
+
+  private final MeterRegistry meterRegistry;
+
+  public AiCallMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Timer.Sample start() {
+    return Timer.start(meterRegistry);
+  }
+
+  public void stop(Timer.Sample sample, String provider, String model, String outcome) {
+    sample.stop(
+        Timer.builder("ai.call")
+            .description("模型端点调用耗时")
+            .tag("provider", provider)
+            .tag("model", modelTag(model))
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+  }
+
+  public void stop(Timer.Sample sample, String provider, String model, Throwable error) {
+    stop(sample, provider, model, outcome(error));
+  }
+
+  /**
+   * 订阅时开始计时，结束、出错或取消（如对冲落败、客户端断开）时按对应 outcome 记录。舱壁拒绝不是
+   * 一次端点调用，与同步客户端一样不记录。
+   */
+  public <T> Mono<T> timed(String provider, String model, Mono<T> call) {
+    return Mono.defer(
+        () -> {
+          Timer.Sample sample = start();
+          AtomicReference<Throwable> error = new AtomicReference<>();
+          return call.doOnError(error::set)
+              .doFinally(
+                  signal -> {
+                    if (!(error.get() instanceof AiOverloadedException)) {
+                      stop(sample, provider, model, outcome(signal, error.get()));
+                    }
+                  });
+        });
+  }
+
+  public <T> Flux<T> timed(String provider, String model, Flux<T> call) {
+    return Flux.defer(
+        () -> {
+          Timer.Sample sample = start();
+          AtomicReference<Throwable> error = new AtomicReference<>();
+          return call.doOnError(error::set)
+              .doFinally(
+                  signal -> {
+                    if (!(error.get() instanceof AiOverloadedException)) {
+                      stop(sample, provider, model, outcome(signal, error.get()));
+                    }
+                  });
+        });
+  }
+
+  /**
+   * 记录一次响应的 token 用量；usage 缺失或为 0 时忽略。
+   */
+  public void recordUsage(String provider, String model, ChatResponse response) {
+    Usage usage =
+        response == null || response.getMetadata() == null
+            ? null
+            : response.getMetadata().getUsage();
+    if (usage == null) {
+      return;
+    }
+    Number prompt = usage.getPromptTokens();
+    Number total = usage.getTotalTokens();
+    long promptTokens = prompt == null ? 0 : prompt.longValue();
+    long completionTokens = total == null ? 0 : Math.max(0, total.longValue() - promptTokens);
+    recordUsage(provider, model, promptTokens, completionTokens);
+  }
+
+  public void recordUsage(String provider, String model, long promptTokens, long completionTokens) {
+    tokens(provider, model, "prompt").increment(promptTokens);
+    tokens(provider, model, "completion").increment(completionTokens);
+  }
+
+  /**
+   * 流式响应只有最后一个片段带 usage，判断片段是否带有非零用量。
+   */
+  public static boolean hasUsage(ChatResponse response) {
+    if (response == null || response.getMetadata() == null) {
+      return false;
+    }
+    Usage usage = response.getMetadata().getUsage();
+    Number total = usage == null ? null : usage.getTotalTokens();
+    return total != null && total.longValue() > 0;
+  }
+
+  private Counter tokens(String provider, String model, String type) {
+    return Counter.builder("ai.tokens")
+        .description("模型调用 token 用量")
+        .tag("provider", provider)
+        .tag("model", modelTag(model))
+        .tag("type", type)
+        .register(meterRegistry);
+  }
+
+  private static String outcome(SignalType signal, Throwable error) {
+    if (signal == SignalType.ON_COMPLETE) {
+      return SUCCESS;
+    }
+    return signal == SignalType.CANCEL ? CANCELLED : outcome(error);
+  }
+
+  static String outcome(Throwable error) {
+    for (Throwable e = error; e != null; e = e.getCause()) {
+      if (e instanceof TimeoutException) {
+        return "timeout";
+      }
+    }
+    return "error";
+  }
+
+  public static String modelTag(String model) {
+    return model == null || model.isBlank() ? "default" : model;
+  }
+}
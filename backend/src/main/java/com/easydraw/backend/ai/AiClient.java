@@ -2,9 +2,16 @@ package com.easydraw.backend.ai;
 
 import com.easydraw.backend.diagram.DiagramLanguage;
 import com.easydraw.backend.dto.ModelConfig;
+import reactor.core.publisher.Flux;
 
 public interface AiClient {
   String generate(DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig);
 
   String generateWithSystemPrompt(String systemPrompt, String userPrompt, ModelConfig modelConfig);
+
+  /**
+   * 流式生成图表文本，按模型返回的增量片段发出。
+   */
+  Flux<String> stream(
+      DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig);
 }
@@ -0,0 +1,35 @@
+package com.easydraw.backend.ai;
+
+import java.time.Duration;
+
+/**
+ * 模型端点并发已满或全部熔断时快速失败，由全局异常处理转换为 429 / 503。
+ */
+public class AiOverloadedException extends RuntimeException {
+
+  public enum Reason {
+    /** 排队已满，直接拒绝（429） */
+    QUEUE_FULL,
+    /** 排队等待许可超时（503） */
+    QUEUE_TIMEOUT,
+    /** 所有可用端点都处于熔断状态（503） */
+    CIRCUIT_OPEN
+  }
+
+  private final Reason reason;
+  private final Duration retryAfter;
+
+  public AiOverloadedException(Reason reason, String message, Duration retryAfter) {
+    super(message);
+    this.reason = reason;
+    this.retryAfter = retryAfter;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
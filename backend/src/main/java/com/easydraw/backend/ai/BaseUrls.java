@@ -0,0 +1,22 @@
+package com.easydraw.backend.ai;
+
+/**
+ * baseUrl 规范化：兼容用户直接粘贴完整的 /chat/completions 地址或带多余的结尾斜杠。
+ */
+public final class BaseUrls {
+
+  private BaseUrls() {}
+
+  public static String normalize(String baseUrl) {
+    if (baseUrl == null) {
+      return "";
+    }
+    String trimmed = baseUrl.trim();
+    int idx = trimmed.indexOf("/chat/completions");
+    String normalized = idx > 0 ? trimmed.substring(0, idx) : trimmed;
+    while (normalized.endsWith("/")) {
+      normalized = normalized.substring(0, normalized.length() - 1);
+    }
+    return normalized;
+  }
+}
@@ -0,0 +1,323 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.CassetteProperties;
+import com.easydraw.backend.config.CassetteProperties.Mode;
+import com.easydraw.backend.util.Digests;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * 模型调用的录制与回放，用于离线复现线上的流量形态。同步与响应式（含流式）客户端共用，回放模式下两者
+ * 都不访问提供方。
+ *
+ * <ul>
+ *   <li>录制：每次调用（含重试后的最终结果或错误）追加一行 JSON 到 llm-yyyyMMdd.jsonl，包含时间、
+ *       提示词摘要、耗时、模型输出与 token 用量；不保存 baseUrl 与 apiKey，文本中的密钥、邮箱与手机号
+ *       会被遮盖
+ *   <li>回放：按系统提示词 + 用户提示词的摘要查找记录（同一摘要多条时轮流返回），等待原始耗时乘以
+ *       timeScale 后返回录制内容或抛出录制的错误；找不到时按录制顺序返回下一条，strict 时报错
+ * </ul>
+ */
+@Component
+public class ChatCassette implements DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(ChatCassette.class);
+
+  private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+  private static final Pattern SECRET =
+      Pattern.compile("(sk-[A-Za-z0-9_\\-]{8,}|Bearer\\s+[A-Za-z0-9._\\-]+)");
+  private static final Pattern EMAIL = Pattern.compile("[\\w.+\\-]+@[\\w\\-]+(\\.[\\w\\-]+)+");
+  private static final Pattern MOBILE = Pattern.compile("(?<!\\d)1[3-9]\\d{9}(?!\\d)");
+
+  /**
+   * 一条录制记录，字段名保持简短以减小文件体积。
+   *
+   * @param timestamp 调用开始时间（毫秒）
+   * @param key 系统提示词 + 用户提示词的摘要
+   * @param latencyMillis 调用耗时，含重试与退避
+   * @param promptChars 提示词总字符数
+   * @param systemPrompt 系统提示词，仅 recordPrompts 时保存
+   * @param userPrompt 用户提示词，仅 recordPrompts 时保存
+   * @param content 模型输出，出错时为空
+   * @param error 错误信息，成功时为空
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record Recording(
+      @JsonProperty("ts") long timestamp,
+      @JsonProperty("key") String key,
+      @JsonProperty("provider") String provider,
+      @JsonProperty("model") String model,
+      @JsonProperty("ms") long latencyMillis,
+      @JsonProperty("in") int promptChars,
+      @JsonProperty("sys") String systemPrompt,
+      @JsonProperty("user") String userPrompt,
+      @JsonProperty("out") String content,
+      @JsonProperty("pt") long promptTokens,
+      @JsonProperty("ct") long completionTokens,
+      @JsonProperty("err") String error) {}
+
+  private final CassetteProperties properties;
+  private final ObjectMapper objectMapper;
+  private final ZoneId zone = ZoneId.systemDefault();
+
+  private final List<Recording> recordings;
+  private final Map<String, List<Recording>> byKey = new HashMap<>();
+  private final Map<String, AtomicLong> keyCursors = new HashMap<>();
+  private final AtomicLong sequenceCursor = new AtomicLong();
+
+  private BufferedWriter writer;
+  private LocalDate writerDate;
+
+  public ChatCassette(CassetteProperties properties, ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.recordings = isReplaying() ? load(properties.getDirectory()) : List.of();
+    for (Recording recording : recordings) {
+      byKey.computeIfAbsent(recording.key(), k -> new ArrayList<>()).add(recording);
+      keyCursors.computeIfAbsent(recording.key(), k -> new AtomicLong());
+    }
+    if (properties.getMode() != Mode.OFF) {
+      log.info(
+          "模型调用{}模式已开启, directory={}, recordings={}",
+          isReplaying() ? "回放" : "录制",
+          properties.getDirectory().toAbsolutePath(),
+          recordings.size());
+    }
+  }
+
+  public boolean isRecording() {
+    return properties.getMode() == Mode.RECORD;
+  }
+
+  public boolean isReplaying() {
+    return properties.getMode() == Mode.REPLAY;
+  }
+
+  /**
+   * 追加一条录制记录；写入失败只记日志，不影响本次调用。
+   *
+   * @param startNanos 调用开始时的 {@link System#nanoTime()}
+   * @param response 成功时的响应
+   * @param error 失败时的异常
+   */
+  public void record(
+      String provider,
+      String model,
+      String systemPrompt,
+      String userPrompt,
+      long startNanos,
+      ChatResponse response,
+      Throwable error) {
+    record(
+        provider,
+        model,
+        systemPrompt,
+        userPrompt,
+        startNanos,
+        response == null ? null : ChatPrompts.chunkText(response),
+        response,
+        error);
+  }
+
+  /**
+   * 追加一条录制记录；流式调用在结束后传入拼接好的全文。
+   *
+   * @param content 成功时的模型输出
+   * @param usage 带 token 用量的响应，没有时为 null
+   */
+  public void record(
+      String provider,
+      String model,
+      String systemPrompt,
+      String userPrompt,
+      long startNanos,
+      String content,
+      ChatResponse usage,
+      Throwable error) {
+    if (!isRecording()) {
+      return;
+    }
+    long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    Usage tokenUsage =
+        usage == null || usage.getMetadata() == null ? null : usage.getMetadata().getUsage();
+    long promptTokens = tokens(tokenUsage == null ? null : tokenUsage.getPromptTokens());
+    long totalTokens = tokens(tokenUsage == null ? null : tokenUsage.getTotalTokens());
+    boolean keepPrompts = properties.isRecordPrompts();
+    Recording recording =
+        new Recording(
+            System.currentTimeMillis() - latencyMillis,
+            key(systemPrompt, userPrompt),
+            provider,
+            AiCallMetrics.modelTag(model),
+            latencyMillis,
+            length(systemPrompt) + length(userPrompt),
+            keepPrompts ? redact(systemPrompt) : null,
+            keepPrompts ? redact(userPrompt) : null,
+            redact(content),
+            promptTokens,
+            Math.max(0, totalTokens - promptTokens),
+            error == null ? null : redact(String.valueOf(error.getMessage())));
+    try {
+      append(objectMapper.writeValueAsString(recording));
+    } catch (IOException e) {
+      log.warn("写入模型调用录制失败: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * 取出与提示词对应的录制记录，并在当前线程上等待其耗时（按 timeScale 缩放）。
+   *
+   * @throws IllegalStateException 没有可用记录，或录制的调用本身失败
+   */
+  public Recording replay(String systemPrompt, String userPrompt) {
+    Recording recording = next(key(systemPrompt, userPrompt));
+    long waitMillis = waitMillis(recording);
+    if (waitMillis > 0) {
+      try {
+        Thread.sleep(waitMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("回放等待被中断", e);
+      }
+    }
+    return checked(recording);
+  }
+
+  /**
+   * 非阻塞回放：订阅时取出记录，在定时线程上等待其耗时后发出，不占用调用线程。
+   */
+  public Mono<Recording> replayMono(String systemPrompt, String userPrompt) {
+    return Mono.defer(
+        () -> {
+          Recording recording = next(key(systemPrompt, userPrompt));
+          return Mono.delay(Duration.ofMillis(waitMillis(recording)))
+              .map(tick -> checked(recording));
+        });
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  private long waitMillis(Recording recording) {
+    return Math.max(0, Math.round(recording.latencyMillis() * properties.getTimeScale()));
+  }
+
+  private static Recording checked(Recording recording) {
+    if (recording.error() != null) {
+      throw new IllegalStateException(recording.error());
+    }
+    return recording;
+  }
+
+  private Recording next(String key) {
+    List<Recording> matches = byKey.get(key);
+    if (matches != null) {
+      int index = (int) (keyCursors.get(key).getAndIncrement() % matches.size());
+      return matches.get(index);
+    }
+    if (properties.isStrict() || recordings.isEmpty()) {
+      throw new IllegalStateException("回放记录中没有匹配的请求 key=" + key);
+    }
+    return recordings.get((int) (sequenceCursor.getAndIncrement() % recordings.size()));
+  }
+
+  private synchronized void append(String line) throws IOException {
+    LocalDate today = LocalDate.now(zone);
+    if (writer == null || !today.equals(writerDate)) {
+      if (writer != null) {
+        writer.close();
+      }
+      Files.createDirectories(properties.getDirectory());
+      Path file = properties.getDirectory().resolve("llm-" + today.format(FILE_DATE) + ".jsonl");
+      writer =
+          Files.newBufferedWriter(
+              file,
+              StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.APPEND);
+      writerDate = today;
+    }
+    writer.write(line);
+    writer.newLine();
+    // 每行落盘，进程异常退出时最多丢失正在写的一行
+    writer.flush();
+  }
+
+  private List<Recording> load(Path directory) {
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files = stream.filter(p -> p.toString().endsWith(".jsonl")).sorted().toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException("读取回放目录失败: " + directory.toAbsolutePath(), e);
+    }
+    List<Recording> loaded = new ArrayList<>();
+    for (Path file : files) {
+      try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+        for (String line : (Iterable<String>) lines::iterator) {
+          if (!line.isBlank()) {
+            loaded.add(objectMapper.readValue(line, Recording.class));
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("解析回放文件失败: " + file.toAbsolutePath(), e);
+      }
+    }
+    if (loaded.isEmpty()) {
+      throw new IllegalStateException("回放目录中没有录制记录: " + directory.toAbsolutePath());
+    }
+    return List.copyOf(loaded);
+  }
+
+  static String key(String systemPrompt, String userPrompt) {
+    return Digests.sha256Hex(systemPrompt + "\u0000" + userPrompt).substring(0, 32);
+  }
+
+  static String redact(String text) {
+    if (text == null) {
+      return null;
+    }
+    String masked = SECRET.matcher(text).replaceAll("***");
+    masked = EMAIL.matcher(masked).replaceAll("***@***");
+    return MOBILE.matcher(masked).replaceAll("1**********");
+  }
+
+  private static long tokens(Number value) {
+    return value == null ? 0 : value.longValue();
+  }
+
+  private static int length(String text) {
+    return text == null ? 0 : text.length();
+  }
+}
@@ -0,0 +1,72 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.AiClientProperties;
+import com.easydraw.backend.util.Digests;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.ai.model.function.FunctionCallbackResolver;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 复用 OpenAiApi / OpenAiChatModel，避免每次请求都重新创建 HTTP 客户端与连接。
+ *
+ * <p>按规范化后的 baseUrl 与 apiKey 摘要区分客户端，按空闲时间与数量淘汰，命中率等统计通过 actuator 的
+ * cache.* 指标（cache=ai-chat-models）暴露。
+ *
+ * <p>客户端不使用 Spring AI 内置的重试（默认 10 次、只看异常类型），错误响应统一转为
+ * {@link ProviderHttpException}，由 {@link ProviderRetry} 控制重试。
+ */
+@Component
+public class ChatModelCache {
+
+  /** 只调用一次，重试由 ProviderRetry 负责 */
+  private static final RetryTemplate NO_RETRY = RetryTemplate.builder().maxAttempts(1).build();
+
+  private final Cache<ClientKey, OpenAiChatModel> cache;
+  private final ProviderTransport transport;
+
+  public ChatModelCache(
+      AiClientProperties properties, ProviderTransport transport, MeterRegistry meterRegistry) {
+    this.transport = transport;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getCacheMaximumSize())
+            .expireAfterAccess(properties.getCacheExpireAfterAccess())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "ai-chat-models");
+  }
+
+  public OpenAiChatModel obtain(
+      String baseUrl, String apiKey, String completionsPath, String embeddingsPath) {
+    ClientKey key =
+        new ClientKey(baseUrl, completionsPath, embeddingsPath, Digests.sha256Hex(apiKey));
+    return cache.get(key, k -> create(baseUrl, apiKey, completionsPath, embeddingsPath));
+  }
+
+  private OpenAiChatModel create(
+      String baseUrl, String apiKey, String completionsPath, String embeddingsPath) {
+    OpenAiApi api =
+        new OpenAiApi(
+            baseUrl,
+            apiKey,
+            completionsPath,
+            embeddingsPath,
+            transport.restClientBuilder(),
+            transport.webClientBuilder(),
+            ProviderResponseErrorHandler.INSTANCE);
+    // 默认选项与 new OpenAiChatModel(api) 相同
+    OpenAiChatOptions defaultOptions =
+        OpenAiChatOptions.builder().model(OpenAiApi.DEFAULT_CHAT_MODEL).temperature(0.7).build();
+    return new OpenAiChatModel(api, defaultOptions, (FunctionCallbackResolver) null, NO_RETRY);
+  }
+
+  private record ClientKey(
+      String baseUrl, String completionsPath, String embeddingsPath, String apiKeyHash) {}
+}
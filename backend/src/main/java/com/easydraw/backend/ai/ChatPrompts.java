@@ -0,0 +1,96 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.diagram.DiagramLanguage;
+import com.easydraw.backend.dto.ModelConfig;
+import java.util.List;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+
+/**
+ * 同步与响应式客户端共用的提示词拼装与模型配置解析。
+ */
+final class ChatPrompts {
+
+  private ChatPrompts() {}
+
+  static boolean isOpenAiCompatible(String provider) {
+    if (provider == null || provider.isBlank()) {
+      return true;
+    }
+    String normalized = provider.trim().toLowerCase();
+    return normalized.equals("openai") || normalized.equals("openai-compatible");
+  }
+
+  static EffectiveConfig resolveConfig(ModelConfig modelConfig) {
+    String baseUrl = modelConfig == null ? null : modelConfig.getBaseUrl();
+    String apiKey = modelConfig == null ? null : modelConfig.getApiKey();
+    if (isBlank(baseUrl) || isBlank(apiKey)) {
+      throw new IllegalStateException("缺少模型配置：请在请求中提供 baseUrl 与 apiKey");
+    }
+
+    String normalizedBaseUrl = BaseUrls.normalize(baseUrl);
+    if (isBlank(normalizedBaseUrl)) {
+      throw new IllegalStateException("baseUrl 无效，请检查是否包含版本路径");
+    }
+    return new EffectiveConfig(normalizedBaseUrl, apiKey.trim(), "/chat/completions", "/embeddings");
+  }
+
+  static String buildPrompt(DiagramLanguage language, String diagramType, String prompt) {
+    String type = diagramType == null ? "" : diagramType;
+    return """
+        请使用纯 %s 语法输出一个图表，不要添加额外解释或包裹，确保语法可直接渲染。注意：业务描述如果使用的是中文，图表也要使用中文描述。
+        图表类型/方向偏好：%s
+        业务描述：%s
+        """
+        .formatted(language.getCode(), type, prompt);
+  }
+
+  static String systemPrompt(DiagramLanguage language) {
+    if (language == DiagramLanguage.PLANTUML) {
+      return "你是图表生成助手，只输出 PlantUML 代码，不要额外文字。";
+    }
+    return "你是图表生成助手，只输出 Mermaid 代码，不要额外文字。";
+  }
+
+  static Prompt buildChatPrompt(String systemPrompt, String userPrompt, OpenAiChatOptions options) {
+    List<Message> messages = List.of(new SystemMessage(systemPrompt), new UserMessage(userPrompt));
+    if (options == null) {
+      return new Prompt(messages);
+    }
+    return new Prompt(messages, options);
+  }
+
+  static String chunkText(ChatResponse response) {
+    // 末尾的 usage 等片段可能没有 result
+    if (response == null
+        || response.getResult() == null
+        || response.getResult().getOutput() == null) {
+      return "";
+    }
+    String text = response.getResult().getOutput().getText();
+    return text == null ? "" : text;
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.trim().isEmpty();
+  }
+
+  static final class EffectiveConfig {
+    final String baseUrl;
+    final String apiKey;
+    final String completionsPath;
+    final String embeddingsPath;
+
+    private EffectiveConfig(
+        String baseUrl, String apiKey, String completionsPath, String embeddingsPath) {
+      this.baseUrl = baseUrl;
+      this.apiKey = apiKey;
+      this.completionsPath = completionsPath;
+      this.embeddingsPath = embeddingsPath;
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.CircuitBreakerProperties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个端点的熔断器（按次数的滑动窗口）。
+ *
+ * <p>CLOSED：记录最近 windowSize 次调用，失败率或慢调用率达到阈值后转为 OPEN。OPEN：直接拒绝，经过
+ * waitDurationInOpen 后转为 HALF_OPEN。HALF_OPEN：只放行 permittedCallsInHalfOpen 个探测请求，全部
+ * 成功且不慢则恢复 CLOSED，任一失败重新 OPEN。
+ */
+final class CircuitBreaker {
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final byte OUTCOME_SUCCESS = 0;
+  private static final byte OUTCOME_FAILURE = 1;
+  private static final byte OUTCOME_SLOW = 2;
+
+  private final CircuitBreakerProperties properties;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final byte[] window;
+
+  private State state = State.CLOSED;
+  private long openedAtNanos;
+  private int windowCount;
+  private int windowIndex;
+  private int failures;
+  private int slowCalls;
+  private int halfOpenIssued;
+  private int halfOpenSucceeded;
+
+  CircuitBreaker(CircuitBreakerProperties properties) {
+    this.properties = properties;
+    this.window = new byte[Math.max(1, properties.getWindowSize())];
+  }
+
+  /**
+   * 尝试获取调用许可，熔断中返回 null。
+   */
+  Permit tryAcquire() {
+    if (!properties.isEnabled()) {
+      return new Permit(false);
+    }
+    lock.lock();
+    try {
+      if (state == State.OPEN) {
+        if (System.nanoTime() - openedAtNanos < properties.getWaitDurationInOpen().toNanos()) {
+          return null;
+        }
+        state = State.HALF_OPEN;
+        halfOpenIssued = 0;
+        halfOpenSucceeded = 0;
+      }
+      if (state == State.HALF_OPEN) {
+        if (halfOpenIssued >= properties.getPermittedCallsInHalfOpen()) {
+          return null;
+        }
+        halfOpenIssued++;
+        return new Permit(true);
+      }
+      return new Permit(false);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  State state() {
+    lock.lock();
+    try {
+      return state;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 当前窗口的失败率（百分比），调用次数不足 minimumCalls 时为 -1。
+   */
+  float failureRate() {
+    lock.lock();
+    try {
+      return windowCount < properties.getMinimumCalls() ? -1f : failures * 100f / windowCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 当前窗口的慢调用率（百分比），调用次数不足 minimumCalls 时为 -1。
+   */
+  float slowCallRate() {
+    lock.lock();
+    try {
+      return windowCount < properties.getMinimumCalls() ? -1f : slowCalls * 100f / windowCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int bufferedCalls() {
+    lock.lock();
+    try {
+      return windowCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void onResult(boolean halfOpenProbe, boolean success, long durationNanos) {
+    boolean slow = durationNanos >= properties.getSlowCallDuration().toNanos();
+    lock.lock();
+    try {
+      if (halfOpenProbe) {
+        if (state != State.HALF_OPEN) {
+          return;
+        }
+        if (!success || slow) {
+          open();
+        } else if (++halfOpenSucceeded >= properties.getPermittedCallsInHalfOpen()) {
+          state = State.CLOSED;
+          resetWindow();
+        }
+        return;
+      }
+      if (state != State.CLOSED) {
+        // 熔断前发出、熔断后才返回的调用不再计入
+        return;
+      }
+      record(success ? (slow ? OUTCOME_SLOW : OUTCOME_SUCCESS) : OUTCOME_FAILURE);
+      if (windowCount >= properties.getMinimumCalls()
+          && (failures * 100 >= properties.getFailureRateThreshold() * windowCount
+              || slowCalls * 100 >= properties.getSlowCallRateThreshold() * windowCount)) {
+        open();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void onIgnored(boolean halfOpenProbe) {
+    if (!halfOpenProbe) {
+      return;
+    }
+    lock.lock();
+    try {
+      if (state == State.HALF_OPEN && halfOpenIssued > 0) {
+        halfOpenIssued--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void record(byte outcome) {
+    if (windowCount == window.length) {
+      byte evicted = window[windowIndex];
+      if (evicted == OUTCOME_FAILURE) {
+        failures--;
+      } else if (evicted == OUTCOME_SLOW) {
+        slowCalls--;
+      }
+    } else {
+      windowCount++;
+    }
+    window[windowIndex] = outcome;
+    windowIndex = (windowIndex + 1) % window.length;
+    if (outcome == OUTCOME_FAILURE) {
+      failures++;
+    } else if (outcome == OUTCOME_SLOW) {
+      slowCalls++;
+    }
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAtNanos = System.nanoTime();
+    resetWindow();
+  }
+
+  private void resetWindow() {
+    windowCount = 0;
+    windowIndex = 0;
+    failures = 0;
+    slowCalls = 0;
+  }
+
+  /**
+   * 一次调用的许可，只能回报一次结果。
+   */
+  final class Permit {
+    private final boolean halfOpenProbe;
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private Permit(boolean halfOpenProbe) {
+      this.halfOpenProbe = halfOpenProbe;
+    }
+
+    void onSuccess() {
+      if (properties.isEnabled() && done.compareAndSet(false, true)) {
+        onResult(halfOpenProbe, true, System.nanoTime() - startNanos);
+      }
+    }
+
+    void onFailure() {
+      if (properties.isEnabled() && done.compareAndSet(false, true)) {
+        onResult(halfOpenProbe, false, System.nanoTime() - startNanos);
+      }
+    }
+
+    /** 调用被取消或因本地限流未发出，不计入统计 */
+    void onIgnored() {
+      if (properties.isEnabled() && done.compareAndSet(false, true)) {
+        CircuitBreaker.this.onIgnored(halfOpenProbe);
+      }
+    }
+  }
+}
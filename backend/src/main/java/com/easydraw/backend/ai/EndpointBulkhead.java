@@ -0,0 +1,241 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.ai.AdaptiveLimiter.Outcome;
+import com.easydraw.backend.ai.AdaptiveLimiter.Permit;
+import com.easydraw.backend.config.BulkheadProperties;
+import com.easydraw.backend.diagnostics.BoundedTagMeterFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 按端点（baseUrl + model）隔离的模型调用并发限制。
+ *
+ * <p>每个端点一个 {@link AdaptiveLimiter}，一个变慢的端点只会收缩自己的上限并快速拒绝，不会占满全部
+ * 请求线程拖垮其它端点。同步调用在并发已满时短暂排队，响应式调用不排队直接拒绝（不占线程，排队没有
+ * 意义）。每个端点的 ai.bulkhead.limit / inflight / queued 与 ai.bulkhead.rejected 通过 actuator 暴露。
+ *
+ * <p>闲置超过 idleExpiry 且没有进行中、排队中调用的端点在后续请求时顺带清理，连同它自己注册的指标
+ * 一起移除；清理与创建在同一个 key 上串行，新端点的指标不会被旧端点的清理误删。
+ */
+@Component
+public class EndpointBulkhead {
+
+  private static final List<AiOverloadedException.Reason> BULKHEAD_REASONS =
+      List.of(AiOverloadedException.Reason.QUEUE_FULL, AiOverloadedException.Reason.QUEUE_TIMEOUT);
+
+  private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final BulkheadProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<EndpointKey, Endpoint> endpoints = new ConcurrentHashMap<>();
+  private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+  public EndpointBulkhead(BulkheadProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * 在端点许可内执行同步调用，调用抛出的异常原样抛出；只有端点故障计为失败。
+   */
+  public <T> T execute(String baseUrl, String model, Supplier<T> call) {
+    if (!properties.isEnabled()) {
+      return call.get();
+    }
+    Permit permit = acquire(endpoint(baseUrl, model), true);
+    Outcome outcome = Outcome.IGNORED;
+    try {
+      T result = call.get();
+      outcome = Outcome.SUCCESS;
+      return result;
+    } catch (RuntimeException e) {
+      outcome = outcome(e);
+      throw e;
+    } finally {
+      permit.release(outcome);
+    }
+  }
+
+  /**
+   * 在端点许可内执行响应式调用，订阅时获取许可，完成、出错或取消时归还。
+   */
+  public <T> Mono<T> execute(String baseUrl, String model, Mono<T> call) {
+    if (!properties.isEnabled()) {
+      return call;
+    }
+    return Mono.defer(
+        () -> {
+          Permit permit = acquire(endpoint(baseUrl, model), false);
+          return call.doOnError(e -> permit.release(outcome(e)))
+              .doFinally(signal -> permit.release(outcome(signal)));
+        });
+  }
+
+  public <T> Flux<T> execute(String baseUrl, String model, Flux<T> call) {
+    return execute(baseUrl, model, call, () -> false);
+  }
+
+  /**
+   * 同上。许可在调用内部（重试之内）获取时，外层整体超时只会表现为取消；timedOut 为 true 时的取消
+   * 计为失败，端点变慢时上限照常收缩。
+   */
+  public <T> Flux<T> execute(String baseUrl, String model, Flux<T> call, BooleanSupplier timedOut) {
+    if (!properties.isEnabled()) {
+      return call;
+    }
+    return Flux.defer(
+        () -> {
+          Permit permit = acquire(endpoint(baseUrl, model), false);
+          return call.doOnError(e -> permit.release(outcome(e)))
+              .doFinally(
+                  signal ->
+                      permit.release(
+                          signal == SignalType.CANCEL && timedOut.getAsBoolean()
+                              ? Outcome.FAILURE
+                              : outcome(signal)));
+        });
+  }
+
+  private Permit acquire(Endpoint endpoint, boolean wait) {
+    try {
+      return endpoint.limiter.acquire(wait);
+    } catch (AiOverloadedException e) {
+      endpoint.rejected.get(e.getReason()).increment();
+      throw e;
+    } finally {
+      // 排队等待可能很久，拿到（或放弃）许可时再记一次
+      endpoint.touch();
+    }
+  }
+
+  /**
+   * 出错时的结果已在 doOnError 中按异常归还，这里只处理完成与取消。
+   */
+  private static Outcome outcome(SignalType signal) {
+    return signal == SignalType.ON_COMPLETE ? Outcome.SUCCESS : Outcome.IGNORED;
+  }
+
+  /**
+   * 上限按端点共享而不区分调用方，只有端点故障才收缩；错误的 apiKey、非法请求等 4xx 只归还许可，
+   * 否则一个配置错误的调用方就能把共享端点压到 minLimit。
+   */
+  private static Outcome outcome(Throwable error) {
+    return ProviderErrors.isEndpointFailure(error) ? Outcome.FAILURE : Outcome.IGNORED;
+  }
+
+  private Endpoint endpoint(String baseUrl, String model) {
+    EndpointKey key =
+        new EndpointKey(
+            baseUrl.toLowerCase(Locale.ROOT),
+            model == null || model.isBlank() ? "default" : model.trim());
+    sweepIfDue();
+    // 查找与清理都在 key 上串行，拿到的端点已刷新使用时间，不会紧接着被清理
+    return endpoints.compute(
+        key,
+        (k, existing) -> {
+          Endpoint endpoint = existing != null ? existing : create(k);
+          endpoint.touch();
+          return endpoint;
+        });
+  }
+
+  private void sweepIfDue() {
+    long idleNanos = properties.getIdleExpiry().toNanos();
+    long interval = Math.min(idleNanos, SWEEP_INTERVAL_NANOS);
+    long now = System.nanoTime();
+    long last = lastSweepNanos.get();
+    if (now - last < interval || !lastSweepNanos.compareAndSet(last, now)) {
+      return;
+    }
+    for (EndpointKey key : endpoints.keySet()) {
+      endpoints.computeIfPresent(
+          key,
+          (k, endpoint) -> {
+            if (now - endpoint.lastUsedNanos.get() < idleNanos
+                || endpoint.limiter.inFlight() > 0
+                || endpoint.limiter.queued() > 0) {
+              return endpoint;
+            }
+            endpoint.removeMeters(meterRegistry);
+            return null;
+          });
+    }
+  }
+
+  private Endpoint create(EndpointKey key) {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(properties);
+    Tags tags = Tags.of("endpoint", key.baseUrl(), "model", key.model());
+    Map<AiOverloadedException.Reason, Counter> rejected =
+        new EnumMap<>(AiOverloadedException.Reason.class);
+    for (AiOverloadedException.Reason reason : BULKHEAD_REASONS) {
+      rejected.put(
+          reason,
+          meterRegistry.counter(
+              "ai.bulkhead.rejected",
+              tags.and("reason", reason.name().toLowerCase(Locale.ROOT))));
+    }
+    List<Meter> meters =
+        List.of(
+            Gauge.builder("ai.bulkhead.limit", limiter, AdaptiveLimiter::limit)
+                .tags(tags)
+                .register(meterRegistry),
+            Gauge.builder("ai.bulkhead.inflight", limiter, AdaptiveLimiter::inFlight)
+                .tags(tags)
+                .register(meterRegistry),
+            Gauge.builder("ai.bulkhead.queued", limiter, AdaptiveLimiter::queued)
+                .tags(tags)
+                .register(meterRegistry),
+            rejected.get(AiOverloadedException.Reason.QUEUE_FULL),
+            rejected.get(AiOverloadedException.Reason.QUEUE_TIMEOUT));
+    return new Endpoint(limiter, rejected, meters, new AtomicLong());
+  }
+
+  /**
+   * 当前持有的端点数，供测试观察清理结果。
+   */
+  int size() {
+    return endpoints.size();
+  }
+
+  private record EndpointKey(String baseUrl, String model) {}
+
+  private record Endpoint(
+      AdaptiveLimiter limiter,
+      Map<AiOverloadedException.Reason, Counter> rejected,
+      List<Meter> meters,
+      AtomicLong lastUsedNanos) {
+
+    void touch() {
+      lastUsedNanos.set(System.nanoTime());
+    }
+
+    /**
+     * 只移除本端点注册的指标。超出标签上限的计数器被改写为 other，由多个端点共享，保留不动。
+     */
+    void removeMeters(MeterRegistry registry) {
+      for (Meter meter : meters) {
+        if (meter.getId().getTags().stream()
+            .noneMatch(tag -> BoundedTagMeterFilter.OTHER.equals(tag.getValue()))) {
+          registry.remove(meter);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.easydraw.backend.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最近 N 次调用耗时的环形缓冲，用于估算分位数。样本量小（几百个），取分位数时直接排序副本。
+ */
+final class LatencyWindow {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final long[] samples;
+  private int count;
+  private int index;
+
+  LatencyWindow(int size) {
+    this.samples = new long[Math.max(1, size)];
+  }
+
+  void record(long nanos) {
+    lock.lock();
+    try {
+      samples[index] = nanos;
+      index = (index + 1) % samples.length;
+      if (count < samples.length) {
+        count++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int count() {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 分位数（0~1），没有样本时返回 -1。
+   */
+  long percentile(double quantile) {
+    long[] copy;
+    lock.lock();
+    try {
+      if (count == 0) {
+        return -1;
+      }
+      copy = Arrays.copyOf(samples, count);
+    } finally {
+      lock.unlock();
+    }
+    Arrays.sort(copy);
+    int rank = (int) Math.ceil(quantile * copy.length) - 1;
+    return copy[Math.max(0, Math.min(copy.length - 1, rank))];
+  }
+}
@@ -0,0 +1,244 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.CircuitBreakerProperties;
+import com.easydraw.backend.dto.ModelConfig;
+import com.easydraw.backend.dto.ModelEndpoint;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 多端点按顺序切换：主端点 + ModelConfig.fallbacks，每个端点（baseUrl + model）一个熔断器。
+ *
+ * <p>熔断中的端点直接跳过，不再等待超时；端点故障（408 / 429 / 5xx、超时、连接错误）计入熔断并切换到
+ * 下一个端点，全部失败抛出最后一个异常，全部熔断时返回 503。本地并发限制的拒绝只切换端点，不计入熔断
+ * 统计；其他错误（401 / 403 / 400 / 404、本地配置错误）属于请求方自身，直接抛出，既不计入熔断也不切换，
+ * 避免一个配置错误的调用方熔断共享端点上的所有调用方。熔断状态通过 ai.circuitbreaker.state 指标与
+ * actuator 的 modelendpoints 端点查看。
+ */
+@Component
+public class ModelEndpointFailover {
+
+  private static final Logger log = LoggerFactory.getLogger(ModelEndpointFailover.class);
+
+  private final CircuitBreakerProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Cache<EndpointKey, Endpoint> endpoints;
+
+  public ModelEndpointFailover(CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.endpoints =
+        Caffeine.newBuilder()
+            .expireAfterAccess(properties.getIdleExpiry())
+            .removalListener(
+                (EndpointKey key, Endpoint endpoint, RemovalCause cause) -> {
+                  if (endpoint != null) {
+                    endpoint.meters.forEach(meterRegistry::remove);
+                  }
+                })
+            .build();
+  }
+
+  /**
+   * 同步调用：依次尝试各端点，传入的是替换了 baseUrl / apiKey / model 的模型配置。
+   */
+  public <T> T execute(ModelConfig modelConfig, Function<ModelConfig, T> call) {
+    RuntimeException last = null;
+    for (ModelConfig target : targets(modelConfig)) {
+      Endpoint endpoint = endpoint(target);
+      CircuitBreaker.Permit permit = endpoint.breaker.tryAcquire();
+      if (permit == null) {
+        endpoint.notPermitted.increment();
+        continue;
+      }
+      try {
+        T result = call.apply(target);
+        permit.onSuccess();
+        return result;
+      } catch (AiOverloadedException e) {
+        permit.onIgnored();
+        last = e;
+      } catch (RuntimeException e) {
+        if (!ProviderErrors.isEndpointFailure(e)) {
+          // 请求方自身的问题（apiKey、参数、本地配置），换端点也无济于事，也不应影响其他调用方
+          permit.onIgnored();
+          throw e;
+        }
+        permit.onFailure();
+        last = e;
+        log.warn("模型端点调用失败, endpoint={}, 尝试下一个端点: {}", endpoint.key, e.getMessage());
+      }
+    }
+    throw last != null ? last : allOpen();
+  }
+
+  /**
+   * 响应式调用，语义同 {@link #execute(ModelConfig, Function)}。
+   */
+  public <T> Mono<T> executeMono(ModelConfig modelConfig, Function<ModelConfig, Mono<T>> call) {
+    return executeFlux(modelConfig, target -> call.apply(target).flux()).singleOrEmpty();
+  }
+
+  /**
+   * 流式调用：只在还没有发出任何片段前切换端点；熔断统计以首个片段的等待时间计。
+   */
+  public <T> Flux<T> executeFlux(ModelConfig modelConfig, Function<ModelConfig, Flux<T>> call) {
+    return Flux.defer(() -> attempt(targets(modelConfig), 0, call, null));
+  }
+
+  /**
+   * 当前所有端点的熔断状态，供 actuator 查看。
+   */
+  public List<Map<String, Object>> snapshot() {
+    List<Map<String, Object>> result = new ArrayList<>();
+    endpoints.asMap().values().stream()
+        .sorted(Comparator.comparing((Endpoint e) -> e.key.toString()))
+        .forEach(
+            e -> {
+              Map<String, Object> item = new LinkedHashMap<>();
+              item.put("endpoint", e.key.baseUrl());
+              item.put("model", e.key.model());
+              item.put("state", e.breaker.state().name());
+              item.put("failureRate", e.breaker.failureRate());
+              item.put("slowCallRate", e.breaker.slowCallRate());
+              item.put("bufferedCalls", e.breaker.bufferedCalls());
+              result.add(item);
+            });
+    return result;
+  }
+
+  private <T> Flux<T> attempt(
+      List<ModelConfig> targets, int index, Function<ModelConfig, Flux<T>> call, Throwable last) {
+    if (index >= targets.size()) {
+      return Flux.error(last != null ? last : allOpen());
+    }
+    ModelConfig target = targets.get(index);
+    Endpoint endpoint = endpoint(target);
+    CircuitBreaker.Permit permit = endpoint.breaker.tryAcquire();
+    if (permit == null) {
+      endpoint.notPermitted.increment();
+      return attempt(targets, index + 1, call, last);
+    }
+
+    AtomicBoolean emitted = new AtomicBoolean();
+    return call.apply(target)
+        .doOnNext(
+            item -> {
+              if (emitted.compareAndSet(false, true)) {
+                permit.onSuccess();
+              }
+            })
+        .doOnComplete(permit::onSuccess)
+        .doOnCancel(permit::onIgnored)
+        .onErrorResume(
+            e -> {
+              if (emitted.get()) {
+                // 已经输出过内容，无法无缝切换
+                return Flux.error(e);
+              }
+              if (e instanceof AiOverloadedException) {
+                permit.onIgnored();
+              } else if (!ProviderErrors.isEndpointFailure(e)) {
+                permit.onIgnored();
+                return Flux.error(e);
+              } else {
+                permit.onFailure();
+                log.warn(
+                    "模型端点调用失败, endpoint={}, 尝试下一个端点: {}", endpoint.key, e.getMessage());
+              }
+              return attempt(targets, index + 1, call, e);
+            });
+  }
+
+  private AiOverloadedException allOpen() {
+    return new AiOverloadedException(
+        AiOverloadedException.Reason.CIRCUIT_OPEN,
+        "模型端点暂不可用（已熔断），请稍后重试",
+        properties.getWaitDurationInOpen());
+  }
+
+  /**
+   * 主配置在前，备用端点依次在后；备用端点沿用主配置的 provider / temperature / maxTokens。
+   */
+  static List<ModelConfig> targets(ModelConfig primary) {
+    List<ModelConfig> targets = new ArrayList<>();
+    targets.add(primary);
+    if (primary == null || primary.getFallbacks() == null) {
+      return targets;
+    }
+    for (ModelEndpoint fallback : primary.getFallbacks()) {
+      if (fallback == null) {
+        continue;
+      }
+      ModelConfig target = new ModelConfig();
+      target.setBaseUrl(fallback.getBaseUrl());
+      target.setApiKey(fallback.getApiKey());
+      target.setModel(fallback.getModel() == null ? primary.getModel() : fallback.getModel());
+      target.setProvider(primary.getProvider());
+      target.setTemperature(primary.getTemperature());
+      target.setMaxTokens(primary.getMaxTokens());
+      targets.add(target);
+    }
+    return targets;
+  }
+
+  private Endpoint endpoint(ModelConfig target) {
+    String baseUrl = target == null ? null : target.getBaseUrl();
+    String normalized = baseUrl == null ? "" : BaseUrls.normalize(baseUrl);
+    String model = target == null ? null : target.getModel();
+    EndpointKey key =
+        new EndpointKey(
+            normalized.toLowerCase(Locale.ROOT),
+            model == null || model.isBlank() ? "default" : model.trim());
+    return endpoints.get(key, this::create);
+  }
+
+  private Endpoint create(EndpointKey key) {
+    CircuitBreaker breaker = new CircuitBreaker(properties);
+    Tags tags = Tags.of("endpoint", key.baseUrl(), "model", key.model());
+    Counter notPermitted = meterRegistry.counter("ai.circuitbreaker.not.permitted", tags);
+    List<Meter> meters =
+        List.of(
+            // 0 = CLOSED, 1 = OPEN, 2 = HALF_OPEN
+            Gauge.builder("ai.circuitbreaker.state", breaker, b -> b.state().ordinal())
+                .tags(tags)
+                .register(meterRegistry),
+            Gauge.builder("ai.circuitbreaker.failure.rate", breaker, CircuitBreaker::failureRate)
+                .tags(tags)
+                .register(meterRegistry),
+            Gauge.builder("ai.circuitbreaker.slow.call.rate", breaker, CircuitBreaker::slowCallRate)
+                .tags(tags)
+                .register(meterRegistry),
+            notPermitted);
+    return new Endpoint(key, breaker, notPermitted, meters);
+  }
+
+  private record EndpointKey(String baseUrl, String model) {
+    @Override
+    public String toString() {
+      return baseUrl + " / " + model;
+    }
+  }
+
+  private record Endpoint(
+      EndpointKey key, CircuitBreaker breaker, Counter notPermitted, List<Meter> meters) {}
+}
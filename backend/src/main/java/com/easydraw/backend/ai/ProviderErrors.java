@@ -0,0 +1,92 @@
+package com.easydraw.backend.ai;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * 提供方调用异常的分类，沿 cause 链查找状态码、Retry-After 与传输层错误。
+ *
+ * <p>{@link #isEndpointFailure} 区分端点本身的问题与请求方的问题：只有前者计入熔断并切换端点，错误的
+ * apiKey、非法请求与本地配置错误只影响当前请求。
+ */
+final class ProviderErrors {
+
+  private static final int MAX_CAUSE_DEPTH = 10;
+
+  private ProviderErrors() {}
+
+  /**
+   * 端点故障：408 / 429 / 5xx、超时与连接错误。
+   */
+  static boolean isEndpointFailure(Throwable error) {
+    Integer status = statusOf(error);
+    if (status != null) {
+      return status == 408 || status == 429 || status >= 500;
+    }
+    return isTransport(error) || isTimeout(error);
+  }
+
+  static Integer statusOf(Throwable error) {
+    Throwable current = error;
+    for (int i = 0; current != null && i < MAX_CAUSE_DEPTH; i++) {
+      if (current instanceof ProviderHttpException e) {
+        return e.getStatus();
+      }
+      if (current instanceof WebClientResponseException e) {
+        return e.getStatusCode().value();
+      }
+      current = current.getCause();
+    }
+    return null;
+  }
+
+  static Duration retryAfterOf(Throwable error) {
+    Throwable current = error;
+    for (int i = 0; current != null && i < MAX_CAUSE_DEPTH; i++) {
+      if (current instanceof ProviderHttpException e) {
+        return e.getRetryAfter();
+      }
+      if (current instanceof WebClientResponseException e) {
+        return ProviderResponseErrorHandler.parseRetryAfter(
+            e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+      }
+      current = current.getCause();
+    }
+    return null;
+  }
+
+  /**
+   * 连接失败或读超时。
+   */
+  static boolean isTransport(Throwable error) {
+    Throwable current = error;
+    for (int i = 0; current != null && i < MAX_CAUSE_DEPTH; i++) {
+      if (current instanceof IOException
+          || current instanceof ResourceAccessException
+          || current instanceof ReadTimeoutException) {
+        return true;
+      }
+      current = current.getCause();
+    }
+    return false;
+  }
+
+  /**
+   * 整体调用超时（响应式调用的 timeout 抛出 {@link TimeoutException}）。
+   */
+  static boolean isTimeout(Throwable error) {
+    Throwable current = error;
+    for (int i = 0; current != null && i < MAX_CAUSE_DEPTH; i++) {
+      if (current instanceof TimeoutException) {
+        return true;
+      }
+      current = current.getCause();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,33 @@
+package com.easydraw.backend.ai;
+
+import java.time.Duration;
+import org.springframework.ai.retry.NonTransientAiException;
+
+/**
+ * 提供方返回的 HTTP 错误。
+ *
+ * <p>继承 NonTransientAiException，Spring AI 内置的 RetryTemplate 不会重试，是否重试统一由
+ * {@link ProviderRetry} 按状态码、Retry-After 与重试预算决定。
+ */
+public class ProviderHttpException extends NonTransientAiException {
+
+  private final int status;
+  private final Duration retryAfter;
+
+  public ProviderHttpException(int status, Duration retryAfter, String message) {
+    super(message);
+    this.status = status;
+    this.retryAfter = retryAfter;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * 响应头 Retry-After，没有时为 null。
+   */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
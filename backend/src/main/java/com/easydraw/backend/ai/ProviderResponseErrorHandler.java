@@ -0,0 +1,56 @@
+package com.easydraw.backend.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseErrorHandler;
+
+/**
+ * 替代 RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER：所有错误响应都转为 {@link ProviderHttpException}，
+ * 保留状态码与 Retry-After，不再让 5xx 触发 Spring AI 内置的重试。
+ */
+final class ProviderResponseErrorHandler implements ResponseErrorHandler {
+
+  static final ProviderResponseErrorHandler INSTANCE = new ProviderResponseErrorHandler();
+
+  private ProviderResponseErrorHandler() {}
+
+  @Override
+  public boolean hasError(ClientHttpResponse response) throws IOException {
+    return response.getStatusCode().isError();
+  }
+
+  @Override
+  public void handleError(ClientHttpResponse response) throws IOException {
+    int status = response.getStatusCode().value();
+    String body = new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+    Duration retryAfter = parseRetryAfter(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    throw new ProviderHttpException(status, retryAfter, "HTTP " + status + " - " + body);
+  }
+
+  /**
+   * Retry-After 可以是秒数或 HTTP 日期，无法解析时返回 null。
+   */
+  static Duration parseRetryAfter(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    String trimmed = value.trim();
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+    } catch (NumberFormatException ignored) {
+      // 不是秒数，按 HTTP 日期解析
+    }
+    try {
+      ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+      Duration delay = Duration.between(ZonedDateTime.now(at.getZone()), at);
+      return delay.isNegative() ? Duration.ZERO : delay;
+    } catch (RuntimeException ignored) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.RetryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * 调用提供方的重试策略：只重试暂时性错误（可重试状态码、连接失败、读超时），指数上限内全抖动退避，
+ * 优先遵循 Retry-After，并受全局令牌桶预算约束，上游故障时不会放大流量。
+ *
+ * <p>重试次数记录在 ai.retry.retries{host,reason}，因预算不足或 Retry-After 过长放弃的重试记录在
+ * ai.retry.skipped{host,reason}，剩余预算见 ai.retry.budget.tokens。
+ */
+@Component
+public class ProviderRetry {
+
+  private static final Logger log = LoggerFactory.getLogger(ProviderRetry.class);
+
+  private final RetryProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final ReentrantLock budgetLock = new ReentrantLock();
+  private double budget;
+
+  public ProviderRetry(RetryProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.budget = properties.getBudgetBurst();
+    Gauge.builder("ai.retry.budget.tokens", this, ProviderRetry::budget).register(meterRegistry);
+  }
+
+  /**
+   * 同步调用，失败时按策略在当前线程退避后重试。
+   *
+   * <p>每次尝试都重新执行 call。端点并发许可应在 call 内获取，退避等待期间不占用许可。
+   */
+  public <T> T execute(String baseUrl, Supplier<T> call) {
+    if (!properties.isEnabled()) {
+      return call.get();
+    }
+    String host = host(baseUrl);
+    RetryProperties.Policy policy = properties.policyFor(host);
+    deposit();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return call.get();
+      } catch (RuntimeException e) {
+        Duration delay = nextDelay(host, policy, e, attempt);
+        if (delay == null) {
+          throw e;
+        }
+        try {
+          Thread.sleep(delay.toMillis());
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * 响应式重试规格，每次订阅前调用一次（计入一次首次调用）。
+   */
+  public Retry reactive(String baseUrl) {
+    return reactive(baseUrl, () -> true);
+  }
+
+  /**
+   * 同上，canRetry 为 false 时不再重试（例如流式调用已经输出过片段）。
+   */
+  public Retry reactive(String baseUrl, BooleanSupplier canRetry) {
+    if (!properties.isEnabled()) {
+      return Retry.max(0);
+    }
+    String host = host(baseUrl);
+    RetryProperties.Policy policy = properties.policyFor(host);
+    deposit();
+    return Retry.from(
+        signals ->
+            signals.concatMap(
+                signal -> {
+                  Duration delay =
+                      canRetry.getAsBoolean()
+                          ? nextDelay(
+                              host, policy, signal.failure(), (int) signal.totalRetries() + 1)
+                          : null;
+                  return delay == null ? Mono.<Long>error(signal.failure()) : Mono.delay(delay);
+                }));
+  }
+
+  /**
+   * 第 attempt 次调用失败后的退避时长，不应重试时返回 null。
+   */
+  private Duration nextDelay(
+      String host, RetryProperties.Policy policy, Throwable error, int attempt) {
+    if (attempt >= policy.getMaxAttempts()) {
+      return null;
+    }
+    Integer status = ProviderErrors.statusOf(error);
+    boolean retryable =
+        status != null
+            ? properties.getRetryableStatuses().contains(status)
+            : ProviderErrors.isTransport(error);
+    if (!retryable) {
+      return null;
+    }
+    String reason = status == null ? "io" : String.valueOf(status);
+
+    Duration retryAfter = ProviderErrors.retryAfterOf(error);
+    if (retryAfter != null && retryAfter.compareTo(policy.getMaxRetryAfter()) > 0) {
+      skipped(host, "retry_after");
+      return null;
+    }
+    if (!tryWithdraw()) {
+      skipped(host, "budget");
+      return null;
+    }
+
+    // 全抖动：在 [0, min(maxBackoff, initial * 2^(attempt-1))] 内均匀取值，避免重试扎堆
+    long capMillis =
+        Math.min(
+            policy.getMaxBackoff().toMillis(),
+            policy.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+    long jitterMillis = ThreadLocalRandom.current().nextLong(capMillis + 1);
+    Duration delay =
+        retryAfter != null
+            ? retryAfter.plusMillis(
+                ThreadLocalRandom.current().nextLong(policy.getInitialBackoff().toMillis() + 1))
+            : Duration.ofMillis(jitterMillis);
+
+    meterRegistry.counter("ai.retry.retries", "host", host, "reason", reason).increment();
+    log.info(
+        "模型调用失败后重试, host={}, reason={}, attempt={}, delay={}ms",
+        host,
+        reason,
+        attempt + 1,
+        delay.toMillis());
+    return delay;
+  }
+
+  private void skipped(String host, String reason) {
+    meterRegistry.counter("ai.retry.skipped", "host", host, "reason", reason).increment();
+  }
+
+  private void deposit() {
+    budgetLock.lock();
+    try {
+      budget = Math.min(properties.getBudgetBurst(), budget + properties.getBudgetRatio());
+    } finally {
+      budgetLock.unlock();
+    }
+  }
+
+  private boolean tryWithdraw() {
+    budgetLock.lock();
+    try {
+      if (budget < 1.0) {
+        return false;
+      }
+      budget -= 1.0;
+      return true;
+    } finally {
+      budgetLock.unlock();
+    }
+  }
+
+  private double budget() {
+    budgetLock.lock();
+    try {
+      return budget;
+    } finally {
+      budgetLock.unlock();
+    }
+  }
+
+  private static String host(String baseUrl) {
+    try {
+      String host = URI.create(baseUrl).getHost();
+      return host == null ? baseUrl : host;
+    } catch (RuntimeException e) {
+      return String.valueOf(baseUrl);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.ProviderTransportProperties;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * 访问大模型提供方的共享传输层。
+ *
+ * <p>RestClient（同步调用）与 WebClient（流式调用）共用同一个 Reactor Netty 连接池，连接的
+ * active/idle/pending 数量以 reactor.netty.connection.provider.* 指标暴露。
+ */
+@Component
+public class ProviderTransport implements DisposableBean {
+
+  private static final String POOL_NAME = "llm-provider";
+
+  private final ConnectionProvider connectionProvider;
+  private final HttpClient httpClient;
+  private final ProviderTransportProperties properties;
+
+  public ProviderTransport(ProviderTransportProperties properties) {
+    this.properties = properties;
+    this.connectionProvider =
+        ConnectionProvider.builder(POOL_NAME)
+            .maxConnections(properties.getMaxConnections())
+            .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+            .maxIdleTime(properties.getMaxIdleTime())
+            .maxLifeTime(properties.getMaxLifeTime())
+            .evictInBackground(properties.getEvictInBackground())
+            .metrics(true)
+            .build();
+
+    int connectTimeoutMillis = (int) properties.getConnectTimeout().toMillis();
+    HttpClient client =
+        HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .responseTimeout(properties.getResponseTimeout());
+    if (properties.isHttp2Enabled()) {
+      // https 时通过 ALPN 协商 h2，http 地址仍走 HTTP/1.1
+      client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+    }
+    this.httpClient = client;
+  }
+
+  public RestClient.Builder restClientBuilder() {
+    ReactorNettyClientRequestFactory requestFactory =
+        new ReactorNettyClientRequestFactory(httpClient);
+    // 默认读超时只有 10 秒，模型生成时间远超于此
+    requestFactory.setReadTimeout(properties.getResponseTimeout());
+    requestFactory.setExchangeTimeout(properties.getResponseTimeout());
+    return RestClient.builder().requestFactory(requestFactory);
+  }
+
+  public WebClient.Builder webClientBuilder() {
+    return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
+  }
+
+  @Override
+  public void destroy() {
+    connectionProvider.dispose();
+  }
+}
@@ -0,0 +1,23 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.diagram.DiagramLanguage;
+import com.easydraw.backend.dto.ModelConfig;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 非阻塞的大模型客户端：调用全程不占用线程，取消订阅会一直传到提供方的 HTTP 连接。
+ */
+public interface ReactiveAiClient {
+  Mono<String> generate(
+      DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig);
+
+  Mono<String> generateWithSystemPrompt(
+      String systemPrompt, String userPrompt, ModelConfig modelConfig);
+
+  /**
+   * 流式生成图表文本，按模型返回的增量片段发出。
+   */
+  Flux<String> stream(
+      DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig);
+}
@@ -0,0 +1,191 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.config.HedgingProperties;
+import com.easydraw.backend.dto.ModelConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 对冲请求：主请求超过按端点统计的耗时分位数仍未返回时，向备用端点（没有备用端点时为同一端点）再发
+ * 一次，先通过校验的结果胜出，另一个请求随即取消。主请求结束时尚未发出的对冲随即放弃，不会等到对冲
+ * 延迟到期才返回。
+ *
+ * <p>两个结果都没通过校验时返回先到的那个；主请求在对冲发出前就已结束（失败或校验不通过）时不再对冲，
+ * 失败切换交给 {@link ModelEndpointFailover}。对冲额度按令牌桶控制：每个请求累积 maxHedgeRatio 个
+ * 令牌（上限 burst），每次对冲消耗 1 个。
+ */
+@Component
+public class RequestHedger {
+
+  private final HedgingProperties properties;
+  private final Cache<String, LatencyWindow> latencies;
+  private final ReentrantLock budgetLock = new ReentrantLock();
+  private double budget;
+
+  private final Counter launched;
+  private final Counter skippedBudget;
+  private final Counter primaryWins;
+  private final Counter hedgeWins;
+
+  public RequestHedger(HedgingProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.latencies = Caffeine.newBuilder().expireAfterAccess(properties.getIdleExpiry()).build();
+    this.launched = meterRegistry.counter("ai.hedge.launched");
+    this.skippedBudget = meterRegistry.counter("ai.hedge.skipped", "reason", "budget");
+    this.primaryWins = meterRegistry.counter("ai.hedge.wins", "winner", "primary");
+    this.hedgeWins = meterRegistry.counter("ai.hedge.wins", "winner", "hedge");
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * 执行可能被对冲的调用。
+   *
+   * @param modelConfig 主模型配置
+   * @param call 按模型配置发起一次调用
+   * @param accept 结果是否可用（通过校验），可用的结果立即胜出
+   */
+  public <T> Mono<T> hedge(
+      ModelConfig modelConfig, Function<ModelConfig, Mono<T>> call, Predicate<T> accept) {
+    if (!properties.isEnabled()) {
+      return call.apply(modelConfig);
+    }
+    return Mono.defer(
+        () -> {
+          addBudget();
+          LatencyWindow window = latencies.get(key(modelConfig), k -> newWindow());
+          Duration delay = delay(window);
+          long start = System.nanoTime();
+          AtomicBoolean primaryDone = new AtomicBoolean();
+          Sinks.One<Boolean> primaryTerminated = Sinks.one();
+          AtomicBoolean hedged = new AtomicBoolean();
+
+          Mono<Attempt<T>> primary =
+              call.apply(modelConfig)
+                  .map(value -> Attempt.of(value, accept.test(value), false))
+                  .doOnNext(a -> window.record(System.nanoTime() - start))
+                  // 被对冲请求取消时，已等待的时长是真实耗时的下限，同样计入
+                  .doOnCancel(() -> window.record(System.nanoTime() - start))
+                  .onErrorResume(e -> Mono.just(Attempt.<T>failed(e, false)))
+                  .doFinally(
+                      signal -> {
+                        primaryDone.set(true);
+                        primaryTerminated.tryEmitValue(Boolean.TRUE);
+                      });
+
+          Mono<Attempt<T>> secondary =
+              Mono.delay(delay)
+                  .takeUntilOther(primaryTerminated.asMono())
+                  .filter(tick -> !primaryDone.get() && tryConsumeBudget())
+                  .flatMap(
+                      tick -> {
+                        hedged.set(true);
+                        launched.increment();
+                        return call.apply(secondaryOf(modelConfig))
+                            .map(value -> Attempt.of(value, accept.test(value), true))
+                            .onErrorResume(e -> Mono.just(Attempt.<T>failed(e, true)));
+                      });
+
+          return Flux.merge(primary, secondary)
+              .takeUntil(Attempt::accepted)
+              .collectList()
+              .flatMap(attempts -> pick(attempts, hedged.get()));
+        });
+  }
+
+  private <T> Mono<T> pick(List<Attempt<T>> attempts, boolean hedged) {
+    Attempt<T> last = attempts.get(attempts.size() - 1);
+    if (last.accepted()) {
+      if (hedged) {
+        (last.hedge() ? hedgeWins : primaryWins).increment();
+      }
+      return Mono.just(last.value());
+    }
+    for (Attempt<T> attempt : attempts) {
+      if (attempt.error() == null) {
+        return Mono.just(attempt.value());
+      }
+    }
+    return Mono.error(attempts.get(0).error());
+  }
+
+  private Duration delay(LatencyWindow window) {
+    if (window.count() < properties.getMinSamples()) {
+      return properties.getInitialDelay();
+    }
+    Duration observed = Duration.ofNanos(window.percentile(properties.getPercentile()));
+    if (observed.compareTo(properties.getMinDelay()) < 0) {
+      return properties.getMinDelay();
+    }
+    return observed.compareTo(properties.getMaxDelay()) > 0 ? properties.getMaxDelay() : observed;
+  }
+
+  private void addBudget() {
+    budgetLock.lock();
+    try {
+      budget = Math.min(properties.getBurst(), budget + properties.getMaxHedgeRatio());
+    } finally {
+      budgetLock.unlock();
+    }
+  }
+
+  private boolean tryConsumeBudget() {
+    budgetLock.lock();
+    try {
+      if (budget < 1.0) {
+        skippedBudget.increment();
+        return false;
+      }
+      budget -= 1.0;
+      return true;
+    } finally {
+      budgetLock.unlock();
+    }
+  }
+
+  private LatencyWindow newWindow() {
+    return new LatencyWindow(properties.getSampleWindow());
+  }
+
+  /**
+   * 对冲目标：第一个备用端点；没有备用端点时重复请求主端点。
+   */
+  private static ModelConfig secondaryOf(ModelConfig modelConfig) {
+    List<ModelConfig> targets = ModelEndpointFailover.targets(modelConfig);
+    return targets.size() > 1 ? targets.get(1) : modelConfig;
+  }
+
+  private static String key(ModelConfig modelConfig) {
+    if (modelConfig == null) {
+      return "";
+    }
+    String baseUrl = modelConfig.getBaseUrl();
+    baseUrl = baseUrl == null ? "" : BaseUrls.normalize(baseUrl);
+    return baseUrl.toLowerCase(Locale.ROOT) + "|" + modelConfig.getModel();
+  }
+
+  private record Attempt<T>(T value, Throwable error, boolean accepted, boolean hedge) {
+    static <T> Attempt<T> of(T value, boolean accepted, boolean hedge) {
+      return new Attempt<>(value, null, accepted, hedge);
+    }
+
+    static <T> Attempt<T> failed(Throwable error, boolean hedge) {
+      return new Attempt<>(null, error, false, hedge);
+    }
+  }
+}
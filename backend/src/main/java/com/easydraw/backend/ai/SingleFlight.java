@@ -0,0 +1,94 @@
+package com.easydraw.backend.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 在途请求合并：同一个 key 同时只执行一次调用，并发到达的相同请求等待同一个结果。
+ *
+ * <p>第一个到达的请求（leader）在自己的线程上执行调用，不额外占用线程；调用的耗时由客户端自身的超时
+ * 约束。之后到达的相同请求只等待 leader 的结果，调用抛出的异常原样传给每个等待者；等待者最多等待
+ * timeout，超时（或线程被中断）即退出，不影响 leader。调用结束后立即移除 key，之后的请求会发起新的
+ * 调用（结果复用交给缓存）。
+ *
+ * <p>key 需包含端点与凭据的标识，否则不同调用方会拿到用别人 apiKey 调用的结果。
+ *
+ * @param <K> 请求标识
+ * @param <V> 调用结果
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+  private final Duration timeout;
+  private final Counter leaders;
+  private final Counter followers;
+
+  public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+    this.timeout = timeout;
+    this.leaders = meterRegistry.counter("ai.singleflight.calls", "name", name, "role", "leader");
+    this.followers =
+        meterRegistry.counter("ai.singleflight.calls", "name", name, "role", "follower");
+  }
+
+  public V execute(K key, Callable<V> call) {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> existing = flights.putIfAbsent(key, created);
+    if (existing != null) {
+      followers.increment();
+      return await(existing);
+    }
+    leaders.increment();
+    return lead(key, created, call);
+  }
+
+  /**
+   * 当前在途的调用数量。
+   */
+  public int inFlight() {
+    return flights.size();
+  }
+
+  private V lead(K key, CompletableFuture<V> flight, Callable<V> call) {
+    try {
+      V result = call.call();
+      flight.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } catch (Exception e) {
+      flight.completeExceptionally(e);
+      throw new IllegalStateException(e.getMessage(), e);
+    } finally {
+      flights.remove(key, flight);
+    }
+  }
+
+  private V await(CompletableFuture<V> flight) {
+    try {
+      return flight.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("请求已取消", e);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("等待模型调用超时", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause == null ? e.getMessage() : cause.getMessage(), cause);
+    }
+  }
+}
@@ -1,21 +1,17 @@
 package com.easydraw.backend.ai;
 
+import com.easydraw.backend.ai.ChatPrompts.EffectiveConfig;
 import com.easydraw.backend.diagram.DiagramLanguage;
 import com.easydraw.backend.dto.ModelConfig;
-import java.util.List;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.messages.SystemMessage;
-import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.ai.retry.RetryUtils;
-import org.springframework.web.client.RestClient;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
 @Component
 public class SpringAiClient implements AiClient {
@@ -23,151 +19,131 @@ public class SpringAiClient implements AiClient {
   private static final Logger log = LoggerFactory.getLogger(SpringAiClient.class);
 
   private final AiModelRouter modelRouter;
-
-  public SpringAiClient(AiModelRouter modelRouter) {
+  private final ChatModelCache chatModelCache;
+  private final ReactiveAiClient reactiveAiClient;
+  private final EndpointBulkhead bulkhead;
+  private final ModelEndpointFailover failover;
+  private final ProviderRetry retry;
+  private final AiCallMetrics metrics;
+  private final ChatCassette cassette;
+
+  public SpringAiClient(
+      AiModelRouter modelRouter,
+      ChatModelCache chatModelCache,
+      ReactiveAiClient reactiveAiClient,
+      EndpointBulkhead bulkhead,
+      ModelEndpointFailover failover,
+      ProviderRetry retry,
+      AiCallMetrics metrics,
+      ChatCassette cassette) {
     this.modelRouter = modelRouter;
+    this.chatModelCache = chatModelCache;
+    this.reactiveAiClient = reactiveAiClient;
+    this.bulkhead = bulkhead;
+    this.failover = failover;
+    this.retry = retry;
+    this.metrics = metrics;
+    this.cassette = cassette;
   }
 
   @Override
   public String generate(
       DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig) {
     String provider = modelRouter.resolveProvider(modelConfig);
-    if (!isOpenAiCompatible(provider)) {
+    if (!ChatPrompts.isOpenAiCompatible(provider)) {
       throw new IllegalStateException("不支持的模型提供方 " + provider);
     }
 
-    EffectiveConfig config = resolveConfig(modelConfig);
-    String mergedPrompt = buildPrompt(language, diagramType, prompt);
-    OpenAiChatOptions options = modelRouter.resolveOptions(modelConfig);
-
-    return callChatModel(config, options, systemPrompt(language), mergedPrompt, provider);
+    String systemPrompt = ChatPrompts.systemPrompt(language);
+    String mergedPrompt = ChatPrompts.buildPrompt(language, diagramType, prompt);
+    // 主端点失败或熔断时按顺序切换到备用端点
+    return failover.execute(
+        modelConfig, target -> callChatModel(target, systemPrompt, mergedPrompt, provider));
   }
 
   @Override
   public String generateWithSystemPrompt(
       String systemPrompt, String userPrompt, ModelConfig modelConfig) {
     String provider = modelRouter.resolveProvider(modelConfig);
-    if (!isOpenAiCompatible(provider)) {
+    if (!ChatPrompts.isOpenAiCompatible(provider)) {
       throw new IllegalStateException("不支持的模型提供方 " + provider);
     }
 
-    EffectiveConfig config = resolveConfig(modelConfig);
-    OpenAiChatOptions options = modelRouter.resolveOptions(modelConfig);
-    return callChatModel(config, options, systemPrompt, userPrompt, provider);
-  }
-
-  private Prompt buildChatPrompt(
-      DiagramLanguage language, String mergedPrompt, OpenAiChatOptions options) {
-    List<Message> messages =
-        List.of(new SystemMessage(systemPrompt(language)), new UserMessage(mergedPrompt));
-    if (options == null) {
-      return new Prompt(messages);
-    }
-    return new Prompt(messages, options);
+    return failover.execute(
+        modelConfig, target -> callChatModel(target, systemPrompt, userPrompt, provider));
   }
 
-  private Prompt buildChatPrompt(
-      String systemPrompt, String userPrompt, OpenAiChatOptions options) {
-    List<Message> messages = List.of(new SystemMessage(systemPrompt), new UserMessage(userPrompt));
-    if (options == null) {
-      return new Prompt(messages);
-    }
-    return new Prompt(messages, options);
+  @Override
+  public Flux<String> stream(
+      DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig) {
+    // 流式调用本身就是非阻塞的，与响应式客户端共用实现
+    return reactiveAiClient.stream(language, diagramType, prompt, modelConfig);
   }
 
   private String callChatModel(
-      EffectiveConfig config,
-      OpenAiChatOptions options,
-      String systemPrompt,
-      String userPrompt,
-      String provider) {
+      ModelConfig modelConfig, String systemPrompt, String userPrompt, String provider) {
+    EffectiveConfig config = ChatPrompts.resolveConfig(modelConfig);
+    OpenAiChatOptions options = modelRouter.resolveOptions(modelConfig);
+    String model = options == null ? null : options.getModel();
+    Timer.Sample sample = metrics.start();
     try {
-      OpenAiApi api =
-          new OpenAiApi(
-              config.baseUrl,
-              config.apiKey,
-              config.completionsPath,
-              config.embeddingsPath,
-              RestClient.builder(),
-              WebClient.builder(),
-              RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER);
-      OpenAiChatModel chatModel = new OpenAiChatModel(api);
-      Prompt chatPrompt = buildChatPrompt(systemPrompt, userPrompt, options);
-      String content = chatModel.call(chatPrompt).getResult().getOutput().getText();
+      // 回放模式不访问提供方，但仍经过舱壁与指标，便于对比新版本的排队与耗时
+      String content =
+          cassette.isReplaying()
+              ? bulkhead.execute(
+                  config.baseUrl, model, () -> replay(provider, model, systemPrompt, userPrompt))
+              : invoke(config, options, provider, model, systemPrompt, userPrompt);
       if (content == null || content.isBlank()) {
         throw new IllegalStateException("大模型未返回内容");
       }
+      metrics.stop(sample, provider, model, AiCallMetrics.SUCCESS);
       return content.trim();
+    } catch (AiOverloadedException e) {
+      // 舱壁拒绝不是一次端点调用，不计入 ai.call，原样抛出交给故障切换与全局异常处理
+      throw e;
     } catch (Exception e) {
+      metrics.stop(sample, provider, model, e);
       log.error("Spring AI 调用异常, provider={}", provider, e);
       throw new IllegalStateException("调用大模型异常 " + e.getMessage(), e);
     }
   }
 
-  private EffectiveConfig resolveConfig(ModelConfig modelConfig) {
-    String baseUrl = modelConfig == null ? null : modelConfig.getBaseUrl();
-    String apiKey = modelConfig == null ? null : modelConfig.getApiKey();
-    if (isBlank(baseUrl) || isBlank(apiKey)) {
-      throw new IllegalStateException("缺少模型配置：请在请求中提供 baseUrl 与 apiKey");
-    }
-
-    String normalizedBaseUrl = normalizeBaseUrl(baseUrl.trim());
-    if (isBlank(normalizedBaseUrl)) {
-      throw new IllegalStateException("baseUrl 无效，请检查是否包含版本路径");
-    }
-    return new EffectiveConfig(normalizedBaseUrl, apiKey.trim(), "/chat/completions", "/embeddings");
-  }
-
-  private boolean isOpenAiCompatible(String provider) {
-    if (provider == null || provider.isBlank()) {
-      return true;
-    }
-    String normalized = provider.trim().toLowerCase();
-    return normalized.equals("openai") || normalized.equals("openai-compatible");
-  }
-
-  private String buildPrompt(DiagramLanguage language, String diagramType, String prompt) {
-    String type = diagramType == null ? "" : diagramType;
-    return """
-        请使用纯 %s 语法输出一个图表，不要添加额外解释或包裹，确保语法可直接渲染。注意：业务描述如果使用的是中文，图表也要使用中文描述。
-        图表类型/方向偏好：%s
-        业务描述：%s
-        """
-        .formatted(language.getCode(), type, prompt);
-  }
-
-  private String systemPrompt(DiagramLanguage language) {
-    if (language == DiagramLanguage.PLANTUML) {
-      return "你是图表生成助手，只输出 PlantUML 代码，不要额外文字。";
-    }
-    return "你是图表生成助手，只输出 Mermaid 代码，不要额外文字。";
-  }
-
-  private String normalizeBaseUrl(String baseUrl) {
-    int idx = baseUrl.indexOf("/chat/completions");
-    String normalized = idx > 0 ? baseUrl.substring(0, idx) : baseUrl;
-    while (normalized.endsWith("/")) {
-      normalized = normalized.substring(0, normalized.length() - 1);
+  private String invoke(
+      EffectiveConfig config,
+      OpenAiChatOptions options,
+      String provider,
+      String model,
+      String systemPrompt,
+      String userPrompt) {
+    // 同一 baseUrl + apiKey 复用客户端，连接可以跨请求保持
+    OpenAiChatModel chatModel =
+        chatModelCache.obtain(
+            config.baseUrl, config.apiKey, config.completionsPath, config.embeddingsPath);
+    Prompt chatPrompt = ChatPrompts.buildChatPrompt(systemPrompt, userPrompt, options);
+    long start = System.nanoTime();
+    ChatResponse response;
+    try {
+      // 暂时性错误按策略退避重试，受全局重试预算约束。按端点限制并发，端点变慢时快速失败而不是
+      // 占住请求线程；每次尝试各自获取许可，退避等待期间不占用端点并发
+      response =
+          retry.execute(
+              config.baseUrl,
+              () -> bulkhead.execute(config.baseUrl, model, () -> chatModel.call(chatPrompt)));
+    } catch (AiOverloadedException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      cassette.record(provider, model, systemPrompt, userPrompt, start, null, e);
+      throw e;
     }
-    return normalized;
+    cassette.record(provider, model, systemPrompt, userPrompt, start, response, null);
+    metrics.recordUsage(provider, model, response);
+    return response.getResult().getOutput().getText();
   }
 
-  private static boolean isBlank(String value) {
-    return value == null || value.trim().isEmpty();
-  }
-
-  private static class EffectiveConfig {
-    private final String baseUrl;
-    private final String apiKey;
-    private final String completionsPath;
-    private final String embeddingsPath;
-
-    private EffectiveConfig(
-        String baseUrl, String apiKey, String completionsPath, String embeddingsPath) {
-      this.baseUrl = baseUrl;
-      this.apiKey = apiKey;
-      this.completionsPath = completionsPath;
-      this.embeddingsPath = embeddingsPath;
-    }
+  private String replay(String provider, String model, String systemPrompt, String userPrompt) {
+    ChatCassette.Recording recording = cassette.replay(systemPrompt, userPrompt);
+    metrics.recordUsage(
+        provider, model, recording.promptTokens(), recording.completionTokens());
+    return recording.content();
   }
 }
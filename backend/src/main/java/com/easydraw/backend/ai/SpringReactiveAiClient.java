@@ -0,0 +1,290 @@
+package com.easydraw.backend.ai;
+
+import com.easydraw.backend.ai.ChatPrompts.EffectiveConfig;
+import com.easydraw.backend.config.AiClientProperties;
+import com.easydraw.backend.diagram.DiagramLanguage;
+import com.easydraw.backend.dto.ModelConfig;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 基于 WebClient 的非阻塞实现。
+ *
+ * <p>OpenAiChatModel 只有流式接口走 WebClient，因此一次性生成也是把流式片段拼接成完整文本；下游的
+ * 请求量（背压）与取消都直接作用在提供方的响应流上。每次尝试（包括重试）各自获取
+ * {@link EndpointBulkhead} 许可，退避等待期间不占用端点并发；整体超时取消当前尝试时计为失败。
+ * 失败或熔断时由 {@link ModelEndpointFailover} 切换备用端点。耗时与 token 用量见 {@link AiCallMetrics}。
+ * 录制与回放与同步客户端共用 {@link ChatCassette}：回放时不访问提供方，流式调用把录制内容作为一个片段发出。
+ */
+@Component
+public class SpringReactiveAiClient implements ReactiveAiClient {
+
+  private static final Logger log = LoggerFactory.getLogger(SpringReactiveAiClient.class);
+
+  private final AiModelRouter modelRouter;
+  private final ChatModelCache chatModelCache;
+  private final AiClientProperties properties;
+  private final EndpointBulkhead bulkhead;
+  private final ModelEndpointFailover failover;
+  private final ProviderRetry retry;
+  private final AiCallMetrics metrics;
+  private final ChatCassette cassette;
+
+  public SpringReactiveAiClient(
+      AiModelRouter modelRouter,
+      ChatModelCache chatModelCache,
+      AiClientProperties properties,
+      EndpointBulkhead bulkhead,
+      ModelEndpointFailover failover,
+      ProviderRetry retry,
+      AiCallMetrics metrics,
+      ChatCassette cassette) {
+    this.modelRouter = modelRouter;
+    this.chatModelCache = chatModelCache;
+    this.properties = properties;
+    this.bulkhead = bulkhead;
+    this.failover = failover;
+    this.retry = retry;
+    this.metrics = metrics;
+    this.cassette = cassette;
+  }
+
+  @Override
+  public Mono<String> generate(
+      DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig) {
+    return Mono.defer(
+        () -> {
+          String provider = modelRouter.resolveProvider(modelConfig);
+          if (!ChatPrompts.isOpenAiCompatible(provider)) {
+            return Mono.error(new IllegalStateException("不支持的模型提供方 " + provider));
+          }
+          String systemPrompt = ChatPrompts.systemPrompt(language);
+          String mergedPrompt = ChatPrompts.buildPrompt(language, diagramType, prompt);
+          return failover.executeMono(
+              modelConfig, target -> generateOnce(provider, target, systemPrompt, mergedPrompt));
+        });
+  }
+
+  @Override
+  public Mono<String> generateWithSystemPrompt(
+      String systemPrompt, String userPrompt, ModelConfig modelConfig) {
+    return Mono.defer(
+        () -> {
+          String provider = modelRouter.resolveProvider(modelConfig);
+          if (!ChatPrompts.isOpenAiCompatible(provider)) {
+            return Mono.error(new IllegalStateException("不支持的模型提供方 " + provider));
+          }
+          return failover.executeMono(
+              modelConfig, target -> generateOnce(provider, target, systemPrompt, userPrompt));
+        });
+  }
+
+  @Override
+  public Flux<String> stream(
+      DiagramLanguage language, String diagramType, String prompt, ModelConfig modelConfig) {
+    return Flux.defer(
+        () -> {
+          String provider = modelRouter.resolveProvider(modelConfig);
+          if (!ChatPrompts.isOpenAiCompatible(provider)) {
+            return Flux.error(new IllegalStateException("不支持的模型提供方 " + provider));
+          }
+          String systemPrompt = ChatPrompts.systemPrompt(language);
+          String mergedPrompt = ChatPrompts.buildPrompt(language, diagramType, prompt);
+          return failover.executeFlux(
+              modelConfig, target -> streamOnce(provider, target, systemPrompt, mergedPrompt));
+        });
+  }
+
+  private Mono<String> generateOnce(
+      String provider, ModelConfig target, String systemPrompt, String userPrompt) {
+    return Mono.defer(
+        () -> {
+          Call call = prepare(provider, target, systemPrompt, userPrompt);
+          return metrics.timed(provider, call.model(), collect(provider, call));
+        });
+  }
+
+  private Flux<String> streamOnce(
+      String provider, ModelConfig target, String systemPrompt, String userPrompt) {
+    return Flux.defer(
+        () -> {
+          Call call = prepare(provider, target, systemPrompt, userPrompt);
+          AtomicBoolean emitted = new AtomicBoolean();
+          Flux<String> chunks =
+              call.chunks()
+                  .doOnNext(chunk -> emitted.set(true))
+                  // 已经输出过片段后不能重试，否则内容会重复
+                  .retryWhen(retry.reactive(call.baseUrl(), () -> !emitted.get()))
+                  // 只限制首个片段的等待时间，之后的停顿由传输层的读超时兜底
+                  .timeout(callTimeout(call), chunk -> Mono.never())
+                  .transform(flux -> recorded(provider, call, flux))
+                  .onErrorMap(e -> mapError(provider, e));
+          return metrics.timed(provider, call.model(), chunks);
+        });
+  }
+
+  private Call prepare(
+      String provider, ModelConfig modelConfig, String systemPrompt, String userPrompt) {
+    EffectiveConfig config = ChatPrompts.resolveConfig(modelConfig);
+    OpenAiChatOptions options = modelRouter.resolveOptions(modelConfig);
+    if (properties.isStreamUsage()) {
+      options = options == null ? new OpenAiChatOptions() : options;
+      options.setStreamUsage(true);
+    }
+    String model = options == null ? null : options.getModel();
+    AtomicReference<ChatResponse> lastUsage = new AtomicReference<>();
+    AtomicBoolean timedOut = new AtomicBoolean();
+    if (cassette.isReplaying()) {
+      // 回放模式不访问提供方，但仍经过舱壁、重试与指标，便于对比新版本的排队与耗时
+      Flux<String> replayed =
+          cassette
+              .replayMono(systemPrompt, userPrompt)
+              .doOnNext(
+                  r -> metrics.recordUsage(provider, model, r.promptTokens(), r.completionTokens()))
+              .mapNotNull(ChatCassette.Recording::content)
+              .flux();
+      return new Call(
+          config.baseUrl,
+          model,
+          systemPrompt,
+          userPrompt,
+          bulkhead.execute(config.baseUrl, model, replayed, timedOut::get),
+          lastUsage,
+          timedOut);
+    }
+    OpenAiChatModel chatModel =
+        chatModelCache.obtain(
+            config.baseUrl, config.apiKey, config.completionsPath, config.embeddingsPath);
+    Prompt chatPrompt = ChatPrompts.buildChatPrompt(systemPrompt, userPrompt, options);
+    Flux<String> chunks =
+        Flux.defer(
+            () -> {
+              // 每次订阅（包括重试）各自记录，只有完整结束的响应才计入用量
+              AtomicReference<ChatResponse> usage = new AtomicReference<>();
+              return chatModel.stream(chatPrompt)
+                  .doOnNext(
+                      response -> {
+                        if (AiCallMetrics.hasUsage(response)) {
+                          usage.set(response);
+                        }
+                      })
+                  .doOnComplete(
+                      () -> {
+                        metrics.recordUsage(provider, model, usage.get());
+                        lastUsage.set(usage.get());
+                      })
+                  .map(ChatPrompts::chunkText)
+                  .filter(text -> !text.isEmpty());
+            });
+    // 许可按次获取：重试重新订阅时重新排队，退避期间不占用
+    return new Call(
+        config.baseUrl,
+        model,
+        systemPrompt,
+        userPrompt,
+        bulkhead.execute(config.baseUrl, model, chunks, timedOut::get),
+        lastUsage,
+        timedOut);
+  }
+
+  private Mono<String> collect(String provider, Call call) {
+    return call.chunks()
+        .collect(StringBuilder::new, StringBuilder::append)
+        .map(sb -> sb.toString().trim())
+        // 重新订阅即重新发起请求，已收到的片段随之丢弃；整体超时包含重试
+        .retryWhen(retry.reactive(call.baseUrl()))
+        .timeout(callTimeout(call))
+        .flux()
+        .transform(flux -> recorded(provider, call, flux))
+        .next()
+        .onErrorMap(e -> mapError(provider, e))
+        .flatMap(
+            content ->
+                content.isEmpty()
+                    ? Mono.error(new IllegalStateException("大模型未返回内容"))
+                    : Mono.just(content));
+  }
+
+  /**
+   * 录制模式下记录一次调用（含重试后的最终结果或错误）；流式调用结束后记录拼接的全文，中途取消不记录。
+   */
+  private Flux<String> recorded(String provider, Call call, Flux<String> result) {
+    if (!cassette.isRecording()) {
+      return result;
+    }
+    return Flux.defer(
+        () -> {
+          long start = System.nanoTime();
+          StringBuilder content = new StringBuilder();
+          return result
+              .doOnNext(content::append)
+              .doOnComplete(
+                  () ->
+                      cassette.record(
+                          provider,
+                          call.model(),
+                          call.systemPrompt(),
+                          call.userPrompt(),
+                          start,
+                          content.toString(),
+                          call.usage().get(),
+                          null))
+              // 舱壁拒绝是本地状态，不是提供方的行为，不录制
+              .doOnError(
+                  e -> !(e instanceof AiOverloadedException),
+                  e ->
+                      cassette.record(
+                          provider,
+                          call.model(),
+                          call.systemPrompt(),
+                          call.userPrompt(),
+                          start,
+                          null,
+                          null,
+                          e));
+        });
+  }
+
+  /**
+   * 整体超时。先标记再取消当前尝试，舱壁据此把这次取消计为失败。
+   */
+  private Mono<Long> callTimeout(Call call) {
+    return Mono.delay(properties.getCallTimeout()).doOnNext(tick -> call.timedOut().set(true));
+  }
+
+  private Throwable mapError(String provider, Throwable e) {
+    if (e instanceof AiOverloadedException) {
+      // 舱壁拒绝原样抛出，由故障切换与全局异常处理识别
+      return e;
+    }
+    if (e instanceof TimeoutException) {
+      log.warn("Spring AI 调用超时, provider={}, timeout={}", provider, properties.getCallTimeout());
+      return new IllegalStateException("调用大模型超时（" + properties.getCallTimeout() + "）", e);
+    }
+    log.error("Spring AI 调用异常, provider={}", provider, e);
+    return new IllegalStateException("调用大模型异常 " + e.getMessage(), e);
+  }
+
+  /**
+   * 一次模型调用：所属端点、提示词、尚未订阅的片段流（每次订阅获取一次舱壁许可）、最近一次完整响应
+   * 的用量，以及是否已被整体超时取消。
+   */
+  private record Call(
+      String baseUrl,
+      String model,
+      String systemPrompt,
+      String userPrompt,
+      Flux<String> chunks,
+      AtomicReference<ChatResponse> usage,
+      AtomicBoolean timedOut) {}
+}
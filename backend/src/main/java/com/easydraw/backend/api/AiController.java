@@ -1,6 +1,9 @@
 package com.easydraw.backend.api;
 
 import com.easydraw.backend.ai.AiClient;
+import com.easydraw.backend.dto.BatchDiagramItemResult;
+import com.easydraw.backend.dto.BatchDiagramRequest;
+import com.easydraw.backend.dto.DiagramStreamEvent;
 import com.easydraw.backend.dto.GenerateDiagramRequest;
 import com.easydraw.backend.dto.GenerateDiagramResponse;
 import com.easydraw.backend.dto.ModelTestRequest;
@@ -11,7 +14,11 @@ import com.easydraw.backend.dto.UpdateMermaidRequest;
 import com.easydraw.backend.service.DiagramGenerationService;
 import com.easydraw.backend.service.StyleModificationService;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -43,6 +50,67 @@ public class AiController {
     return diagramGenerationService.generate(request);
   }
 
+  /**
+   * 非阻塞生成图表，入参与出参同 /diagram。模型调用期间不占用请求线程，客户端断开或请求超时会中止
+   * 对提供方的调用。
+   *
+   * @param request 生成请求
+   * @return 生成结果
+   */
+  @PostMapping("/diagram/reactive")
+  public Mono<GenerateDiagramResponse> generateDiagramReactive(
+      @Valid @RequestBody GenerateDiagramRequest request) {
+    return diagramGenerationService.generateReactive(request);
+  }
+
+  /**
+   * 流式生成图表（SSE）。
+   *
+   * <p>事件依次为：line（清洗后的一行）、warning（单行校验问题，可选）、done（完整内容与整体校验结果）；
+   * 出错时以 error 事件结束。
+   *
+   * @param request 生成请求，与 /diagram 相同
+   * @return SSE 事件流
+   */
+  @PostMapping(value = "/diagram/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<DiagramStreamEvent>> streamDiagram(
+      @Valid @RequestBody GenerateDiagramRequest request) {
+    return diagramGenerationService
+        .stream(request)
+        .onErrorResume(
+            e ->
+                Flux.just(
+                    DiagramStreamEvent.error(e.getMessage() == null ? "服务器错误" : e.getMessage())))
+        .map(event -> ServerSentEvent.builder(event).event(event.getType()).build());
+  }
+
+  /**
+   * 增量修改已有 Mermaid 图，出参同 /diagram。模型只输出改动（新增/删除/修改节点与连线），
+   * 输出 token 与改动大小而非整图大小成正比。
+   *
+   * @param request 修改请求（当前 Mermaid、修改要求、模型配置）
+   * @return 修改后的内容与校验结果
+   */
+  @PostMapping("/diagram/edit")
+  public GenerateDiagramResponse editDiagram(@Valid @RequestBody UpdateMermaidRequest request) {
+    return diagramGenerationService.edit(request);
+  }
+
+  /**
+   * 批量生成图表（NDJSON）。
+   *
+   * <p>各项并行生成（同一模型端点的并发受 app.ai.batch.per-endpoint-concurrency 限制），每完成一项输出
+   * 一行结果；单项失败只体现在该行，不影响其他项。
+   *
+   * @param request 批量请求，items 每项与 /diagram 入参相同
+   * @return 每项一行的结果流
+   */
+  @PostMapping(value = "/diagram/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<BatchDiagramItemResult> generateDiagramBatch(
+      @Valid @RequestBody BatchDiagramRequest request) {
+    return diagramGenerationService.generateBatch(request.getItems());
+  }
+
   /**
    * 样式修改
    * @param request
@@ -53,6 +121,15 @@ public class AiController {
     return styleModificationService.generate(request);
   }
 
+  /**
+   * 非阻塞样式修改，入参与出参同 /style。
+   */
+  @PostMapping("/style/reactive")
+  public Mono<ModifyStyleCommand> modifyStyleReactive(
+      @Valid @RequestBody StyleModifyRequest request) {
+    return styleModificationService.generateReactive(request);
+  }
+
   @PostMapping("/model/test")
   public ModelTestResponse testModel(@Valid @RequestBody ModelTestRequest request) {
     String prompt = request.getPrompt();
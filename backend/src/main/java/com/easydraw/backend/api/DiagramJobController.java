@@ -0,0 +1,80 @@
+package com.easydraw.backend.api;
+
+import com.easydraw.backend.config.DiagramJobProperties;
+import com.easydraw.backend.dto.DiagramJobStatus;
+import com.easydraw.backend.dto.GenerateDiagramRequest;
+import com.easydraw.backend.service.DiagramJobService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import reactor.core.publisher.Flux;
+
+/**
+ * 异步生成任务接口：提交后立即返回任务 ID，不在模型调用期间占用 HTTP 连接。
+ */
+@RestController
+@RequestMapping("/api/ai/diagram/jobs")
+public class DiagramJobController {
+
+  private final DiagramJobService diagramJobService;
+  private final DiagramJobProperties properties;
+
+  public DiagramJobController(
+      DiagramJobService diagramJobService, DiagramJobProperties properties) {
+    this.diagramJobService = diagramJobService;
+    this.properties = properties;
+  }
+
+  /**
+   * 提交生成任务，入参同 /api/ai/diagram。返回 202 与任务状态（QUEUED），Location 指向查询地址。
+   *
+   * @param request 生成请求
+   * @return 任务状态
+   */
+  @PostMapping
+  public ResponseEntity<DiagramJobStatus> submit(
+      @Valid @RequestBody GenerateDiagramRequest request) {
+    DiagramJobStatus status = diagramJobService.submit(request);
+    // 基于当前请求地址构造，保留 context-path（/drawio）
+    return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .location(
+            ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}")
+                .buildAndExpand(status.getJobId())
+                .toUri())
+        .body(status);
+  }
+
+  /**
+   * 查询任务状态，完成后 result 同 /api/ai/diagram 出参。
+   */
+  @GetMapping("/{jobId}")
+  public DiagramJobStatus get(@PathVariable String jobId) {
+    return diagramJobService.get(jobId);
+  }
+
+  /**
+   * 订阅任务状态（SSE）：事件名为状态（queued / running / succeeded / failed），到达终态后结束；
+   * 等待期间按 app.ai.jobs.heartbeat 发送注释行保活。
+   */
+  @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<DiagramJobStatus>> events(@PathVariable String jobId) {
+    Flux<ServerSentEvent<DiagramJobStatus>> statuses =
+        diagramJobService
+            .subscribe(jobId)
+            .map(
+                status ->
+                    ServerSentEvent.builder(status)
+                        .event(status.getStatus().name().toLowerCase())
+                        .build());
+    Flux<ServerSentEvent<DiagramJobStatus>> heartbeat =
+        Flux.interval(properties.getHeartbeat())
+            .map(i -> ServerSentEvent.<DiagramJobStatus>builder().comment("keepalive").build());
+    return statuses.publish(
+        shared -> Flux.merge(shared, heartbeat.takeUntilOther(shared.then())));
+  }
+}
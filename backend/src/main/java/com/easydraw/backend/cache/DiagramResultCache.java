@@ -0,0 +1,66 @@
+package com.easydraw.backend.cache;
+
+import com.easydraw.backend.config.ResultCacheProperties;
+import com.easydraw.backend.diagram.DiagramGenerationInput;
+import com.easydraw.backend.diagram.DiagramRequestKey;
+import com.easydraw.backend.dto.GenerateDiagramResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图表生成结果缓存，按 {@link DiagramRequestKey} 精确匹配。
+ *
+ * <p>只缓存校验通过的结果；读写都返回副本，调用方修改响应不会影响缓存。命中/未命中/淘汰统计以
+ * cache.*（cache=diagram-results）指标暴露。
+ */
+@Component
+public class DiagramResultCache {
+
+  private final boolean enabled;
+  private final Cache<String, GenerateDiagramResponse> cache;
+
+  public DiagramResultCache(ResultCacheProperties properties, MeterRegistry meterRegistry) {
+    ResultCacheProperties.Spec spec = properties.getDiagram();
+    this.enabled = spec.isEnabled();
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(spec.getMaximumSize())
+            .expireAfterWrite(spec.getExpireAfterWrite())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "diagram-results");
+  }
+
+  public GenerateDiagramResponse get(DiagramGenerationInput input) {
+    if (!enabled) {
+      return null;
+    }
+    GenerateDiagramResponse cached = cache.getIfPresent(DiagramRequestKey.of(input));
+    return cached == null ? null : copy(cached);
+  }
+
+  public void put(DiagramGenerationInput input, GenerateDiagramResponse response) {
+    if (!enabled || response == null || response.getValidation() == null) {
+      return;
+    }
+    if (!response.getValidation().isValid()) {
+      return;
+    }
+    cache.put(DiagramRequestKey.of(input), copy(response));
+  }
+
+  private static GenerateDiagramResponse copy(GenerateDiagramResponse source) {
+    GenerateDiagramResponse copy =
+        GenerateDiagramResponse.of(
+            source.getLanguage(),
+            source.getDiagramType(),
+            source.getContent(),
+            GenerateDiagramResponse.ValidationResult.ok(),
+            source.getExplain());
+    copy.setRepairs(source.getRepairs());
+    return copy;
+  }
+}
@@ -0,0 +1,95 @@
+package com.easydraw.backend.cache;
+
+import com.easydraw.backend.ai.BaseUrls;
+import com.easydraw.backend.config.ResultCacheProperties;
+import com.easydraw.backend.dto.ModelConfig;
+import com.easydraw.backend.dto.ModifyStyleCommand;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * 样式指令缓存，键为端点（规范化的 baseUrl）、模型名与
+ * {@link com.easydraw.backend.style.StylePromptNormalizer} 规范化后的提示词。不同模型对同一句话的
+ * 理解可能不同，各自缓存；apiKey 不参与，同一模型的结果在用户间共享。
+ *
+ * <p>Caffeine 的容量淘汰基于 W-TinyLFU，会参考访问频率，高频短语（“改成红色”“虚线”）不会被
+ * 偶发的长尾指令挤出。只应写入已通过 ModifyStyleValidator 校验的指令；读写都做深拷贝。
+ * 统计以 cache.*（cache=style-commands）指标暴露。
+ */
+@Component
+public class StyleCommandCache {
+
+  private final boolean enabled;
+  private final Cache<Key, ModifyStyleCommand> cache;
+
+  public StyleCommandCache(ResultCacheProperties properties, MeterRegistry meterRegistry) {
+    ResultCacheProperties.Spec spec = properties.getStyle();
+    this.enabled = spec.isEnabled();
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(spec.getMaximumSize())
+            .expireAfterWrite(spec.getExpireAfterWrite())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "style-commands");
+  }
+
+  public ModifyStyleCommand get(String normalizedPrompt, ModelConfig modelConfig) {
+    if (!enabled || normalizedPrompt == null || normalizedPrompt.isEmpty()) {
+      return null;
+    }
+    ModifyStyleCommand cached = cache.getIfPresent(Key.of(normalizedPrompt, modelConfig));
+    return cached == null ? null : copy(cached);
+  }
+
+  public void put(String normalizedPrompt, ModelConfig modelConfig, ModifyStyleCommand command) {
+    if (!enabled || normalizedPrompt == null || normalizedPrompt.isEmpty() || command == null) {
+      return;
+    }
+    cache.put(Key.of(normalizedPrompt, modelConfig), copy(command));
+  }
+
+  static ModifyStyleCommand copy(ModifyStyleCommand source) {
+    ModifyStyleCommand target = new ModifyStyleCommand();
+    target.setAction(source.getAction());
+    target.setTarget(source.getTarget());
+    if (source.getStyles() != null) {
+      target.setStyles(new LinkedHashMap<>(source.getStyles()));
+    }
+    if (source.getOperations() != null) {
+      Map<String, ModifyStyleCommand.Operation> operations = new LinkedHashMap<>();
+      for (Map.Entry<String, ModifyStyleCommand.Operation> entry :
+          source.getOperations().entrySet()) {
+        ModifyStyleCommand.Operation op = entry.getValue();
+        ModifyStyleCommand.Operation opCopy = new ModifyStyleCommand.Operation();
+        if (op != null) {
+          opCopy.setOp(op.getOp());
+          opCopy.setValue(op.getValue());
+        }
+        operations.put(entry.getKey(), opCopy);
+      }
+      target.setOperations(operations);
+    }
+    return target;
+  }
+
+  private record Key(String baseUrl, String model, String prompt) {
+
+    static Key of(String normalizedPrompt, ModelConfig config) {
+      if (config == null) {
+        // 未传模型配置时使用服务端默认模型
+        return new Key("", "", normalizedPrompt);
+      }
+      return new Key(
+          BaseUrls.normalize(config.getBaseUrl()).toLowerCase(Locale.ROOT),
+          config.getModel() == null ? "" : config.getModel().trim().toLowerCase(Locale.ROOT),
+          normalizedPrompt);
+    }
+  }
+}
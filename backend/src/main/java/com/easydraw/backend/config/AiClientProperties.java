@@ -0,0 +1,64 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 大模型客户端相关配置（app.ai.client）。
+ */
+@ConfigurationProperties(prefix = "app.ai.client")
+public class AiClientProperties {
+
+  /**
+   * 缓存的模型客户端数量上限，按 baseUrl + apiKey 区分。
+   */
+  private int cacheMaximumSize = 64;
+
+  /**
+   * 客户端空闲超过该时长后淘汰。
+   */
+  private Duration cacheExpireAfterAccess = Duration.ofMinutes(30);
+
+  /**
+   * 响应式调用的整体超时（流式调用为等待首个片段的超时），应小于 spring.mvc.async.request-timeout。
+   */
+  private Duration callTimeout = Duration.ofSeconds(150);
+
+  /**
+   * 流式调用请求提供方在末尾片段返回 token 用量（stream_options.include_usage），用于 ai.tokens 指标；
+   * 部分 OpenAI 兼容服务不识别该参数，默认关闭。
+   */
+  private boolean streamUsage = false;
+
+  public int getCacheMaximumSize() {
+    return cacheMaximumSize;
+  }
+
+  public void setCacheMaximumSize(int cacheMaximumSize) {
+    this.cacheMaximumSize = cacheMaximumSize;
+  }
+
+  public Duration getCacheExpireAfterAccess() {
+    return cacheExpireAfterAccess;
+  }
+
+  public void setCacheExpireAfterAccess(Duration cacheExpireAfterAccess) {
+    this.cacheExpireAfterAccess = cacheExpireAfterAccess;
+  }
+
+  public Duration getCallTimeout() {
+    return callTimeout;
+  }
+
+  public void setCallTimeout(Duration callTimeout) {
+    this.callTimeout = callTimeout;
+  }
+
+  public boolean isStreamUsage() {
+    return streamUsage;
+  }
+
+  public void setStreamUsage(boolean streamUsage) {
+    this.streamUsage = streamUsage;
+  }
+}
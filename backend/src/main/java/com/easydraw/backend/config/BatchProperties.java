@@ -0,0 +1,36 @@
+package com.easydraw.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 批量生成配置（app.ai.batch）。
+ */
+@ConfigurationProperties(prefix = "app.ai.batch")
+public class BatchProperties {
+
+  /**
+   * 单次批量请求最多包含的图表数。
+   */
+  private int maxItems = 50;
+
+  /**
+   * 同一模型端点（baseUrl + model）上同时进行的生成数，不同端点之间互不影响。
+   */
+  private int perEndpointConcurrency = 4;
+
+  public int getMaxItems() {
+    return maxItems;
+  }
+
+  public void setMaxItems(int maxItems) {
+    this.maxItems = maxItems;
+  }
+
+  public int getPerEndpointConcurrency() {
+    return perEndpointConcurrency;
+  }
+
+  public void setPerEndpointConcurrency(int perEndpointConcurrency) {
+    this.perEndpointConcurrency = perEndpointConcurrency;
+  }
+}
@@ -0,0 +1,130 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 大模型端点并发隔离配置（app.ai.bulkhead）。
+ *
+ * <p>每个 baseUrl + model 一个独立的自适应并发上限：调用正常时缓慢加一，失败或变慢时按比例收缩。
+ */
+@ConfigurationProperties(prefix = "app.ai.bulkhead")
+public class BulkheadProperties {
+
+  /**
+   * 是否启用按端点（baseUrl + model）隔离的并发限制。
+   */
+  private boolean enabled = true;
+
+  /**
+   * 每个端点的初始并发上限。
+   */
+  private int initialLimit = 10;
+
+  /**
+   * 自适应调整的下限。
+   */
+  private int minLimit = 1;
+
+  /**
+   * 自适应调整的上限，应明显小于 Tomcat 线程数，保证一个端点占不满全部线程。
+   */
+  private int maxLimit = 50;
+
+  /**
+   * 达到并发上限后允许排队等待的请求数，超出直接返回 429。
+   */
+  private int maxQueue = 20;
+
+  /**
+   * 排队等待许可的最长时间，超时返回 503。
+   */
+  private Duration queueTimeout = Duration.ofSeconds(2);
+
+  /**
+   * 调用失败或明显变慢时上限乘以该系数（乘性减）。
+   */
+  private double backoffRatio = 0.9;
+
+  /**
+   * 耗时超过平滑平均耗时的该倍数视为变慢。
+   */
+  private double slowCallRatio = 2.0;
+
+  /**
+   * 端点闲置超过该时长后释放其限流状态与指标。
+   */
+  private Duration idleExpiry = Duration.ofMinutes(30);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public int getMaxQueue() {
+    return maxQueue;
+  }
+
+  public void setMaxQueue(int maxQueue) {
+    this.maxQueue = maxQueue;
+  }
+
+  public Duration getQueueTimeout() {
+    return queueTimeout;
+  }
+
+  public void setQueueTimeout(Duration queueTimeout) {
+    this.queueTimeout = queueTimeout;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+
+  public double getSlowCallRatio() {
+    return slowCallRatio;
+  }
+
+  public void setSlowCallRatio(double slowCallRatio) {
+    this.slowCallRatio = slowCallRatio;
+  }
+
+  public Duration getIdleExpiry() {
+    return idleExpiry;
+  }
+
+  public void setIdleExpiry(Duration idleExpiry) {
+    this.idleExpiry = idleExpiry;
+  }
+}
@@ -0,0 +1,82 @@
+package com.easydraw.backend.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 模型调用录制与回放配置（app.ai.cassette）。
+ */
+@ConfigurationProperties(prefix = "app.ai.cassette")
+public class CassetteProperties {
+
+  public enum Mode {
+    /** 不录制也不回放 */
+    OFF,
+    /** 正常调用模型，同时把脱敏后的请求与响应追加到录制文件 */
+    RECORD,
+    /** 不调用模型，按录制内容与原始耗时返回 */
+    REPLAY
+  }
+
+  private Mode mode = Mode.OFF;
+
+  /**
+   * 录制文件目录：录制时按天写入 llm-yyyyMMdd.jsonl，回放时读取目录下全部 .jsonl 文件。
+   */
+  private Path directory = Path.of("cassettes");
+
+  /**
+   * 是否保存提示词原文（脱敏后）；关闭时只保存摘要与长度，回放只需要摘要。
+   */
+  private boolean recordPrompts = false;
+
+  /**
+   * 回放耗时倍率：1 为原始耗时，0.1 为压缩到十分之一，0 为不等待。
+   */
+  private double timeScale = 1.0;
+
+  /**
+   * 回放时提示词摘要找不到对应记录是否报错；关闭时按录制顺序依次返回其他记录。
+   */
+  private boolean strict = false;
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  public boolean isRecordPrompts() {
+    return recordPrompts;
+  }
+
+  public void setRecordPrompts(boolean recordPrompts) {
+    this.recordPrompts = recordPrompts;
+  }
+
+  public double getTimeScale() {
+    return timeScale;
+  }
+
+  public void setTimeScale(double timeScale) {
+    this.timeScale = timeScale;
+  }
+
+  public boolean isStrict() {
+    return strict;
+  }
+
+  public void setStrict(boolean strict) {
+    this.strict = strict;
+  }
+}
@@ -0,0 +1,131 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 大模型端点熔断配置（app.ai.circuit-breaker）。
+ *
+ * <p>每个 baseUrl + model 一个熔断器，按最近调用的失败率与慢调用率熔断，熔断期间请求直接跳到下一个备用
+ * 端点。
+ */
+@ConfigurationProperties(prefix = "app.ai.circuit-breaker")
+public class CircuitBreakerProperties {
+
+  /**
+   * 是否启用端点熔断；关闭后仍按顺序切换备用端点，只是不再跳过失败的端点。
+   */
+  private boolean enabled = true;
+
+  /**
+   * 统计失败率与慢调用率的滑动窗口（最近 N 次调用）。
+   */
+  private int windowSize = 20;
+
+  /**
+   * 窗口内至少有这么多次调用才计算比率。
+   */
+  private int minimumCalls = 5;
+
+  /**
+   * 失败率（百分比）达到该值时熔断。
+   */
+  private int failureRateThreshold = 50;
+
+  /**
+   * 耗时超过该值视为慢调用（流式调用按首个片段的等待时间计算）。
+   */
+  private Duration slowCallDuration = Duration.ofSeconds(60);
+
+  /**
+   * 慢调用率（百分比）达到该值时熔断。
+   */
+  private int slowCallRateThreshold = 80;
+
+  /**
+   * 熔断后经过该时长进入半开状态，放行少量探测请求。
+   */
+  private Duration waitDurationInOpen = Duration.ofSeconds(30);
+
+  /**
+   * 半开状态放行的探测请求数，全部成功才恢复。
+   */
+  private int permittedCallsInHalfOpen = 2;
+
+  /**
+   * 端点闲置超过该时长后释放其熔断状态与指标。
+   */
+  private Duration idleExpiry = Duration.ofMinutes(30);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public void setWindowSize(int windowSize) {
+    this.windowSize = windowSize;
+  }
+
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  public void setMinimumCalls(int minimumCalls) {
+    this.minimumCalls = minimumCalls;
+  }
+
+  public int getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public void setFailureRateThreshold(int failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  public Duration getSlowCallDuration() {
+    return slowCallDuration;
+  }
+
+  public void setSlowCallDuration(Duration slowCallDuration) {
+    this.slowCallDuration = slowCallDuration;
+  }
+
+  public int getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  public Duration getWaitDurationInOpen() {
+    return waitDurationInOpen;
+  }
+
+  public void setWaitDurationInOpen(Duration waitDurationInOpen) {
+    this.waitDurationInOpen = waitDurationInOpen;
+  }
+
+  public int getPermittedCallsInHalfOpen() {
+    return permittedCallsInHalfOpen;
+  }
+
+  public void setPermittedCallsInHalfOpen(int permittedCallsInHalfOpen) {
+    this.permittedCallsInHalfOpen = permittedCallsInHalfOpen;
+  }
+
+  public Duration getIdleExpiry() {
+    return idleExpiry;
+  }
+
+  public void setIdleExpiry(Duration idleExpiry) {
+    this.idleExpiry = idleExpiry;
+  }
+}
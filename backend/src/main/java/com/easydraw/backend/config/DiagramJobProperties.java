@@ -0,0 +1,76 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 异步生成任务配置（app.ai.jobs）。
+ */
+@ConfigurationProperties(prefix = "app.ai.jobs")
+public class DiagramJobProperties {
+
+  /**
+   * 执行任务的线程数，即同时进行的生成任务数。
+   */
+  private int threads = 8;
+
+  /**
+   * 等待执行的任务数上限，排满后提交返回 429。
+   */
+  private int queueCapacity = 200;
+
+  /**
+   * 任务（含结果）自提交起的保留时长，过期后查询返回 404。
+   */
+  private Duration ttl = Duration.ofMinutes(30);
+
+  /**
+   * 最多保留的任务数，超出时淘汰最早提交的任务。
+   */
+  private int maximumSize = 1000;
+
+  /**
+   * SSE 订阅的心跳间隔，避免代理因长时间无数据断开连接。
+   */
+  private Duration heartbeat = Duration.ofSeconds(15);
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  public void setMaximumSize(int maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  public Duration getHeartbeat() {
+    return heartbeat;
+  }
+
+  public void setHeartbeat(Duration heartbeat) {
+    this.heartbeat = heartbeat;
+  }
+}
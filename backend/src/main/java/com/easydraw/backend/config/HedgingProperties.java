@@ -0,0 +1,143 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 对冲请求配置（app.ai.hedging）。
+ *
+ * <p>主请求耗时进入长尾时向备用端点（没有备用端点时为同一端点）再发一次，先通过校验的结果胜出。
+ */
+@ConfigurationProperties(prefix = "app.ai.hedging")
+public class HedgingProperties {
+
+  /**
+   * 是否启用对冲请求（默认关闭，会额外消耗 token）。
+   */
+  private boolean enabled = false;
+
+  /**
+   * 主请求耗时超过该分位数（按端点统计的历史耗时）仍未返回时发出对冲请求。
+   */
+  private double percentile = 0.9;
+
+  /**
+   * 历史样本不足时使用 initialDelay。
+   */
+  private int minSamples = 20;
+
+  /**
+   * 每个端点保留的最近耗时样本数。
+   */
+  private int sampleWindow = 200;
+
+  /**
+   * 样本不足时的对冲延迟。
+   */
+  private Duration initialDelay = Duration.ofSeconds(15);
+
+  /**
+   * 对冲延迟下限，避免对正常请求也发出对冲。
+   */
+  private Duration minDelay = Duration.ofSeconds(3);
+
+  /**
+   * 对冲延迟上限。
+   */
+  private Duration maxDelay = Duration.ofSeconds(45);
+
+  /**
+   * 对冲请求数占请求总数的比例上限，用于控制额外成本。
+   */
+  private double maxHedgeRatio = 0.1;
+
+  /**
+   * 对冲额度的累积上限，允许短时间内集中对冲。
+   */
+  private int burst = 5;
+
+  /**
+   * 端点闲置超过该时长后释放其耗时统计。
+   */
+  private Duration idleExpiry = Duration.ofMinutes(30);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public void setPercentile(double percentile) {
+    this.percentile = percentile;
+  }
+
+  public int getMinSamples() {
+    return minSamples;
+  }
+
+  public void setMinSamples(int minSamples) {
+    this.minSamples = minSamples;
+  }
+
+  public int getSampleWindow() {
+    return sampleWindow;
+  }
+
+  public void setSampleWindow(int sampleWindow) {
+    this.sampleWindow = sampleWindow;
+  }
+
+  public Duration getInitialDelay() {
+    return initialDelay;
+  }
+
+  public void setInitialDelay(Duration initialDelay) {
+    this.initialDelay = initialDelay;
+  }
+
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  public void setMinDelay(Duration minDelay) {
+    this.minDelay = minDelay;
+  }
+
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  public void setMaxDelay(Duration maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  public double getMaxHedgeRatio() {
+    return maxHedgeRatio;
+  }
+
+  public void setMaxHedgeRatio(double maxHedgeRatio) {
+    this.maxHedgeRatio = maxHedgeRatio;
+  }
+
+  public int getBurst() {
+    return burst;
+  }
+
+  public void setBurst(int burst) {
+    this.burst = burst;
+  }
+
+  public Duration getIdleExpiry() {
+    return idleExpiry;
+  }
+
+  public void setIdleExpiry(Duration idleExpiry) {
+    this.idleExpiry = idleExpiry;
+  }
+}
@@ -0,0 +1,38 @@
+package com.easydraw.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 指标标签取值上限配置（app.diagnostics.metric-tags）。
+ */
+@ConfigurationProperties(prefix = "app.diagnostics.metric-tags")
+public class MetricTagProperties {
+
+  /**
+   * 取值来自请求参数、需要限制基数的标签。
+   */
+  private List<String> keys = new ArrayList<>(List.of("model", "endpoint"));
+
+  /**
+   * 每个标签最多保留的取值数，之后出现的新取值统一记为 other。
+   */
+  private int maxValues = 20;
+
+  public List<String> getKeys() {
+    return keys;
+  }
+
+  public void setKeys(List<String> keys) {
+    this.keys = keys;
+  }
+
+  public int getMaxValues() {
+    return maxValues;
+  }
+
+  public void setMaxValues(int maxValues) {
+    this.maxValues = maxValues;
+  }
+}
@@ -0,0 +1,130 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 访问大模型提供方的 HTTP 连接池配置（app.ai.transport）。
+ *
+ * <p>连接池按远端主机隔离，maxConnections 即单个提供方主机的连接上限。
+ */
+@ConfigurationProperties(prefix = "app.ai.transport")
+public class ProviderTransportProperties {
+
+  /**
+   * 每个远端主机的最大连接数。
+   */
+  private int maxConnections = 200;
+
+  /**
+   * 等待获取连接的最大排队数，超出直接失败。
+   */
+  private int pendingAcquireMaxCount = 1000;
+
+  /**
+   * 等待获取连接的超时时间。
+   */
+  private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+
+  /**
+   * 连接空闲超过该时长后关闭。
+   */
+  private Duration maxIdleTime = Duration.ofSeconds(60);
+
+  /**
+   * 连接最长存活时间，避免长期复用到已下线的后端节点。
+   */
+  private Duration maxLifeTime = Duration.ofMinutes(10);
+
+  /**
+   * 后台清理空闲/过期连接的间隔。
+   */
+  private Duration evictInBackground = Duration.ofSeconds(30);
+
+  /**
+   * 建立连接超时。
+   */
+  private Duration connectTimeout = Duration.ofSeconds(5);
+
+  /**
+   * 等待响应超时；非流式调用要等模型生成完毕才返回响应头，因此需要足够长。
+   */
+  private Duration responseTimeout = Duration.ofSeconds(120);
+
+  /**
+   * 是否对 https 提供方协商 HTTP/2（不支持时自动回落 HTTP/1.1）。
+   */
+  private boolean http2Enabled = true;
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public void setMaxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  public int getPendingAcquireMaxCount() {
+    return pendingAcquireMaxCount;
+  }
+
+  public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+    this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+  }
+
+  public Duration getPendingAcquireTimeout() {
+    return pendingAcquireTimeout;
+  }
+
+  public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+    this.pendingAcquireTimeout = pendingAcquireTimeout;
+  }
+
+  public Duration getMaxIdleTime() {
+    return maxIdleTime;
+  }
+
+  public void setMaxIdleTime(Duration maxIdleTime) {
+    this.maxIdleTime = maxIdleTime;
+  }
+
+  public Duration getMaxLifeTime() {
+    return maxLifeTime;
+  }
+
+  public void setMaxLifeTime(Duration maxLifeTime) {
+    this.maxLifeTime = maxLifeTime;
+  }
+
+  public Duration getEvictInBackground() {
+    return evictInBackground;
+  }
+
+  public void setEvictInBackground(Duration evictInBackground) {
+    this.evictInBackground = evictInBackground;
+  }
+
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public Duration getResponseTimeout() {
+    return responseTimeout;
+  }
+
+  public void setResponseTimeout(Duration responseTimeout) {
+    this.responseTimeout = responseTimeout;
+  }
+
+  public boolean isHttp2Enabled() {
+    return http2Enabled;
+  }
+
+  public void setHttp2Enabled(boolean http2Enabled) {
+    this.http2Enabled = http2Enabled;
+  }
+}
@@ -0,0 +1,86 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 生成结果缓存配置（app.cache）。
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public class ResultCacheProperties {
+
+  /**
+   * 图表生成结果缓存。
+   */
+  private Spec diagram = new Spec(1000, Duration.ofHours(1));
+
+  /**
+   * 样式指令缓存，按规范化后的提示词命中。
+   */
+  private Spec style = new Spec(2000, Duration.ofDays(1));
+
+  public Spec getDiagram() {
+    return diagram;
+  }
+
+  public void setDiagram(Spec diagram) {
+    this.diagram = diagram;
+  }
+
+  public Spec getStyle() {
+    return style;
+  }
+
+  public void setStyle(Spec style) {
+    this.style = style;
+  }
+
+  public static class Spec {
+
+    /**
+     * 是否启用。
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最大条目数。
+     */
+    private long maximumSize;
+
+    /**
+     * 写入后过期时间。
+     */
+    private Duration expireAfterWrite;
+
+    public Spec() {}
+
+    public Spec(long maximumSize, Duration expireAfterWrite) {
+      this.maximumSize = maximumSize;
+      this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+      return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+      this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+      return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+      this.expireAfterWrite = expireAfterWrite;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 调用大模型的重试配置（app.ai.retry）。
+ *
+ * <p>退避为指数上限内的全抖动（0 到上限之间随机），优先遵循 Retry-After；所有重试共用一个令牌桶预算，
+ * 每个首次调用累积 budgetRatio 个令牌，每次重试消耗 1 个，上游故障时重试量不会超过正常流量的该比例。
+ */
+@ConfigurationProperties(prefix = "app.ai.retry")
+public class RetryProperties {
+
+  /**
+   * 是否启用重试。
+   */
+  private boolean enabled = true;
+
+  /**
+   * 重试量占首次调用量的比例上限。
+   */
+  private double budgetRatio = 0.1;
+
+  /**
+   * 预算令牌的累积上限（也是空闲后允许的突发重试数）。
+   */
+  private int budgetBurst = 10;
+
+  /**
+   * 视为暂时性错误、可以重试的 HTTP 状态码；连接失败与读超时也会重试。
+   */
+  private List<Integer> retryableStatuses = List.of(408, 429, 500, 502, 503, 504);
+
+  /**
+   * 默认重试策略。
+   */
+  private Policy policy = Policy.defaults();
+
+  /**
+   * 按提供方主机（baseUrl 的 host）覆盖的策略，未设置的字段沿用默认策略。
+   */
+  private Map<String, Policy> providers = new LinkedHashMap<>();
+
+  /**
+   * 取某个提供方主机的生效策略。
+   */
+  public Policy policyFor(String host) {
+    Policy override = host == null ? null : providers.get(host);
+    if (override == null) {
+      return policy;
+    }
+    Policy merged = new Policy();
+    merged.setMaxAttempts(
+        override.getMaxAttempts() != null ? override.getMaxAttempts() : policy.getMaxAttempts());
+    merged.setInitialBackoff(
+        override.getInitialBackoff() != null
+            ? override.getInitialBackoff()
+            : policy.getInitialBackoff());
+    merged.setMaxBackoff(
+        override.getMaxBackoff() != null ? override.getMaxBackoff() : policy.getMaxBackoff());
+    merged.setMaxRetryAfter(
+        override.getMaxRetryAfter() != null
+            ? override.getMaxRetryAfter()
+            : policy.getMaxRetryAfter());
+    return merged;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public double getBudgetRatio() {
+    return budgetRatio;
+  }
+
+  public void setBudgetRatio(double budgetRatio) {
+    this.budgetRatio = budgetRatio;
+  }
+
+  public int getBudgetBurst() {
+    return budgetBurst;
+  }
+
+  public void setBudgetBurst(int budgetBurst) {
+    this.budgetBurst = budgetBurst;
+  }
+
+  public List<Integer> getRetryableStatuses() {
+    return retryableStatuses;
+  }
+
+  public void setRetryableStatuses(List<Integer> retryableStatuses) {
+    this.retryableStatuses = retryableStatuses;
+  }
+
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  public void setPolicy(Policy policy) {
+    this.policy = policy;
+  }
+
+  public Map<String, Policy> getProviders() {
+    return providers;
+  }
+
+  public void setProviders(Map<String, Policy> providers) {
+    this.providers = providers;
+  }
+
+  public static class Policy {
+
+    /**
+     * 最多调用次数（含首次），1 表示不重试。
+     */
+    private Integer maxAttempts;
+
+    /**
+     * 第一次重试的退避上限，之后每次翻倍。
+     */
+    private Duration initialBackoff;
+
+    /**
+     * 退避上限。
+     */
+    private Duration maxBackoff;
+
+    /**
+     * Retry-After 超过该值时不再重试，直接返回错误。
+     */
+    private Duration maxRetryAfter;
+
+    static Policy defaults() {
+      Policy policy = new Policy();
+      policy.setMaxAttempts(3);
+      policy.setInitialBackoff(Duration.ofMillis(500));
+      policy.setMaxBackoff(Duration.ofSeconds(8));
+      policy.setMaxRetryAfter(Duration.ofSeconds(20));
+      return policy;
+    }
+
+    public Integer getMaxAttempts() {
+      return maxAttempts;
+    }
+
+    public void setMaxAttempts(Integer maxAttempts) {
+      this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+      return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+      this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+      return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+      this.maxBackoff = maxBackoff;
+    }
+
+    public Duration getMaxRetryAfter() {
+      return maxRetryAfter;
+    }
+
+    public void setMaxRetryAfter(Duration maxRetryAfter) {
+      this.maxRetryAfter = maxRetryAfter;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 模型自修复配置（app.ai.self-repair）。
+ *
+ * <p>本地修复后仍未通过校验时，把内容与错误列表发给模型修复，最多 maxAttempts 轮，总耗时不超过 deadline。
+ */
+@ConfigurationProperties(prefix = "app.ai.self-repair")
+public class SelfRepairProperties {
+
+  /**
+   * 是否启用模型自修复（会额外调用模型）。
+   */
+  private boolean enabled = false;
+
+  /**
+   * 最多修复轮数。
+   */
+  private int maxAttempts = 2;
+
+  /**
+   * 所有修复轮次的总时限，超时返回已有的最好结果。
+   */
+  private Duration deadline = Duration.ofSeconds(90);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public Duration getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline(Duration deadline) {
+    this.deadline = deadline;
+  }
+}
@@ -0,0 +1,50 @@
+package com.easydraw.backend.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 慢请求采样配置（app.diagnostics.slow-request）。
+ */
+@ConfigurationProperties(prefix = "app.diagnostics.slow-request")
+public class SlowRequestProperties {
+
+  /**
+   * 是否输出慢请求的阶段耗时分布（JFR 事件不受此开关影响）。
+   */
+  private boolean enabled = true;
+
+  /**
+   * 总耗时超过该值的请求视为慢请求。
+   */
+  private Duration threshold = Duration.ofSeconds(30);
+
+  /**
+   * 每分钟最多输出的慢请求日志条数，超出部分只计数。
+   */
+  private int maxLogsPerMinute = 20;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getThreshold() {
+    return threshold;
+  }
+
+  public void setThreshold(Duration threshold) {
+    this.threshold = threshold;
+  }
+
+  public int getMaxLogsPerMinute() {
+    return maxLogsPerMinute;
+  }
+
+  public void setMaxLogsPerMinute(int maxLogsPerMinute) {
+    this.maxLogsPerMinute = maxLogsPerMinute;
+  }
+}
@@ -0,0 +1,36 @@
+package com.easydraw.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 样式提示词配置（app.style-prompt）。
+ */
+@ConfigurationProperties(prefix = "app.style-prompt")
+public class StylePromptProperties {
+
+  /**
+   * 是否按用户指令只发送相关的属性章节；关闭时发送完整 STYLE_PROMPT。
+   */
+  private boolean retrievalEnabled = true;
+
+  /**
+   * 每次最多附带的相关章节数。
+   */
+  private int topK = 3;
+
+  public boolean isRetrievalEnabled() {
+    return retrievalEnabled;
+  }
+
+  public void setRetrievalEnabled(boolean retrievalEnabled) {
+    this.retrievalEnabled = retrievalEnabled;
+  }
+
+  public int getTopK() {
+    return topK;
+  }
+
+  public void setTopK(int topK) {
+    this.topK = topK;
+  }
+}
@@ -0,0 +1,94 @@
+package com.easydraw.backend.diagnostics;
+
+import com.easydraw.backend.config.MetricTagProperties;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.config.MeterFilterReply;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * 限制 model、endpoint 等标签的基数：这些取值来自请求参数，不加限制时每个新取值都会产生一组新的
+ * 时间序列，带直方图的计时器每组还有几十个桶。
+ *
+ * <p>每个标签先出现的 maxValues 个取值原样保留，之后的新取值改写为 {@value #OTHER}；other 不发布
+ * 直方图，按端点注册的 gauge 超出上限时不再注册（多个端点合并成一个 gauge 没有意义）。
+ */
+@Component
+public class BoundedTagMeterFilter implements MeterFilter {
+
+  public static final String OTHER = "other";
+
+  private final Set<String> keys;
+  private final int maxValues;
+  private final Map<String, Set<String>> admitted = new ConcurrentHashMap<>();
+
+  public BoundedTagMeterFilter(MetricTagProperties properties) {
+    this.keys = Set.copyOf(properties.getKeys());
+    this.maxValues = properties.getMaxValues();
+  }
+
+  @Override
+  public Meter.Id map(Meter.Id id) {
+    List<Tag> tags = null;
+    int index = 0;
+    for (Tag tag : id.getTagsAsIterable()) {
+      if (keys.contains(tag.getKey()) && !admit(tag.getKey(), tag.getValue())) {
+        if (tags == null) {
+          tags = new ArrayList<>(id.getTags());
+        }
+        tags.set(index, Tag.of(tag.getKey(), OTHER));
+      }
+      index++;
+    }
+    return tags == null ? id : id.replaceTags(tags);
+  }
+
+  @Override
+  public MeterFilterReply accept(Meter.Id id) {
+    if (id.getType() == Meter.Type.GAUGE && isOverflow(id)) {
+      return MeterFilterReply.DENY;
+    }
+    return MeterFilterReply.NEUTRAL;
+  }
+
+  @Override
+  public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+    if (!isOverflow(id)) {
+      return config;
+    }
+    return DistributionStatisticConfig.builder()
+        .percentilesHistogram(false)
+        .build()
+        .merge(config);
+  }
+
+  private boolean isOverflow(Meter.Id id) {
+    for (String key : keys) {
+      if (OTHER.equals(id.getTag(key))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean admit(String key, String value) {
+    Set<String> values = admitted.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+    if (values.contains(value)) {
+      return true;
+    }
+    synchronized (values) {
+      if (values.size() >= maxValues) {
+        return false;
+      }
+      values.add(value);
+      return true;
+    }
+  }
+}
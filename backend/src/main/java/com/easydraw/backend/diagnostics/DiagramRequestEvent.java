@@ -0,0 +1,37 @@
+package com.easydraw.backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 整个请求的 JFR 事件，与同一 requestId 的 {@link DiagramStageEvent} 组合即可看到耗时分布。
+ */
+@Name("com.easydraw.DiagramRequest")
+@Label("Diagram Request")
+@Category({"Easy Draw", "Requests"})
+@Description("图表/样式请求的总耗时与结果")
+@StackTrace(false)
+final class DiagramRequestEvent extends Event {
+
+  @Label("Request Id")
+  String requestId;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Provider")
+  String provider;
+
+  @Label("Model")
+  String model;
+
+  @Label("Outcome")
+  String outcome;
+
+  @Label("Stage Count")
+  int stageCount;
+}
@@ -0,0 +1,40 @@
+package com.easydraw.backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 请求中单个处理阶段（模型调用、去围栏、清洗、修复、校验、解析等）的 JFR 事件；大小为字符数。
+ */
+@Name("com.easydraw.DiagramStage")
+@Label("Diagram Stage")
+@Category({"Easy Draw", "Requests"})
+@Description("单个处理阶段的耗时与输入输出大小")
+@StackTrace(false)
+final class DiagramStageEvent extends Event {
+
+  @Label("Request Id")
+  String requestId;
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Stage")
+  String stage;
+
+  @Label("Provider")
+  String provider;
+
+  @Label("Model")
+  String model;
+
+  @Label("Input Size")
+  int inputSize;
+
+  @Label("Output Size")
+  int outputSize;
+}
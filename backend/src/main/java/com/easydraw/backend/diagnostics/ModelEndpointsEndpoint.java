@@ -0,0 +1,27 @@
+package com.easydraw.backend.diagnostics;
+
+import com.easydraw.backend.ai.ModelEndpointFailover;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * actuator 端点 /actuator/modelendpoints：列出近期使用过的模型端点及其熔断状态。
+ */
+@Component
+@Endpoint(id = "modelendpoints")
+public class ModelEndpointsEndpoint {
+
+  private final ModelEndpointFailover failover;
+
+  public ModelEndpointsEndpoint(ModelEndpointFailover failover) {
+    this.failover = failover;
+  }
+
+  @ReadOperation
+  public List<Map<String, Object>> endpoints() {
+    return failover.snapshot();
+  }
+}
@@ -0,0 +1,91 @@
+package com.easydraw.backend.diagnostics;
+
+import com.easydraw.backend.config.SlowRequestProperties;
+import com.easydraw.backend.diagnostics.StageTrace.StageRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 慢请求采样：请求结束时提交 JFR 请求事件，总耗时超过阈值时输出各阶段的耗时与输入输出大小。
+ *
+ * <p>日志只包含 requestId、提供方、模型与大小，不含提示词、模型输出或密钥；每分钟最多输出
+ * maxLogsPerMinute 条，超过阈值的请求都计入 diagnostics.slow.requests 指标。
+ */
+@Component
+public class SlowRequestSampler {
+
+  private static final Logger log = LoggerFactory.getLogger(SlowRequestSampler.class);
+  private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final SlowRequestProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+  private final AtomicInteger logged = new AtomicInteger();
+
+  public SlowRequestSampler(SlowRequestProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * 结束一个请求；重复调用（如完成后又收到取消）只处理第一次。
+   */
+  public void finish(StageTrace trace, String outcome) {
+    if (!trace.commit(outcome)) {
+      return;
+    }
+    Duration elapsed = trace.elapsed();
+    if (!properties.isEnabled() || elapsed.compareTo(properties.getThreshold()) < 0) {
+      return;
+    }
+    meterRegistry.counter("diagnostics.slow.requests", "operation", trace.operation()).increment();
+    if (!tryAcquireLog()) {
+      return;
+    }
+    log.warn(
+        "慢请求 requestId={}, operation={}, provider={}, model={}, outcome={}, total={}ms, "
+            + "stages=[{}]",
+        trace.requestId(),
+        trace.operation(),
+        trace.provider(),
+        trace.model(),
+        outcome,
+        elapsed.toMillis(),
+        describe(trace));
+  }
+
+  private boolean tryAcquireLog() {
+    long now = System.nanoTime();
+    long start = windowStart.get();
+    if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+      logged.set(0);
+    }
+    return logged.incrementAndGet() <= properties.getMaxLogsPerMinute();
+  }
+
+  /**
+   * 形如 {@code model 8123ms 512->2048, sanitize 2ms 2048->1990}，失败的阶段输出大小记为 failed。
+   */
+  private static String describe(StageTrace trace) {
+    StringBuilder sb = new StringBuilder();
+    for (StageRecord stage : trace.stages()) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(stage.stage())
+          .append(' ')
+          .append(TimeUnit.NANOSECONDS.toMillis(stage.nanos()))
+          .append("ms ")
+          .append(stage.inputSize())
+          .append("->")
+          .append(stage.outputSize() == StageTrace.FAILED ? "failed" : stage.outputSize());
+    }
+    return sb.toString();
+  }
+}
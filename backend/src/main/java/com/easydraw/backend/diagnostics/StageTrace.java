@@ -0,0 +1,187 @@
+package com.easydraw.backend.diagnostics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * 单个请求的阶段记录：每个阶段结束时提交一个 {@link DiagramStageEvent}，同时保留阶段名、输入输出大小与
+ * 耗时，供 {@link SlowRequestSampler} 在请求变慢时输出耗时分布。
+ *
+ * <p>只记录大小，不保存提示词、模型输出或密钥。阶段可能在不同线程上结束（响应式调用、对冲），记录用并发
+ * 队列保存。{@link #NONE} 不记录任何内容，用于对冲判定等不属于请求主流程的调用。
+ */
+public final class StageTrace {
+
+  /** 不记录的空实现 */
+  public static final StageTrace NONE = new StageTrace(null, null, null, false);
+
+  /** 阶段失败或被取消时的输出大小 */
+  public static final int FAILED = -1;
+
+  private final String requestId;
+  private final String operation;
+  private final String provider;
+  private final String model;
+  private final boolean enabled;
+  private final long startNanos = System.nanoTime();
+  private final DiagramRequestEvent event = new DiagramRequestEvent();
+  private final Queue<StageRecord> stages = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean finished = new AtomicBoolean();
+
+  private StageTrace(String operation, String provider, String model, boolean enabled) {
+    this.requestId = enabled ? UUID.randomUUID().toString() : null;
+    this.operation = operation;
+    this.provider = provider;
+    this.model = model;
+    this.enabled = enabled;
+    if (enabled) {
+      event.begin();
+    }
+  }
+
+  public static StageTrace start(String operation, String provider, String model) {
+    return new StageTrace(operation, provider, model, true);
+  }
+
+  /**
+   * 一个阶段的记录。
+   *
+   * @param stage 阶段名
+   * @param inputSize 输入字符数
+   * @param outputSize 输出字符数，失败或取消时为 {@link #FAILED}
+   * @param nanos 耗时
+   */
+  public record StageRecord(String stage, int inputSize, int outputSize, long nanos) {}
+
+  public Stage begin(String stage, int inputSize) {
+    return new Stage(stage, inputSize);
+  }
+
+  public <T> T time(
+      String stage, int inputSize, Supplier<T> call, ToIntFunction<? super T> outputSize) {
+    Stage s = begin(stage, inputSize);
+    T value;
+    try {
+      value = call.get();
+    } catch (RuntimeException e) {
+      s.end(FAILED);
+      throw e;
+    }
+    s.end(outputSize.applyAsInt(value));
+    return value;
+  }
+
+  /**
+   * 订阅时开始，产生结果、出错或取消时结束。
+   */
+  public <T> Mono<T> time(
+      String stage, int inputSize, Mono<T> call, ToIntFunction<? super T> outputSize) {
+    if (!enabled) {
+      return call;
+    }
+    return Mono.defer(
+        () -> {
+          Stage s = begin(stage, inputSize);
+          return call.doOnNext(value -> s.end(outputSize.applyAsInt(value)))
+              .doOnError(e -> s.end(FAILED))
+              .doOnCancel(() -> s.end(FAILED));
+        });
+  }
+
+  public String requestId() {
+    return requestId;
+  }
+
+  public String operation() {
+    return operation;
+  }
+
+  public String provider() {
+    return provider;
+  }
+
+  public String model() {
+    return model;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public List<StageRecord> stages() {
+    return List.copyOf(stages);
+  }
+
+  public Duration elapsed() {
+    return Duration.ofNanos(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * 提交请求事件，只有第一次调用返回 true；由 {@link SlowRequestSampler#finish} 调用。
+   */
+  boolean commit(String outcome) {
+    if (!enabled || !finished.compareAndSet(false, true)) {
+      return false;
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.requestId = requestId;
+      event.operation = operation;
+      event.provider = provider;
+      event.model = model;
+      event.outcome = outcome;
+      event.stageCount = stages.size();
+      event.commit();
+    }
+    return true;
+  }
+
+  public static int sizeOf(String text) {
+    return text == null ? 0 : text.length();
+  }
+
+  /**
+   * 进行中的阶段；重复调用 {@link #end} 只记录第一次。
+   */
+  public final class Stage {
+    private final String stage;
+    private final int inputSize;
+    private final long startNanos = System.nanoTime();
+    private final DiagramStageEvent stageEvent;
+    private final AtomicBoolean ended = new AtomicBoolean();
+
+    private Stage(String stage, int inputSize) {
+      this.stage = stage;
+      this.inputSize = inputSize;
+      this.stageEvent = enabled ? new DiagramStageEvent() : null;
+      if (stageEvent != null) {
+        stageEvent.begin();
+      }
+    }
+
+    public void end(int outputSize) {
+      if (stageEvent == null || !ended.compareAndSet(false, true)) {
+        return;
+      }
+      stages.add(new StageRecord(stage, inputSize, outputSize, System.nanoTime() - startNanos));
+      stageEvent.end();
+      if (stageEvent.shouldCommit()) {
+        stageEvent.requestId = requestId;
+        stageEvent.operation = operation;
+        stageEvent.stage = stage;
+        stageEvent.provider = provider;
+        stageEvent.model = model;
+        stageEvent.inputSize = inputSize;
+        stageEvent.outputSize = outputSize;
+        stageEvent.commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.easydraw.backend.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * 虚拟线程钉住（pinning）诊断。
+ *
+ * <p>虚拟线程在 synchronized 块或本地方法中阻塞时无法让出载体线程，并发能力会退化成平台线程。这里用
+ * JFR 事件流订阅 jdk.VirtualThreadPinned，超过阈值的钉住记录到 jvm.threads.virtual.pinned 计时器，
+ * 并打印栈顶帧便于定位。仅在开启虚拟线程时生效。
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final Duration THRESHOLD = Duration.ofMillis(20);
+  private static final int MAX_FRAMES = 12;
+
+  private final Timer pinned;
+  private volatile RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+    this.pinned =
+        Timer.builder("jvm.threads.virtual.pinned")
+            .description("虚拟线程被钉住在载体线程上的时长")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    RecordingStream rs = new RecordingStream();
+    rs.enable(PINNED_EVENT).withThreshold(THRESHOLD).withStackTrace();
+    rs.onEvent(PINNED_EVENT, this::onPinned);
+    rs.startAsync();
+    this.stream = rs;
+    log.info("虚拟线程钉住诊断已开启, threshold={}ms", THRESHOLD.toMillis());
+  }
+
+  @Override
+  public void stop() {
+    RecordingStream rs = stream;
+    stream = null;
+    if (rs != null) {
+      rs.close();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.record(event.getDuration());
+    log.warn(
+        "虚拟线程被钉住 {}ms, thread={}\n{}",
+        event.getDuration().toMillis(),
+        event.getThread() == null ? "-" : event.getThread().getJavaName(),
+        topFrames(event.getStackTrace()));
+  }
+
+  private static String topFrames(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return "  (无栈信息)";
+    }
+    List<RecordedFrame> frames = stackTrace.getFrames();
+    return frames.stream()
+        .limit(MAX_FRAMES)
+        .map(
+            f ->
+                "  at "
+                    + f.getMethod().getType().getName()
+                    + "."
+                    + f.getMethod().getName()
+                    + ":"
+                    + f.getLineNumber())
+        .collect(Collectors.joining("\n"));
+  }
+}
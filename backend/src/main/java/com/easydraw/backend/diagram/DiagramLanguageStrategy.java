@@ -2,12 +2,69 @@ package com.easydraw.backend.diagram;
 
 import com.easydraw.backend.dto.DiagramError;
 import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface DiagramLanguageStrategy {
   DiagramLanguage language();
 
   String generate(DiagramGenerationInput input);
 
+  /**
+   * 非阻塞生成，与 {@link #generate} 结果一致；取消订阅会中止模型调用。
+   */
+  Mono<String> generateReactive(DiagramGenerationInput input);
+
+  /**
+   * 流式生成，按模型返回的片段依次发出（片段不保证按行切分）。
+   */
+  Flux<String> stream(DiagramGenerationInput input);
+
   List<DiagramError> validate(String content, DiagramGenerationInput input);
-}
 
+  /**
+   * 按校验错误让模型修复已生成的内容，提示词见 {@link DiagramRepairPrompt}。
+   */
+  Mono<String> repair(DiagramGenerationInput input, String content, List<DiagramError> errors);
+
+  /**
+   * 按 input 中的提示词修改已有内容，返回模型输出的修改指令（格式由具体语言决定）。
+   */
+  default String edit(DiagramGenerationInput input, String content) {
+    throw new IllegalStateException("该绘图语言不支持增量修改: " + language().getCode());
+  }
+
+  /**
+   * 流式生成时对已完整的单行做局部校验，默认不校验。
+   */
+  default List<DiagramError> validateLine(String line, int lineNumber) {
+    return List.of();
+  }
+
+  /**
+   * 流式生成时对单行做清洗，返回可输出的行；默认不清洗，只跳过围栏行。
+   */
+  default LineSanitizer newLineSanitizer() {
+    return new LineSanitizer() {
+      @Override
+      public List<String> accept(String rawLine) {
+        String line = rawLine == null ? "" : rawLine.stripTrailing();
+        return line.trim().startsWith("```") ? List.of() : List.of(line);
+      }
+
+      @Override
+      public List<String> finish() {
+        return List.of();
+      }
+    };
+  }
+
+  /**
+   * 流式逐行清洗器，每个流一个实例。
+   */
+  interface LineSanitizer {
+    List<String> accept(String rawLine);
+
+    List<String> finish();
+  }
+}
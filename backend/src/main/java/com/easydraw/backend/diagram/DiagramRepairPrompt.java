@@ -0,0 +1,31 @@
+package com.easydraw.backend.diagram;
+
+import com.easydraw.backend.dto.DiagramError;
+import java.util.List;
+
+/**
+ * 模型修复提示词：只包含未通过校验的内容与错误列表，不重发业务描述，控制修复调用的 token 开销。
+ */
+public final class DiagramRepairPrompt {
+
+  private DiagramRepairPrompt() {}
+
+  public static String systemPrompt(DiagramLanguage language) {
+    String name = language == DiagramLanguage.PLANTUML ? "PlantUML" : "Mermaid";
+    return "你是 " + name + " 语法修复助手，只输出修复后的完整 " + name + " 代码，不要额外文字。";
+  }
+
+  public static String userPrompt(
+      DiagramLanguage language, String content, List<DiagramError> errors) {
+    StringBuilder sb = new StringBuilder(content.length() + 256);
+    sb.append("下面的 ")
+        .append(language.getCode())
+        .append(" 代码未通过校验，请只修复列出的问题，尽量少改动，保持节点、连线与文字含义不变。\n");
+    sb.append("校验错误：\n");
+    for (DiagramError error : errors) {
+      sb.append("- ").append(error.getCode()).append(": ").append(error.getMessage()).append('\n');
+    }
+    sb.append("代码：\n").append(content);
+    return sb.toString();
+  }
+}
@@ -0,0 +1,45 @@
+package com.easydraw.backend.diagram;
+
+import com.easydraw.backend.ai.BaseUrls;
+import com.easydraw.backend.dto.ModelConfig;
+import com.easydraw.backend.util.Digests;
+import java.util.Locale;
+
+/**
+ * 生成请求的规范化标识：语言、图类型、提示词、模型参数、baseUrl 与 apiKey 摘要相同即视为同一请求。
+ *
+ * <p>带上 apiKey 摘要，在途合并与结果缓存都不会把用一个调用方凭据得到的结果交给另一个调用方。
+ *
+ * <p>提示词只折叠空白，不改变大小写与标点，避免语义不同的请求被合并。
+ */
+public final class DiagramRequestKey {
+
+  private DiagramRequestKey() {}
+
+  public static String of(DiagramGenerationInput input) {
+    ModelConfig config = input.getModelConfig();
+    StringBuilder sb = new StringBuilder(256);
+    sb.append(input.getLanguage().getCode()).append('\u0000');
+    sb.append(lower(input.getDiagramType())).append('\u0000');
+    sb.append(collapseWhitespace(input.getPrompt())).append('\u0000');
+    if (config != null) {
+      sb.append(lower(config.getModel())).append('\u0000');
+      sb.append(config.getTemperature()).append('\u0000');
+      sb.append(config.getMaxTokens()).append('\u0000');
+      sb.append(Digests.sha256Hex(BaseUrls.normalize(config.getBaseUrl()).toLowerCase(Locale.ROOT)));
+      sb.append('\u0000').append(Digests.sha256Hex(config.getApiKey()));
+    }
+    return Digests.sha256Hex(sb.toString());
+  }
+
+  private static String lower(String value) {
+    return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static String collapseWhitespace(String value) {
+    if (value == null) {
+      return "";
+    }
+    return value.trim().replaceAll("\\s+", " ");
+  }
+}
@@ -0,0 +1,76 @@
+package com.easydraw.backend.diagram;
+
+import com.easydraw.backend.dto.DiagramError;
+import com.easydraw.backend.dto.DiagramStreamEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将模型的增量片段拼成完整行，逐行清洗与校验并转换为流式事件。
+ *
+ * <p>同时保留完整原文，流结束后交给整体清洗与校验生成最终结果。非线程安全，每个流一个实例。
+ */
+public class DiagramStreamAssembler {
+
+  private final DiagramLanguageStrategy strategy;
+  private final DiagramLanguageStrategy.LineSanitizer sanitizer;
+  private final StringBuilder raw = new StringBuilder();
+  private final StringBuilder pending = new StringBuilder();
+  private int lineNumber;
+
+  public DiagramStreamAssembler(DiagramLanguageStrategy strategy) {
+    this.strategy = strategy;
+    this.sanitizer = strategy.newLineSanitizer();
+  }
+
+  public List<DiagramStreamEvent> onChunk(String chunk) {
+    List<DiagramStreamEvent> events = new ArrayList<>();
+    if (chunk == null || chunk.isEmpty()) {
+      return events;
+    }
+    raw.append(chunk);
+    for (int i = 0; i < chunk.length(); i++) {
+      char c = chunk.charAt(i);
+      if (c == '\n') {
+        emit(sanitizer.accept(takeLine()), events);
+      } else {
+        pending.append(c);
+      }
+    }
+    return events;
+  }
+
+  public List<DiagramStreamEvent> onComplete() {
+    List<DiagramStreamEvent> events = new ArrayList<>();
+    if (pending.length() > 0) {
+      emit(sanitizer.accept(takeLine()), events);
+    }
+    emit(sanitizer.finish(), events);
+    return events;
+  }
+
+  public String raw() {
+    return raw.toString();
+  }
+
+  private String takeLine() {
+    int end = pending.length();
+    if (end > 0 && pending.charAt(end - 1) == '\r') {
+      end--;
+    }
+    String line = pending.substring(0, end);
+    pending.setLength(0);
+    return line;
+  }
+
+  private void emit(List<String> lines, List<DiagramStreamEvent> events) {
+    for (String line : lines) {
+      lineNumber++;
+      events.add(DiagramStreamEvent.line(lineNumber, line));
+      List<DiagramError> errors = strategy.validateLine(line, lineNumber);
+      if (!errors.isEmpty()) {
+        events.add(DiagramStreamEvent.warning(lineNumber, errors));
+      }
+    }
+  }
+}
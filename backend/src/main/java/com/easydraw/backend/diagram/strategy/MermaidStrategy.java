@@ -1,22 +1,31 @@
 package com.easydraw.backend.diagram.strategy;
 
 import com.easydraw.backend.ai.AiClient;
+import com.easydraw.backend.ai.ReactiveAiClient;
 import com.easydraw.backend.diagram.DiagramGenerationInput;
 import com.easydraw.backend.diagram.DiagramLanguage;
 import com.easydraw.backend.diagram.DiagramLanguageStrategy;
+import com.easydraw.backend.diagram.DiagramRepairPrompt;
 import com.easydraw.backend.dto.DiagramError;
+import com.easydraw.backend.mermaid.MermaidEditPrompt;
+import com.easydraw.backend.mermaid.MermaidStreamSanitizer;
 import com.easydraw.backend.mermaid.MermaidValidator;
 import java.util.List;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 public class MermaidStrategy implements DiagramLanguageStrategy {
 
   private final AiClient aiClient;
+  private final ReactiveAiClient reactiveAiClient;
   private final MermaidValidator mermaidValidator;
 
-  public MermaidStrategy(AiClient aiClient, MermaidValidator mermaidValidator) {
+  public MermaidStrategy(
+      AiClient aiClient, ReactiveAiClient reactiveAiClient, MermaidValidator mermaidValidator) {
     this.aiClient = aiClient;
+    this.reactiveAiClient = reactiveAiClient;
     this.mermaidValidator = mermaidValidator;
   }
 
@@ -31,8 +40,47 @@ public class MermaidStrategy implements DiagramLanguageStrategy {
         input.getLanguage(), input.getDiagramType(), input.getPrompt(), input.getModelConfig());
   }
 
+  @Override
+  public Mono<String> generateReactive(DiagramGenerationInput input) {
+    return reactiveAiClient.generate(
+        input.getLanguage(), input.getDiagramType(), input.getPrompt(), input.getModelConfig());
+  }
+
+  @Override
+  public Flux<String> stream(DiagramGenerationInput input) {
+    return aiClient.stream(
+        input.getLanguage(), input.getDiagramType(), input.getPrompt(), input.getModelConfig());
+  }
+
   @Override
   public List<DiagramError> validate(String content, DiagramGenerationInput input) {
     return mermaidValidator.validate(content, input.getDiagramType());
   }
+
+  @Override
+  public Mono<String> repair(
+      DiagramGenerationInput input, String content, List<DiagramError> errors) {
+    return reactiveAiClient.generateWithSystemPrompt(
+        DiagramRepairPrompt.systemPrompt(input.getLanguage()),
+        DiagramRepairPrompt.userPrompt(input.getLanguage(), content, errors),
+        input.getModelConfig());
+  }
+
+  @Override
+  public String edit(DiagramGenerationInput input, String content) {
+    return aiClient.generateWithSystemPrompt(
+        MermaidEditPrompt.systemPrompt(),
+        MermaidEditPrompt.userPrompt(content, input.getPrompt()),
+        input.getModelConfig());
+  }
+
+  @Override
+  public List<DiagramError> validateLine(String line, int lineNumber) {
+    return mermaidValidator.validateLine(line, lineNumber);
+  }
+
+  @Override
+  public LineSanitizer newLineSanitizer() {
+    return new MermaidStreamSanitizer();
+  }
 }
@@ -1,22 +1,31 @@
 package com.easydraw.backend.diagram.strategy;
 
 import com.easydraw.backend.ai.AiClient;
+import com.easydraw.backend.ai.ReactiveAiClient;
 import com.easydraw.backend.diagram.DiagramGenerationInput;
 import com.easydraw.backend.diagram.DiagramLanguage;
 import com.easydraw.backend.diagram.DiagramLanguageStrategy;
+import com.easydraw.backend.diagram.DiagramRepairPrompt;
 import com.easydraw.backend.dto.DiagramError;
 import com.easydraw.backend.plantuml.PlantUmlValidator;
 import java.util.List;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Component
 public class PlantUmlStrategy implements DiagramLanguageStrategy {
 
   private final AiClient aiClient;
+  private final ReactiveAiClient reactiveAiClient;
   private final PlantUmlValidator plantUmlValidator;
 
-  public PlantUmlStrategy(AiClient aiClient, PlantUmlValidator plantUmlValidator) {
+  public PlantUmlStrategy(
+      AiClient aiClient,
+      ReactiveAiClient reactiveAiClient,
+      PlantUmlValidator plantUmlValidator) {
     this.aiClient = aiClient;
+    this.reactiveAiClient = reactiveAiClient;
     this.plantUmlValidator = plantUmlValidator;
   }
 
@@ -31,8 +40,29 @@ public class PlantUmlStrategy implements DiagramLanguageStrategy {
         input.getLanguage(), input.getDiagramType(), input.getPrompt(), input.getModelConfig());
   }
 
+  @Override
+  public Mono<String> generateReactive(DiagramGenerationInput input) {
+    return reactiveAiClient.generate(
+        input.getLanguage(), input.getDiagramType(), input.getPrompt(), input.getModelConfig());
+  }
+
+  @Override
+  public Flux<String> stream(DiagramGenerationInput input) {
+    return aiClient.stream(
+        input.getLanguage(), input.getDiagramType(), input.getPrompt(), input.getModelConfig());
+  }
+
   @Override
   public List<DiagramError> validate(String content, DiagramGenerationInput input) {
     return plantUmlValidator.validate(content);
   }
+
+  @Override
+  public Mono<String> repair(
+      DiagramGenerationInput input, String content, List<DiagramError> errors) {
+    return reactiveAiClient.generateWithSystemPrompt(
+        DiagramRepairPrompt.systemPrompt(input.getLanguage()),
+        DiagramRepairPrompt.userPrompt(input.getLanguage(), content, errors),
+        input.getModelConfig());
+  }
 }
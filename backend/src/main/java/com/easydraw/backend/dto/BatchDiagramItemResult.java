@@ -0,0 +1,74 @@
+package com.easydraw.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 批量生成中单项的结果，按完成顺序输出；index 为该项在请求 items 中的下标。成功时带 result，失败时带
+ * message（模型端点繁忙时另带 reason）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchDiagramItemResult {
+
+  private int index;
+  private boolean success;
+  private GenerateDiagramResponse result;
+  private String message;
+  private String reason;
+
+  public static BatchDiagramItemResult ok(int index, GenerateDiagramResponse result) {
+    BatchDiagramItemResult r = new BatchDiagramItemResult();
+    r.setIndex(index);
+    r.setSuccess(true);
+    r.setResult(result);
+    return r;
+  }
+
+  public static BatchDiagramItemResult fail(int index, String message, String reason) {
+    BatchDiagramItemResult r = new BatchDiagramItemResult();
+    r.setIndex(index);
+    r.setSuccess(false);
+    r.setMessage(message);
+    r.setReason(reason);
+    return r;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  public void setSuccess(boolean success) {
+    this.success = success;
+  }
+
+  public GenerateDiagramResponse getResult() {
+    return result;
+  }
+
+  public void setResult(GenerateDiagramResponse result) {
+    this.result = result;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  public void setReason(String reason) {
+    this.reason = reason;
+  }
+}
@@ -0,0 +1,23 @@
+package com.easydraw.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public class BatchDiagramRequest {
+
+  /**
+   * 待生成的图表，每项与 /api/ai/diagram 的入参相同；数量上限见 app.ai.batch.max-items
+   */
+  @NotEmpty
+  @Valid
+  private List<GenerateDiagramRequest> items;
+
+  public List<GenerateDiagramRequest> getItems() {
+    return items;
+  }
+
+  public void setItems(List<GenerateDiagramRequest> items) {
+    this.items = items;
+  }
+}
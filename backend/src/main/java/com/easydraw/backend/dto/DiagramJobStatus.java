@@ -0,0 +1,96 @@
+package com.easydraw.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+
+/**
+ * 异步生成任务状态：QUEUED（排队）→ RUNNING（生成中）→ SUCCEEDED（带 result）/ FAILED（带 message，
+ * 模型端点繁忙时另带 reason）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DiagramJobStatus {
+
+  public enum State {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isTerminal() {
+      return this == SUCCEEDED || this == FAILED;
+    }
+  }
+
+  private String jobId;
+  private State status;
+  private Instant createdAt;
+  private Instant updatedAt;
+  private GenerateDiagramResponse result;
+  private String message;
+  private String reason;
+
+  public static DiagramJobStatus of(String jobId, State status, Instant createdAt) {
+    DiagramJobStatus s = new DiagramJobStatus();
+    s.setJobId(jobId);
+    s.setStatus(status);
+    s.setCreatedAt(createdAt);
+    s.setUpdatedAt(Instant.now());
+    return s;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public void setJobId(String jobId) {
+    this.jobId = jobId;
+  }
+
+  public State getStatus() {
+    return status;
+  }
+
+  public void setStatus(State status) {
+    this.status = status;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+
+  public GenerateDiagramResponse getResult() {
+    return result;
+  }
+
+  public void setResult(GenerateDiagramResponse result) {
+    this.result = result;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  public void setReason(String reason) {
+    this.reason = reason;
+  }
+}
@@ -0,0 +1,43 @@
+package com.easydraw.backend.dto;
+
+/**
+ * 本地自动修复记录：修复类型、所在行（修复后内容中的行号，从 1 开始；作用于全文时为 0）与说明。
+ */
+public class DiagramRepair {
+
+  private String code;
+  private int line;
+  private String message;
+
+  public static DiagramRepair of(String code, int line, String message) {
+    DiagramRepair r = new DiagramRepair();
+    r.setCode(code);
+    r.setLine(line);
+    r.setMessage(message);
+    return r;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  public void setLine(int line) {
+    this.line = line;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
@@ -0,0 +1,101 @@
+package com.easydraw.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * 流式生成事件：line（已清洗的一行）、warning（单行校验问题）、done（最终结果）、error（异常）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DiagramStreamEvent {
+
+  public static final String LINE = "line";
+  public static final String WARNING = "warning";
+  public static final String DONE = "done";
+  public static final String ERROR = "error";
+
+  private String type;
+  private Integer lineNumber;
+  private String line;
+  private List<DiagramError> errors;
+  private GenerateDiagramResponse result;
+  private String message;
+
+  public static DiagramStreamEvent line(int lineNumber, String line) {
+    DiagramStreamEvent e = new DiagramStreamEvent();
+    e.setType(LINE);
+    e.setLineNumber(lineNumber);
+    e.setLine(line);
+    return e;
+  }
+
+  public static DiagramStreamEvent warning(int lineNumber, List<DiagramError> errors) {
+    DiagramStreamEvent e = new DiagramStreamEvent();
+    e.setType(WARNING);
+    e.setLineNumber(lineNumber);
+    e.setErrors(errors);
+    return e;
+  }
+
+  public static DiagramStreamEvent done(GenerateDiagramResponse result) {
+    DiagramStreamEvent e = new DiagramStreamEvent();
+    e.setType(DONE);
+    e.setResult(result);
+    return e;
+  }
+
+  public static DiagramStreamEvent error(String message) {
+    DiagramStreamEvent e = new DiagramStreamEvent();
+    e.setType(ERROR);
+    e.setMessage(message);
+    return e;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public Integer getLineNumber() {
+    return lineNumber;
+  }
+
+  public void setLineNumber(Integer lineNumber) {
+    this.lineNumber = lineNumber;
+  }
+
+  public String getLine() {
+    return line;
+  }
+
+  public void setLine(String line) {
+    this.line = line;
+  }
+
+  public List<DiagramError> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(List<DiagramError> errors) {
+    this.errors = errors;
+  }
+
+  public GenerateDiagramResponse getResult() {
+    return result;
+  }
+
+  public void setResult(GenerateDiagramResponse result) {
+    this.result = result;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
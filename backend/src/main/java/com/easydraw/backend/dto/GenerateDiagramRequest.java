@@ -29,6 +29,11 @@ public class GenerateDiagramRequest {
   @Valid
   private ModelConfig modelConfig;
 
+  /**
+   * 跳过结果缓存，强制重新调用模型（新结果仍会写入缓存）
+   */
+  private boolean bypassCache;
+
   public String getLanguage() {
     return language;
   }
@@ -60,6 +65,14 @@ public class GenerateDiagramRequest {
   public void setModelConfig(ModelConfig modelConfig) {
     this.modelConfig = modelConfig;
   }
+
+  public boolean isBypassCache() {
+    return bypassCache;
+  }
+
+  public void setBypassCache(boolean bypassCache) {
+    this.bypassCache = bypassCache;
+  }
 }
 
 
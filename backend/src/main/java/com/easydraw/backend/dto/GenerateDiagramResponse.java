@@ -9,6 +9,7 @@ public class GenerateDiagramResponse {
   private String content;
   private ValidationResult validation;
   private String explain;
+  private List<DiagramRepair> repairs = List.of();
 
   public static GenerateDiagramResponse of(
       String language,
@@ -65,6 +66,14 @@ public class GenerateDiagramResponse {
     this.explain = explain;
   }
 
+  public List<DiagramRepair> getRepairs() {
+    return repairs;
+  }
+
+  public void setRepairs(List<DiagramRepair> repairs) {
+    this.repairs = repairs == null ? List.of() : repairs;
+  }
+
   public static class ValidationResult {
     private boolean valid;
     private List<DiagramError> errors;
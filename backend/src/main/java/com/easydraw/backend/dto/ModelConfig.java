@@ -1,6 +1,8 @@
 package com.easydraw.backend.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import java.util.List;
 
 public class ModelConfig {
 
@@ -15,6 +17,12 @@ public class ModelConfig {
   private Double temperature;
   private Integer maxTokens;
 
+  /**
+   * 按顺序尝试的备用端点：主端点失败或熔断时依次切换。
+   */
+  @Valid
+  private List<ModelEndpoint> fallbacks;
+
   public String getBaseUrl() {
     return baseUrl;
   }
@@ -62,4 +70,12 @@ public class ModelConfig {
   public void setMaxTokens(Integer maxTokens) {
     this.maxTokens = maxTokens;
   }
+
+  public List<ModelEndpoint> getFallbacks() {
+    return fallbacks;
+  }
+
+  public void setFallbacks(List<ModelEndpoint> fallbacks) {
+    this.fallbacks = fallbacks;
+  }
 }
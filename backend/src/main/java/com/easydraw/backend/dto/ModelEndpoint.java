@@ -0,0 +1,44 @@
+package com.easydraw.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * 备用模型端点，temperature / maxTokens 等参数沿用主配置。
+ */
+public class ModelEndpoint {
+
+  @NotBlank(message = "baseUrl is required")
+  private String baseUrl;
+
+  @NotBlank(message = "apiKey is required")
+  private String apiKey;
+
+  /**
+   * 为空时沿用主配置的 model。
+   */
+  private String model;
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  public void setBaseUrl(String baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+
+  public String getApiKey() {
+    return apiKey;
+  }
+
+  public void setApiKey(String apiKey) {
+    this.apiKey = apiKey;
+  }
+
+  public String getModel() {
+    return model;
+  }
+
+  public void setModel(String model) {
+    this.model = model;
+  }
+}
@@ -41,6 +41,21 @@ public class BasicMermaidValidator implements MermaidValidator {
     return errors;
   }
 
+  @Override
+  public List<DiagramError> validateLine(String line, int lineNumber) {
+    List<DiagramError> errors = new ArrayList<>();
+    if (line == null || line.isBlank() || line.trim().startsWith("%%")) {
+      return errors;
+    }
+    if (countChar(line, '[') != countChar(line, ']')) {
+      errors.add(DiagramError.of("BRACKET_MISMATCH", "第 " + lineNumber + " 行方括号数量不匹配"));
+    }
+    if (countChar(line, '(') != countChar(line, ')')) {
+      errors.add(DiagramError.of("PAREN_MISMATCH", "第 " + lineNumber + " 行圆括号数量不匹配"));
+    }
+    return errors;
+  }
+
   private boolean looksLikeMermaidHeader(String text) {
     String[] lines = text.split("\\R");
     for (String raw : lines) {
@@ -0,0 +1,28 @@
+package com.easydraw.backend.mermaid;
+
+/**
+ * 增量修改提示词：要求模型只输出 {@link MermaidPatch} 格式的改动，而不是整张图。
+ */
+public final class MermaidEditPrompt {
+
+  private MermaidEditPrompt() {}
+
+  public static String systemPrompt() {
+    return "你是 Mermaid 图表编辑助手，只输出修改指令，不要重复整张图，也不要额外文字。";
+  }
+
+  public static String userPrompt(String mermaid, String instruction) {
+    return """
+        按用户要求修改下面的 Mermaid 图，只输出需要改动的部分，每行一条指令：
+        + <语句>            新增节点或连线，例如：+ C --> E[归档]
+        - <语句>            删除与之相同的一行，例如：- A --> B
+        - <节点ID>          删除该节点及与它相连的连线，例如：- D
+        ~ <节点ID><新形状>  修改节点文字或形状，例如：~ C{是否通过}
+        沿用图中已有的节点 ID，新节点使用未出现过的 ID；不需要修改时只输出一行：%s
+        用户要求：%s
+        当前图：
+        %s
+        """
+        .formatted(MermaidPatch.NO_CHANGE, instruction, mermaid);
+  }
+}
@@ -0,0 +1,278 @@
+package com.easydraw.backend.mermaid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Mermaid 增量修改指令：模型只输出改动部分，由后端应用到原图上，输出 token 与改动大小成正比。
+ *
+ * <p>每行一条指令：
+ *
+ * <ul>
+ *   <li>{@code + 语句}：新增节点或连线（已存在相同的行时忽略）
+ *   <li>{@code - 语句}：删除与之相同的一行（忽略空白差异）
+ *   <li>{@code - 节点ID}：删除该节点的定义及引用它的连线、样式行
+ *   <li>{@code ~ 节点ID[新文本]}：修改节点文本或形状，图中没有该节点的定义时新增一行定义
+ * </ul>
+ *
+ * <p>不需要修改时模型只输出 {@link #NO_CHANGE}，解析为空指令列表；模型调用不允许返回空内容。
+ */
+public final class MermaidPatch {
+
+  /** 无需修改的标记行 */
+  public static final String NO_CHANGE = "无需修改";
+
+  private static final Pattern NODE_ID = Pattern.compile("^[A-Za-z0-9_]+$");
+  private static final Pattern NODE_DEFINITION = Pattern.compile("^[A-Za-z0-9_]+\\s*[\\[({].*");
+
+  private MermaidPatch() {}
+
+  public enum Op {
+    ADD,
+    REMOVE,
+    CHANGE
+  }
+
+  public record Instruction(Op op, String statement) {}
+
+  /**
+   * 解析结果：可识别的指令与无法识别的行数。
+   */
+  public record Parsed(List<Instruction> instructions, int unparsed) {}
+
+  /**
+   * 应用结果。
+   *
+   * @param content 修改后的内容
+   * @param applied 已应用的指令
+   * @param unmatched 找不到修改对象的指令
+   */
+  public record Result(String content, List<Instruction> applied, List<Instruction> unmatched) {}
+
+  /**
+   * 模型没有按指令格式输出、而是返回了完整图表（首个有效行是图表头）。
+   */
+  public static boolean isFullDiagram(String raw) {
+    List<String> lines = lines(raw);
+    return !lines.isEmpty() && MermaidSanitizer.normalizeHeader(lines.get(0)) != null;
+  }
+
+  public static Parsed parse(String raw) {
+    List<Instruction> instructions = new ArrayList<>();
+    int unparsed = 0;
+    for (String line : lines(raw)) {
+      if (line.startsWith(NO_CHANGE)) {
+        continue;
+      }
+      Op op =
+          switch (line.charAt(0)) {
+            case '+' -> Op.ADD;
+            case '-' -> Op.REMOVE;
+            case '~' -> Op.CHANGE;
+            default -> null;
+          };
+      String statement = line.substring(1).trim();
+      if (op == null
+          || statement.isEmpty()
+          || (op == Op.CHANGE && !NODE_DEFINITION.matcher(statement).matches())) {
+        unparsed++;
+        continue;
+      }
+      instructions.add(new Instruction(op, statement));
+    }
+    return new Parsed(List.copyOf(instructions), unparsed);
+  }
+
+  public static Result apply(String content, List<Instruction> instructions) {
+    List<String> lines = new ArrayList<>(List.of(content.replace("\r\n", "\n").split("\n", -1)));
+    while (!lines.isEmpty() && lines.get(lines.size() - 1).isBlank()) {
+      lines.remove(lines.size() - 1);
+    }
+    List<Instruction> applied = new ArrayList<>();
+    List<Instruction> unmatched = new ArrayList<>();
+    for (Instruction instruction : instructions) {
+      boolean ok =
+          switch (instruction.op()) {
+            case ADD -> add(lines, instruction.statement());
+            case REMOVE -> NODE_ID.matcher(instruction.statement()).matches()
+                ? removeNode(lines, instruction.statement())
+                : removeLine(lines, instruction.statement());
+            case CHANGE -> change(lines, instruction.statement());
+          };
+      (ok ? applied : unmatched).add(instruction);
+    }
+    return new Result(String.join("\n", lines), List.copyOf(applied), List.copyOf(unmatched));
+  }
+
+  private static boolean add(List<String> lines, String statement) {
+    String key = compact(statement);
+    for (String line : lines) {
+      if (compact(line).equals(key)) {
+        return true;
+      }
+    }
+    lines.add(statement);
+    return true;
+  }
+
+  private static boolean removeLine(List<String> lines, String statement) {
+    String key = compact(statement);
+    for (int i = 1; i < lines.size(); i++) {
+      if (compact(lines.get(i)).equals(key)) {
+        lines.remove(i);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 删除节点定义、引用该节点的连线与样式行；subgraph 行不删，避免留下不成对的 end。
+   */
+  private static boolean removeNode(List<String> lines, String id) {
+    boolean removed = false;
+    for (int i = lines.size() - 1; i >= 1; i--) {
+      String line = lines.get(i).trim();
+      if (line.startsWith("subgraph") || line.startsWith("%%")) {
+        continue;
+      }
+      if (referencedIds(line).contains(id)) {
+        lines.remove(i);
+        removed = true;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * 把节点所有带形状的出现替换为新形状；一处都没有时新增一行定义。
+   */
+  private static boolean change(List<String> lines, String definition) {
+    int idEnd = 0;
+    while (idEnd < definition.length() && MermaidRepairer.isIdChar(definition.charAt(idEnd))) {
+      idEnd++;
+    }
+    String id = definition.substring(0, idEnd);
+    String shape = definition.substring(idEnd).trim();
+
+    boolean referenced = false;
+    boolean replaced = false;
+    for (int i = 1; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.trim().startsWith("%%")) {
+        continue;
+      }
+      referenced |= referencedIds(line).contains(id);
+      String updated = replaceShape(line, id, shape);
+      if (!updated.equals(line)) {
+        lines.set(i, updated);
+        replaced = true;
+      }
+    }
+    if (!replaced) {
+      if (!referenced) {
+        return false;
+      }
+      lines.add(id + shape);
+    }
+    return true;
+  }
+
+  /**
+   * 逐字符扫描一行，跳过引号、节点文本与连线文本，替换 id 后紧跟的形状。
+   */
+  private static String replaceShape(String line, String id, String shape) {
+    StringBuilder out = new StringBuilder(line.length() + shape.length());
+    int i = 0;
+    while (i < line.length()) {
+      int skip = skipText(line, i);
+      if (skip > i) {
+        out.append(line, i, skip);
+        i = skip;
+        continue;
+      }
+      if (line.startsWith(id, i)
+          && (i == 0 || !MermaidRepairer.isIdChar(line.charAt(i - 1)))
+          && i + id.length() < line.length()
+          && isShapeStart(line.charAt(i + id.length()))) {
+        int openAt = i + id.length();
+        String opener = MermaidRepairer.shapeOpener(line, openAt);
+        int end = MermaidRepairer.findCloser(
+            line, openAt + opener.length(), MermaidRepairer.shapeCloser(opener));
+        if (end >= 0) {
+          out.append(id).append(shape);
+          i = end + MermaidRepairer.shapeCloser(opener).length();
+          continue;
+        }
+      }
+      out.append(line.charAt(i));
+      i++;
+    }
+    return out.toString();
+  }
+
+  /**
+   * 一行中引用的节点 ID（去掉节点文本、连线文本与引号内容后的标识符）。
+   */
+  private static List<String> referencedIds(String line) {
+    List<String> ids = new ArrayList<>();
+    StringBuilder token = new StringBuilder();
+    int i = 0;
+    while (i <= line.length()) {
+      int skip = i < line.length() ? skipText(line, i) : i;
+      if (i < line.length() && skip == i && MermaidRepairer.isIdChar(line.charAt(i))) {
+        token.append(line.charAt(i));
+        i++;
+        continue;
+      }
+      if (token.length() > 0) {
+        ids.add(token.toString());
+        token.setLength(0);
+      }
+      i = Math.max(skip, i + 1);
+    }
+    return ids;
+  }
+
+  /**
+   * i 处是引号、节点文本（紧跟标识符的括号）或连线文本 {@code |...|} 时返回其结束位置，否则返回 i。
+   */
+  private static int skipText(String line, int i) {
+    char c = line.charAt(i);
+    if (c == '"' || c == '|') {
+      int end = line.indexOf(c, i + 1);
+      return end < 0 ? line.length() : end + 1;
+    }
+    if (isShapeStart(c) && i > 0 && MermaidRepairer.isIdChar(line.charAt(i - 1))) {
+      String opener = MermaidRepairer.shapeOpener(line, i);
+      String closer = MermaidRepairer.shapeCloser(opener);
+      int end = MermaidRepairer.findCloser(line, i + opener.length(), closer);
+      return end < 0 ? line.length() : end + closer.length();
+    }
+    return i;
+  }
+
+  private static boolean isShapeStart(char c) {
+    return c == '[' || c == '(' || c == '{';
+  }
+
+  private static String compact(String line) {
+    return line.replaceAll("\\s+", "");
+  }
+
+  private static List<String> lines(String raw) {
+    List<String> out = new ArrayList<>();
+    if (raw == null) {
+      return out;
+    }
+    for (String line : raw.replace("\r\n", "\n").split("\n")) {
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("```") || trimmed.equalsIgnoreCase("mermaid")) {
+        continue;
+      }
+      out.add(trimmed);
+    }
+    return out;
+  }
+}
@@ -0,0 +1,356 @@
+package com.easydraw.backend.mermaid;
+
+import com.easydraw.backend.dto.DiagramError;
+import com.easydraw.backend.dto.DiagramRepair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 校验发现括号或图表头问题后的本地确定性修复，处理模型输出中最常见的几类语法问题，避免为此再调用一次
+ * 模型。
+ *
+ * <ul>
+ *   <li>图表头：缺少图表头，或清洗阶段补的默认图表头与 diagramType 不符时，按 diagramType 补充
+ *   <li>括号：仅在校验报告括号数量不匹配时，为 flowchart 中括号不成对的行补全未闭合的节点形状（有连线时
+ *       补在连线之前），并给含特殊字符的节点文本加双引号
+ * </ul>
+ *
+ * <p>只补不删：多余的闭括号、连线文本与时序图消息里的括号都原样保留。输入应为
+ * {@link MermaidSanitizer#clean(String)} 的输出。
+ */
+public final class MermaidRepairer {
+
+  private static final String DEFAULT_HEADER = "graph TB";
+  private static final Pattern FLOWCHART_NODE = Pattern.compile("^[A-Za-z0-9_]+\\s*[\\[({].*");
+  private static final String[] ARROWS = {"-->", "---", "==>", "-.-", "->>"};
+  private static final String[] SHAPE_OPENERS = {
+    "(((", "((", "([", "[[", "[(", "{{", "[", "(", "{"
+  };
+  private static final String SPECIAL_LABEL_CHARS = "()[]{}|\"";
+  private static final Set<String> BRACKET_ERRORS = Set.of("BRACKET_MISMATCH", "PAREN_MISMATCH");
+
+  private MermaidRepairer() {}
+
+  /**
+   * 修复结果。
+   *
+   * @param content 修复后的内容
+   * @param repairs 修复记录，未修改时为空
+   */
+  public record Result(String content, List<DiagramRepair> repairs) {}
+
+  /**
+   * 按校验错误修复，只应在 {@link #isRepairable} 为真时调用：图表头总会检查；括号只在错误中有
+   * BRACKET_MISMATCH / PAREN_MISMATCH 时处理。
+   *
+   * @param errors 对 content 的校验结果
+   */
+  public static Result repair(String content, String diagramType, List<DiagramError> errors) {
+    if (content == null || content.isBlank()) {
+      return new Result(content == null ? "" : content, List.of());
+    }
+    List<String> lines = new ArrayList<>(List.of(content.split("\n", -1)));
+    List<DiagramRepair> repairs = new ArrayList<>();
+
+    int header = repairHeader(lines, diagramType, repairs);
+    String headerLine = lines.get(header).toLowerCase(Locale.ROOT);
+    boolean flowchart = headerLine.startsWith("graph") || headerLine.startsWith("flowchart");
+    boolean brackets = errors.stream().anyMatch(e -> BRACKET_ERRORS.contains(e.getCode()));
+
+    for (int i = header + 1; flowchart && brackets && i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isBlank() || line.trim().startsWith("%%") || isBalanced(line)) {
+        continue;
+      }
+      String closed = closeNodeShapes(line);
+      if (!closed.equals(line)) {
+        repairs.add(DiagramRepair.of("BRACKET_CLOSED", i + 1, "第 " + (i + 1) + " 行补全括号"));
+      }
+      String quoted = quoteLabels(closed);
+      if (!quoted.equals(closed)) {
+        repairs.add(
+            DiagramRepair.of("LABEL_QUOTED", i + 1, "第 " + (i + 1) + " 行含特殊字符的节点文本加引号"));
+      }
+      lines.set(i, quoted);
+    }
+
+    if (repairs.isEmpty()) {
+      return new Result(content, List.of());
+    }
+    return new Result(String.join("\n", lines), List.copyOf(repairs));
+  }
+
+  /**
+   * 是否有本地修复可以处理的问题：校验报告了括号或图表头错误，或清洗阶段补的默认图表头与 diagramType
+   * 不符（这种情况校验发现不了）。没有时不应调用 {@link #repair}。
+   */
+  public static boolean isRepairable(
+      String content, String diagramType, List<DiagramError> errors) {
+    for (DiagramError error : errors) {
+      String code = error.getCode();
+      if (BRACKET_ERRORS.contains(code) || "HEADER_MISSING".equals(code)) {
+        return true;
+      }
+    }
+    if (content == null || content.isBlank()) {
+      return false;
+    }
+    List<String> lines = List.of(content.split("\n", -1));
+    return isMismatchedDefaultHeader(lines, firstStatement(lines), headerFor(diagramType));
+  }
+
+  /**
+   * 修复图表头，返回图表头所在行下标。
+   */
+  private static int repairHeader(
+      List<String> lines, String diagramType, List<DiagramRepair> repairs) {
+    int first = firstStatement(lines);
+    String expected = headerFor(diagramType);
+
+    if (MermaidSanitizer.normalizeHeader(lines.get(first).trim()) == null) {
+      lines.add(first, expected);
+      repairs.add(DiagramRepair.of("HEADER_INJECTED", first + 1, "补充图表头 " + expected));
+      return first;
+    }
+
+    if (isMismatchedDefaultHeader(lines, first, expected)) {
+      lines.set(first, expected);
+      repairs.add(DiagramRepair.of("HEADER_INJECTED", first + 1, "图表头改为 " + expected));
+    }
+    return first;
+  }
+
+  private static int firstStatement(List<String> lines) {
+    int first = 0;
+    while (first < lines.size() - 1 && isSkippable(lines.get(first))) {
+      first++;
+    }
+    return first;
+  }
+
+  /**
+   * 清洗阶段对缺少图表头的内容一律补 graph TB；请求的是其他图表且正文不像 flowchart 时应改用对应图表头。
+   */
+  private static boolean isMismatchedDefaultHeader(List<String> lines, int first, String expected) {
+    return lines.get(first).equals(DEFAULT_HEADER)
+        && !expected.equals(DEFAULT_HEADER)
+        && lines.stream().skip(first + 1L).noneMatch(MermaidRepairer::isFlowchartStatement);
+  }
+
+  private static boolean isSkippable(String line) {
+    return line.isBlank() || line.trim().startsWith("%%");
+  }
+
+  private static boolean isFlowchartStatement(String line) {
+    String trimmed = line.trim();
+    return trimmed.contains("-->")
+        || trimmed.contains("---")
+        || trimmed.contains("==>")
+        || FLOWCHART_NODE.matcher(trimmed).matches();
+  }
+
+  private static String headerFor(String diagramType) {
+    String type = diagramType == null ? "" : diagramType.toLowerCase(Locale.ROOT);
+    if (type.contains("seq")) {
+      return "sequenceDiagram";
+    }
+    if (type.contains("state")) {
+      return "stateDiagram-v2";
+    }
+    if (type.contains("class")) {
+      return "classDiagram";
+    }
+    if (type.equals("er") || type.contains("erdiagram") || type.contains("entity")) {
+      return "erDiagram";
+    }
+    return DEFAULT_HEADER;
+  }
+
+  /**
+   * 补全 flowchart 节点形状（{@code id[...]}、{@code id((...))} 等）未闭合的括号：有连线时补在连线之前，
+   * 否则补在行尾。引号与连线文本 {@code |...|} 内的括号不参与匹配。
+   */
+  static String closeNodeShapes(String line) {
+    StringBuilder out = new StringBuilder(line.length() + 4);
+    int i = 0;
+    while (i < line.length()) {
+      char c = line.charAt(i);
+      if (c == '"' || c == '|') {
+        int end = line.indexOf(c, i + 1);
+        int stop = end < 0 ? line.length() : end + 1;
+        out.append(line, i, stop);
+        i = stop;
+        continue;
+      }
+      if ((c == '[' || c == '(' || c == '{') && i > 0 && isIdChar(line.charAt(i - 1))) {
+        String opener = shapeOpener(line, i);
+        String closer = shapeCloser(opener);
+        int start = i + opener.length();
+        int end = findCloser(line, start, closer);
+        if (end >= 0) {
+          int stop = end + closer.length();
+          out.append(line, i, stop);
+          i = stop;
+          continue;
+        }
+        int labelEnd = nextArrow(line, start);
+        while (labelEnd > start && line.charAt(labelEnd - 1) == ' ') {
+          labelEnd--;
+        }
+        out.append(line, i, labelEnd).append(closer);
+        i = labelEnd;
+        continue;
+      }
+      out.append(c);
+      i++;
+    }
+    return out.toString();
+  }
+
+  /**
+   * 为 flowchart 中含特殊字符的节点文本加双引号，文本内已有的双引号转为 {@code #quot;}。
+   */
+  static String quoteLabels(String line) {
+    StringBuilder out = new StringBuilder(line.length() + 8);
+    int i = 0;
+    while (i < line.length()) {
+      char c = line.charAt(i);
+      if (c == '"') {
+        int end = line.indexOf('"', i + 1);
+        int stop = end < 0 ? line.length() : end + 1;
+        out.append(line, i, stop);
+        i = stop;
+        continue;
+      }
+      if ((c == '[' || c == '(' || c == '{') && i > 0 && isIdChar(line.charAt(i - 1))) {
+        String opener = shapeOpener(line, i);
+        String closer = shapeCloser(opener);
+        int start = i + opener.length();
+        int end = findCloser(line, start, closer);
+        if (end < 0) {
+          out.append(line, i, line.length());
+          break;
+        }
+        String label = line.substring(start, end);
+        out.append(opener);
+        if (needsQuotes(label)) {
+          out.append('"').append(label.trim().replace("\"", "#quot;")).append('"');
+        } else {
+          out.append(label);
+        }
+        out.append(closer);
+        i = end + closer.length();
+        continue;
+      }
+      out.append(c);
+      i++;
+    }
+    return out.toString();
+  }
+
+  /**
+   * from 之后第一个不在引号内的连线位置，没有时返回行尾。
+   */
+  private static int nextArrow(String line, int from) {
+    boolean quoted = false;
+    for (int j = from; j < line.length(); j++) {
+      if (line.charAt(j) == '"') {
+        quoted = !quoted;
+      } else if (!quoted && startsWithArrow(line, j)) {
+        return j;
+      }
+    }
+    return line.length();
+  }
+
+  private static boolean isBalanced(String line) {
+    return countChar(line, '[') == countChar(line, ']')
+        && countChar(line, '(') == countChar(line, ')');
+  }
+
+  private static boolean startsWithArrow(String line, int from) {
+    for (String arrow : ARROWS) {
+      if (line.startsWith(arrow, from)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 节点形状的开括号串，如 {@code ((}、{@code ([}；MermaidPatch 也用它定位节点定义。
+   */
+  static String shapeOpener(String line, int from) {
+    for (String opener : SHAPE_OPENERS) {
+      if (line.startsWith(opener, from)) {
+        return opener;
+      }
+    }
+    return String.valueOf(line.charAt(from));
+  }
+
+  static String shapeCloser(String opener) {
+    return new StringBuilder(opener).reverse().toString()
+        .replace('[', ']').replace('(', ')').replace('{', '}');
+  }
+
+  /**
+   * 在同类括号深度为 0 处查找闭合串，引号内跳过；其他种类的括号视为普通文本，如 {@code [f(x]}。
+   */
+  static int findCloser(String line, int from, String closer) {
+    char close = closer.charAt(0);
+    char open = close == ']' ? '[' : close == ')' ? '(' : '{';
+    int depth = 0;
+    boolean quoted = false;
+    for (int j = from; j < line.length(); j++) {
+      char c = line.charAt(j);
+      if (c == '"') {
+        quoted = !quoted;
+        continue;
+      }
+      if (quoted) {
+        continue;
+      }
+      if (depth == 0 && line.startsWith(closer, j)) {
+        return j;
+      }
+      if (c == open) {
+        depth++;
+      } else if (c == close && depth > 0) {
+        depth--;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean needsQuotes(String label) {
+    String trimmed = label.trim();
+    if (trimmed.isEmpty()
+        || trimmed.startsWith("\"")
+        || trimmed.startsWith("/")
+        || trimmed.startsWith("\\")) {
+      return false;
+    }
+    for (int i = 0; i < trimmed.length(); i++) {
+      if (SPECIAL_LABEL_CHARS.indexOf(trimmed.charAt(i)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static boolean isIdChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  private static int countChar(String text, char c) {
+    int count = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == c) count++;
+    }
+    return count;
+  }
+}
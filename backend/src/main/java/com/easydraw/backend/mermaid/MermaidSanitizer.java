@@ -1,77 +1,125 @@
 package com.easydraw.backend.mermaid;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
+/**
+ * 清洗模型输出的 Mermaid 文本：跳过围栏与 mermaid 标记行、规范化图表头、为 flowchart 连线中的裸文本节点
+ * 分配 ID。
+ *
+ * <p>{@link #clean(String)} 只扫描一遍原文，按下标区间处理每一行并写入同一个预分配的 StringBuilder，
+ * 不拆分行、不生成中间列表；节点判断用手写匹配代替正则。只有图表头所在行和需要分配 ID 的节点文本会
+ * 创建新字符串。
+ */
 public final class MermaidSanitizer {
 
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final String ARROW = "-->";
+
   private MermaidSanitizer() {}
 
   public static String clean(String raw) {
     if (raw == null) {
       return "";
     }
-    String trimmed = raw.trim();
-    if (trimmed.isEmpty()) {
-      return trimmed;
+    int length = raw.length();
+    int pos = 0;
+    while (pos < length && raw.charAt(pos) <= ' ') {
+      pos++;
+    }
+    if (pos == length) {
+      return "";
     }
 
-    String normalized = trimmed.replace("\r\n", "\n").replace("\r", "\n");
-    String[] lines = normalized.split("\n", -1);
-
-    List<String> out = new ArrayList<>();
+    // 连线节点替换为 N1["..."] 会略微变长
+    StringBuilder out = new StringBuilder(length + (length >> 3) + 16);
     boolean headerHandled = false;
+    boolean flowchart = false;
+    Map<String, String> labelToId = null;
+    int[] counter = new int[] {1};
+
+    while (pos <= length) {
+      int lineEnd = pos;
+      while (lineEnd < length && raw.charAt(lineEnd) != '\n' && raw.charAt(lineEnd) != '\r') {
+        lineEnd++;
+      }
+      int next = lineEnd + 1;
+      if (lineEnd + 1 < length && raw.charAt(lineEnd) == '\r' && raw.charAt(lineEnd + 1) == '\n') {
+        next++;
+      }
+      int start = trimStart(raw, pos, lineEnd);
+      int end = trimEnd(raw, start, lineEnd);
+      pos = next;
 
-    for (String lineRaw : lines) {
-      String line = lineRaw.trim();
-      if (line.isEmpty()) {
+      if (start == end) {
         if (headerHandled) {
-          out.add("");
+          out.append('\n');
         }
         continue;
       }
-      if (line.startsWith("```")) {
-        continue;
-      }
-      if (line.equalsIgnoreCase("mermaid")) {
+      if (raw.startsWith("```", start)
+          || (end - start == 7 && raw.regionMatches(true, start, "mermaid", 0, 7))) {
         continue;
       }
 
       if (!headerHandled) {
-        String header = normalizeHeader(line);
+        headerHandled = true;
+        String header = normalizeHeader(raw.substring(start, end));
         if (header != null) {
-          out.add(header);
-          headerHandled = true;
+          String lower = header.toLowerCase();
+          flowchart = lower.startsWith("graph") || lower.startsWith("flowchart");
+          if (flowchart
+              && trimEnd(header, 0, header.length()) < header.length()
+              && indexOf(header, ARROW, 0, header.length()) >= 0) {
+            // 图表方向以控制字符结尾时，原实现不再把这一行当作图表头，而是按连线处理
+            if (labelToId == null) {
+              labelToId = new HashMap<>();
+            }
+            appendEdgeLine(out, header, 0, header.length(), labelToId, counter);
+          } else {
+            out.append(header);
+          }
           continue;
         }
-        out.add("graph TB");
-        headerHandled = true;
+        out.append("graph TB");
+        flowchart = true;
       }
 
-      out.add(line);
+      out.append('\n');
+      if (flowchart && !raw.startsWith("%%", start) && indexOf(raw, ARROW, start, end) >= 0) {
+        if (labelToId == null) {
+          labelToId = new HashMap<>();
+        }
+        appendEdgeLine(out, raw, start, end, labelToId, counter);
+      } else {
+        out.append(raw, start, end);
+      }
     }
 
     if (!headerHandled) {
-      out.add("graph TB");
+      return "graph TB";
     }
-
-    List<String> normalizedLines = normalizeFlowchartEdges(out);
-    return String.join("\n", normalizedLines).trim();
+    // 与整体 trim 一致：去掉末尾空行以及以空节点结尾的连线留下的空格
+    int outEnd = out.length();
+    while (outEnd > 0 && out.charAt(outEnd - 1) <= ' ') {
+      outEnd--;
+    }
+    out.setLength(outEnd);
+    return out.toString();
   }
 
-  private static String normalizeHeader(String line) {
+  static String normalizeHeader(String line) {
     String lower = line.toLowerCase();
     if (lower.startsWith("flowchart")) {
-      String[] parts = line.split("\\s+");
+      String[] parts = WHITESPACE.split(line);
       if (parts.length == 1) {
         return "graph TB";
       }
       return "graph " + parts[1];
     }
     if (lower.startsWith("graph")) {
-      String[] parts = line.split("\\s+");
+      String[] parts = WHITESPACE.split(line);
       if (parts.length == 1) {
         return "graph TB";
       }
@@ -86,106 +134,165 @@ public final class MermaidSanitizer {
     return null;
   }
 
-  private static List<String> normalizeFlowchartEdges(List<String> lines) {
-    String header = firstNonEmpty(lines);
-    if (header == null) {
-      return lines;
+  static String normalizeEdgeLine(String line, Map<String, String> labelToId, int[] counter) {
+    if (line.indexOf(ARROW) < 0) {
+      return line;
     }
-    String lower = header.toLowerCase();
-    if (!lower.startsWith("graph") && !lower.startsWith("flowchart")) {
-      return lines;
+    StringBuilder sb = new StringBuilder(line.length() + 16);
+    appendEdgeLine(sb, line, 0, line.length(), labelToId, counter);
+    return sb.toString();
+  }
+
+  /**
+   * 把 line[start, end) 中的一条连线规范化后追加到 out；调用方保证区间内包含 "-->"。
+   */
+  private static void appendEdgeLine(
+      StringBuilder out,
+      String line,
+      int start,
+      int end,
+      Map<String, String> labelToId,
+      int[] counter) {
+    int content = start;
+    while (content < end && Character.isWhitespace(line.charAt(content))) {
+      content++;
     }
+    int arrow = indexOf(line, ARROW, content, end);
 
-    Map<String, String> labelToId = new HashMap<>();
-    int[] counter = new int[] {1};
-    List<String> out = new ArrayList<>(lines.size());
+    int leftStart = trimStart(line, content, arrow);
+    int leftEnd = trimEnd(line, leftStart, arrow);
+    int rightStart = trimStart(line, arrow + ARROW.length(), end);
+    int rightEnd = trimEnd(line, rightStart, end);
+    int labelStart = -1;
+    int labelEnd = -1;
 
-    for (String line : lines) {
-      if (line == null || line.isBlank() || line == header || line.startsWith("%%")) {
-        out.add(line);
-        continue;
+    if (rightStart < rightEnd && line.charAt(rightStart) == '|') {
+      int bar = indexOf(line, '|', rightStart + 1, rightEnd);
+      if (bar >= 0) {
+        labelStart = rightStart;
+        labelEnd = bar + 1;
+        rightStart = trimStart(line, labelEnd, rightEnd);
       }
-      out.add(normalizeEdgeLine(line, labelToId, counter));
     }
 
-    return out;
+    out.append(line, start, content);
+    appendToken(out, line, leftStart, leftEnd, labelToId, counter);
+    out.append(" -->");
+    if (labelStart >= 0) {
+      out.append(line, labelStart, labelEnd);
+    }
+    out.append(' ');
+    appendToken(out, line, rightStart, rightEnd, labelToId, counter);
   }
 
-  private static String normalizeEdgeLine(String line, Map<String, String> labelToId, int[] counter) {
-    int arrowIdx = line.indexOf("-->");
-    if (arrowIdx < 0) {
-      return line;
+  /**
+   * 节点 ID 或带形状的节点原样保留，其余文本按内容分配 ID 并写成 {@code N1["文本"]}。
+   */
+  private static void appendToken(
+      StringBuilder out,
+      String line,
+      int start,
+      int end,
+      Map<String, String> labelToId,
+      int[] counter) {
+    if (start == end || isNodeReference(line, start, end)) {
+      out.append(line, start, end);
+      return;
     }
 
-    int nonSpace = 0;
-    while (nonSpace < line.length() && Character.isWhitespace(line.charAt(nonSpace))) {
-      nonSpace++;
+    String label = line.substring(start, end);
+    String id = labelToId.get(label);
+    if (id == null) {
+      id = "N" + counter[0]++;
+      labelToId.put(label, id);
     }
-    String indent = line.substring(0, nonSpace);
-    String content = line.substring(nonSpace);
-
-    int contentArrow = content.indexOf("-->");
-    if (contentArrow < 0) {
-      return line;
+    out.append(id).append("[\"");
+    for (int i = start; i < end; i++) {
+      char c = line.charAt(i);
+      if (c == '\\' || c == '"') {
+        out.append('\\');
+      }
+      out.append(c);
     }
+    out.append("\"]");
+  }
 
-    String leftRaw = content.substring(0, contentArrow).trim();
-    String rightRaw = content.substring(contentArrow + 3).trim();
-    String edgeLabel = null;
-
-    if (rightRaw.startsWith("|")) {
-      int end = rightRaw.indexOf('|', 1);
-      if (end > 0) {
-        edgeLabel = rightRaw.substring(0, end + 1).trim();
-        rightRaw = rightRaw.substring(end + 1).trim();
+  /**
+   * 等价于匹配 {@code [A-Za-z0-9_]+} 或 {@code [A-Za-z0-9_]+\s*[\[{(].*}（. 不匹配换行类字符）。
+   */
+  private static boolean isNodeReference(String line, int start, int end) {
+    int i = start;
+    while (i < end && isIdChar(line.charAt(i))) {
+      i++;
+    }
+    if (i == start) {
+      return false;
+    }
+    if (i == end) {
+      return true;
+    }
+    while (i < end && isRegexSpace(line.charAt(i))) {
+      i++;
+    }
+    if (i == end) {
+      return false;
+    }
+    char shape = line.charAt(i);
+    if (shape != '[' && shape != '{' && shape != '(') {
+      return false;
+    }
+    for (i++; i < end; i++) {
+      if (isLineTerminator(line.charAt(i))) {
+        return false;
       }
     }
+    return true;
+  }
 
-    String left = normalizeToken(leftRaw, labelToId, counter);
-    String right = normalizeToken(rightRaw, labelToId, counter);
+  private static boolean isIdChar(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+  }
 
-    StringBuilder sb = new StringBuilder(indent);
-    sb.append(left).append(" -->");
-    if (edgeLabel != null) {
-      sb.append(edgeLabel).append(" ");
-    } else {
-      sb.append(" ");
-    }
-    sb.append(right);
-    return sb.toString();
+  private static boolean isRegexSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
   }
 
-  private static String normalizeToken(String token, Map<String, String> labelToId, int[] counter) {
-    if (token == null) {
-      return "";
-    }
-    String trimmed = token.trim();
-    if (trimmed.isEmpty()) {
-      return trimmed;
-    }
-    if (trimmed.matches("^[A-Za-z0-9_]+$")) {
-      return trimmed;
-    }
-    if (trimmed.matches("^[A-Za-z0-9_]+\\s*[\\[{(].*")) {
-      return trimmed;
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /** 与 {@link String#trim()} 相同，去掉 [start, end) 开头 <= ' ' 的字符 */
+  private static int trimStart(String s, int start, int end) {
+    while (start < end && s.charAt(start) <= ' ') {
+      start++;
     }
+    return start;
+  }
 
-    String id = labelToId.get(trimmed);
-    if (id == null) {
-      id = "N" + counter[0]++;
-      labelToId.put(trimmed, id);
+  private static int trimEnd(String s, int start, int end) {
+    while (end > start && s.charAt(end - 1) <= ' ') {
+      end--;
     }
+    return end;
+  }
 
-    String label = trimmed.replace("\\", "\\\\").replace("\"", "\\\"");
-    return id + "[\"" + label + "\"]";
+  /** 只在 [from, end) 内查找，避免逐行查找时扫到文本末尾 */
+  private static int indexOf(String s, String target, int from, int end) {
+    char first = target.charAt(0);
+    for (int i = from, last = end - target.length(); i <= last; i++) {
+      if (s.charAt(i) == first && s.startsWith(target, i)) {
+        return i;
+      }
+    }
+    return -1;
   }
 
-  private static String firstNonEmpty(List<String> lines) {
-    for (String line : lines) {
-      if (line != null && !line.isBlank()) {
-        return line.trim();
+  private static int indexOf(String s, char target, int from, int end) {
+    for (int i = from; i < end; i++) {
+      if (s.charAt(i) == target) {
+        return i;
       }
     }
-    return null;
+    return -1;
   }
 }
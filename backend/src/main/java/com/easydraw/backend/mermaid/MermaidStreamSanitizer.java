@@ -0,0 +1,78 @@
+package com.easydraw.backend.mermaid;
+
+import com.easydraw.backend.diagram.DiagramLanguageStrategy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 逐行版本的 {@link MermaidSanitizer}，用于流式生成时对已完整的行做清洗。
+ *
+ * <p>规则与 {@link MermaidSanitizer#clean(String)} 一致：跳过围栏与 mermaid 标记行、规范化图表头、
+ * 为 flowchart 连线中的裸文本节点分配 ID。空行延迟到下一条有效行输出，保证不会带出尾部空行。
+ * 非线程安全，每个流使用一个实例。
+ */
+public final class MermaidStreamSanitizer implements DiagramLanguageStrategy.LineSanitizer {
+
+  private final Map<String, String> labelToId = new HashMap<>();
+  private final int[] counter = new int[] {1};
+  private boolean headerHandled;
+  private boolean flowchart;
+  private int pendingBlankLines;
+
+  /**
+   * 处理一行原始文本。
+   *
+   * @param rawLine 模型输出的完整一行（不含换行符）
+   * @return 可以立即输出的清洗后行，可能为空
+   */
+  @Override
+  public List<String> accept(String rawLine) {
+    String line = rawLine == null ? "" : rawLine.trim();
+    List<String> out = new ArrayList<>(2);
+    if (line.isEmpty()) {
+      if (headerHandled) {
+        pendingBlankLines++;
+      }
+      return out;
+    }
+    if (line.startsWith("```") || line.equalsIgnoreCase("mermaid")) {
+      return out;
+    }
+
+    if (!headerHandled) {
+      headerHandled = true;
+      String header = MermaidSanitizer.normalizeHeader(line);
+      if (header != null) {
+        flowchart = header.toLowerCase().startsWith("graph");
+        out.add(header);
+        return out;
+      }
+      flowchart = true;
+      out.add("graph TB");
+    }
+
+    for (; pendingBlankLines > 0; pendingBlankLines--) {
+      out.add("");
+    }
+    if (flowchart && !line.startsWith("%%")) {
+      out.add(MermaidSanitizer.normalizeEdgeLine(line, labelToId, counter));
+    } else {
+      out.add(line);
+    }
+    return out;
+  }
+
+  /**
+   * 流结束时调用，模型没有输出任何有效行时补一个默认图表头。
+   */
+  @Override
+  public List<String> finish() {
+    if (headerHandled) {
+      return List.of();
+    }
+    headerHandled = true;
+    return List.of("graph TB");
+  }
+}
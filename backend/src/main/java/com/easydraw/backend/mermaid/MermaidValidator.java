@@ -5,5 +5,13 @@ import java.util.List;
 
 public interface MermaidValidator {
   List<DiagramError> validate(String mermaid, String diagramType);
+
+  /**
+   * 单行校验，流式生成时对已完整的行做括号等局部检查。
+   *
+   * @param line 清洗后的一行
+   * @param lineNumber 行号（从 1 开始）
+   */
+  List<DiagramError> validateLine(String line, int lineNumber);
 }
 
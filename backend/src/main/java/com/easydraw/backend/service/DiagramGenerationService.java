@@ -1,10 +1,34 @@
 package com.easydraw.backend.service;
 
+import com.easydraw.backend.dto.BatchDiagramItemResult;
+import com.easydraw.backend.dto.DiagramStreamEvent;
 import com.easydraw.backend.dto.GenerateDiagramRequest;
 import com.easydraw.backend.dto.GenerateDiagramResponse;
 import com.easydraw.backend.dto.UpdateMermaidRequest;
+import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface DiagramGenerationService {
   GenerateDiagramResponse generate(GenerateDiagramRequest request);
 
+  /**
+   * 非阻塞生成，结果与 {@link #generate} 一致。
+   */
+  Mono<GenerateDiagramResponse> generateReactive(GenerateDiagramRequest request);
+
+  /**
+   * 流式生成：逐行输出清洗后的内容与单行校验结果，最后输出完整结果。
+   */
+  Flux<DiagramStreamEvent> stream(GenerateDiagramRequest request);
+
+  /**
+   * 增量修改已有 Mermaid 图：模型只返回改动，由后端应用后清洗、修复与校验。
+   */
+  GenerateDiagramResponse edit(UpdateMermaidRequest request);
+
+  /**
+   * 批量生成：按模型端点限制并发，结果按完成顺序输出，单项失败不影响其他项。
+   */
+  Flux<BatchDiagramItemResult> generateBatch(List<GenerateDiagramRequest> items);
 }
@@ -0,0 +1,11 @@
+package com.easydraw.backend.service;
+
+/**
+ * 任务不存在或已过期，由全局异常处理转换为 404。
+ */
+public class DiagramJobNotFoundException extends RuntimeException {
+
+  public DiagramJobNotFoundException(String jobId) {
+    super("任务不存在或已过期: " + jobId);
+  }
+}
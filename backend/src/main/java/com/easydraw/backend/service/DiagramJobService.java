@@ -0,0 +1,26 @@
+package com.easydraw.backend.service;
+
+import com.easydraw.backend.dto.DiagramJobStatus;
+import com.easydraw.backend.dto.GenerateDiagramRequest;
+import reactor.core.publisher.Flux;
+
+/**
+ * 异步生成任务：提交后立即返回任务 ID，生成在后台进行，通过轮询或订阅获取结果。
+ */
+public interface DiagramJobService {
+
+  /**
+   * 提交生成任务，排队已满时抛出 {@link com.easydraw.backend.ai.AiOverloadedException}。
+   */
+  DiagramJobStatus submit(GenerateDiagramRequest request);
+
+  /**
+   * 查询任务当前状态，任务不存在或已过期时抛出 {@link DiagramJobNotFoundException}。
+   */
+  DiagramJobStatus get(String jobId);
+
+  /**
+   * 订阅任务状态：先发出当前状态，之后每次状态变化发出一次，到达终态后结束。
+   */
+  Flux<DiagramJobStatus> subscribe(String jobId);
+}
@@ -2,7 +2,13 @@ package com.easydraw.backend.service;
 
 import com.easydraw.backend.dto.ModifyStyleCommand;
 import com.easydraw.backend.dto.StyleModifyRequest;
+import reactor.core.publisher.Mono;
 
 public interface StyleModificationService {
   ModifyStyleCommand generate(StyleModifyRequest request);
+
+  /**
+   * 非阻塞生成，结果与 {@link #generate} 一致。
+   */
+  Mono<ModifyStyleCommand> generateReactive(StyleModifyRequest request);
 }
\ No newline at end of file
@@ -1,90 +1,685 @@
 package com.easydraw.backend.service.impl;
 
+import com.easydraw.backend.ai.AiCallMetrics;
+import com.easydraw.backend.ai.AiModelRouter;
+import com.easydraw.backend.ai.AiOverloadedException;
+import com.easydraw.backend.ai.BaseUrls;
+import com.easydraw.backend.ai.RequestHedger;
+import com.easydraw.backend.ai.SingleFlight;
+import com.easydraw.backend.cache.DiagramResultCache;
+import com.easydraw.backend.config.AiClientProperties;
+import com.easydraw.backend.config.BatchProperties;
+import com.easydraw.backend.config.SelfRepairProperties;
 import com.easydraw.backend.diagram.DiagramGenerationInput;
 import com.easydraw.backend.diagram.DiagramLanguage;
 import com.easydraw.backend.diagram.DiagramLanguageStrategy;
+import com.easydraw.backend.diagram.DiagramRequestKey;
+import com.easydraw.backend.diagram.DiagramStreamAssembler;
+import com.easydraw.backend.diagnostics.SlowRequestSampler;
+import com.easydraw.backend.diagnostics.StageTrace;
+import com.easydraw.backend.dto.BatchDiagramItemResult;
 import com.easydraw.backend.dto.DiagramError;
+import com.easydraw.backend.dto.DiagramRepair;
+import com.easydraw.backend.dto.DiagramStreamEvent;
 import com.easydraw.backend.dto.GenerateDiagramRequest;
 import com.easydraw.backend.dto.GenerateDiagramResponse;
+import com.easydraw.backend.dto.ModelConfig;
 import com.easydraw.backend.dto.UpdateMermaidRequest;
+import com.easydraw.backend.mermaid.MermaidPatch;
+import com.easydraw.backend.mermaid.MermaidRepairer;
 import com.easydraw.backend.mermaid.MermaidSanitizer;
 import com.easydraw.backend.service.DiagramGenerationService;
+import com.easydraw.backend.util.CodeFences;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 public class DiagramGenerationServiceImpl implements DiagramGenerationService {
 
+  private static final Logger log = LoggerFactory.getLogger(DiagramGenerationServiceImpl.class);
+
   private final Map<DiagramLanguage, DiagramLanguageStrategy> strategyMap;
+  private final DiagramResultCache resultCache;
+  private final SingleFlight<String, String> inFlight;
+  private final RequestHedger hedger;
+  private final SelfRepairProperties selfRepair;
+  private final BatchProperties batch;
+  private final AiModelRouter modelRouter;
+  private final SlowRequestSampler sampler;
+  private final MeterRegistry meterRegistry;
 
-  public DiagramGenerationServiceImpl(List<DiagramLanguageStrategy> strategies) {
+  public DiagramGenerationServiceImpl(
+      List<DiagramLanguageStrategy> strategies,
+      DiagramResultCache resultCache,
+      AiClientProperties clientProperties,
+      RequestHedger hedger,
+      SelfRepairProperties selfRepair,
+      BatchProperties batch,
+      AiModelRouter modelRouter,
+      SlowRequestSampler sampler,
+      MeterRegistry meterRegistry) {
     Map<DiagramLanguage, DiagramLanguageStrategy> m = new EnumMap<>(DiagramLanguage.class);
     for (DiagramLanguageStrategy s : strategies) {
       m.put(s.language(), s);
     }
     this.strategyMap = m;
+    this.resultCache = resultCache;
+    this.inFlight =
+        new SingleFlight<>("diagram", clientProperties.getCallTimeout(), meterRegistry);
+    this.hedger = hedger;
+    this.selfRepair = selfRepair;
+    this.batch = batch;
+    this.modelRouter = modelRouter;
+    this.sampler = sampler;
+    this.meterRegistry = meterRegistry;
   }
 
 
   /**
-   * 生成图表主流程：选择语言策略 -> 调用模型生成 -> 清洗与校验 -> 封装响应。
+   * 生成图表主流程：选择语言策略 -> 查结果缓存 -> 调用模型生成（相同请求合并为一次调用）-> 清洗、本地修复
+   * 与校验 -> 仍未通过时交给模型修复（可选）-> 封装响应。
    *
    * @param request 生成请求
    * @return 生成结果
    */
   @Override
   public GenerateDiagramResponse generate(GenerateDiagramRequest request) {
+    Timer.Sample sample = Timer.start(meterRegistry);
     // 判断是哪种绘图语言
     DiagramLanguage language = DiagramLanguage.fromCode(request.getLanguage());
     // 根据请求语言选择对应策略，避免混用渲染语法
-    DiagramLanguageStrategy strategy = strategyMap.get(language);
-    if (strategy == null) throw new IllegalStateException("No strategy for language: " + language);
+    DiagramLanguageStrategy strategy = resolveStrategy(language);
 
     DiagramGenerationInput input =
         new DiagramGenerationInput(
             language, request.getDiagramType(), request.getPrompt(), request.getModelConfig());
+    StageTrace trace = startTrace("generate", input);
+
+    // 相同请求直接返回缓存结果，省去一次模型调用
+    if (!request.isBypassCache()) {
+      GenerateDiagramResponse cached = resultCache.get(input);
+      if (cached != null) {
+        recordRequest(sample, trace, "generate", input, "cached");
+        return cached;
+      }
+    }
+
+    try {
+      // 调用模型生成图表文本；同时到达的相同请求共用一次调用
+      String key = DiagramRequestKey.of(input);
+      String raw =
+          trace.time(
+              "model",
+              StageTrace.sizeOf(input.getPrompt()),
+              () -> inFlight.execute(key, () -> generateRaw(strategy, input)),
+              StageTrace::sizeOf);
+      GenerateDiagramResponse response =
+          selfRepair(strategy, input, buildResponse(strategy, input, raw, trace), trace).block();
+      recordResult(input, response);
+      resultCache.put(input, response);
+      recordRequest(sample, trace, "generate", input, outcome(response));
+      return response;
+    } catch (RuntimeException e) {
+      recordRequest(sample, trace, "generate", input, "error");
+      throw e;
+    }
+  }
+
+  /**
+   * 非阻塞生成：流程与 {@link #generate} 相同，模型调用不占用请求线程，订阅取消时中止模型调用。
+   *
+   * @param request 生成请求
+   * @return 生成结果
+   */
+  @Override
+  public Mono<GenerateDiagramResponse> generateReactive(GenerateDiagramRequest request) {
+    // 计时、缓存查询都在订阅时进行，重复订阅（如重试）会重新查询缓存
+    return Mono.defer(
+        () -> {
+          Timer.Sample sample = Timer.start(meterRegistry);
+          DiagramLanguage language = DiagramLanguage.fromCode(request.getLanguage());
+          DiagramLanguageStrategy strategy = resolveStrategy(language);
+          DiagramGenerationInput input =
+              new DiagramGenerationInput(
+                  language,
+                  request.getDiagramType(),
+                  request.getPrompt(),
+                  request.getModelConfig());
+          StageTrace trace = startTrace("reactive", input);
+
+          if (!request.isBypassCache()) {
+            GenerateDiagramResponse cached = resultCache.get(input);
+            if (cached != null) {
+              recordRequest(sample, trace, "reactive", input, "cached");
+              return Mono.just(cached);
+            }
+          }
+
+          return trace
+              .time(
+                  "model",
+                  StageTrace.sizeOf(input.getPrompt()),
+                  hedgedRaw(strategy, input),
+                  StageTrace::sizeOf)
+              .map(raw -> buildResponse(strategy, input, raw, trace))
+              .flatMap(response -> selfRepair(strategy, input, response, trace))
+              .doOnNext(response -> recordResult(input, response))
+              .doOnNext(response -> resultCache.put(input, response))
+              .doOnNext(
+                  response -> recordRequest(sample, trace, "reactive", input, outcome(response)))
+              .doOnError(e -> recordRequest(sample, trace, "reactive", input, "error"))
+              .doOnCancel(() -> recordRequest(sample, trace, "reactive", input, "cancelled"));
+        });
+  }
+
+  /**
+   * 流式生成：模型片段拼成完整行后逐行清洗、校验并立即推送，流结束时再整体清洗校验给出最终结果。
+   *
+   * @param request 生成请求
+   * @return 事件流（line / warning / done）
+   */
+  @Override
+  public Flux<DiagramStreamEvent> stream(GenerateDiagramRequest request) {
+    return Flux.defer(
+        () -> {
+          Timer.Sample sample = Timer.start(meterRegistry);
+          DiagramLanguage language = DiagramLanguage.fromCode(request.getLanguage());
+          DiagramLanguageStrategy strategy = resolveStrategy(language);
+          DiagramGenerationInput input =
+              new DiagramGenerationInput(
+                  language,
+                  request.getDiagramType(),
+                  request.getPrompt(),
+                  request.getModelConfig());
+          StageTrace trace = startTrace("stream", input);
+
+          if (!request.isBypassCache()) {
+            GenerateDiagramResponse cached = resultCache.get(input);
+            if (cached != null) {
+              recordRequest(sample, trace, "stream", input, "cached");
+              return Flux.just(DiagramStreamEvent.done(cached));
+            }
+          }
+
+          DiagramStreamAssembler assembler = new DiagramStreamAssembler(strategy);
+          // 流式调用的模型阶段从订阅到最后一个片段，包含逐行清洗与推送
+          StageTrace.Stage model = trace.begin("model", StageTrace.sizeOf(input.getPrompt()));
+          return strategy
+              .stream(input)
+              .concatMapIterable(assembler::onChunk)
+              .concatWith(Flux.defer(() -> Flux.fromIterable(assembler.onComplete())))
+              .concatWith(
+                  Mono.fromSupplier(
+                      () -> {
+                        model.end(StageTrace.sizeOf(assembler.raw()));
+                        GenerateDiagramResponse response =
+                            buildResponse(strategy, input, assembler.raw(), trace);
+                        recordResult(input, response);
+                        resultCache.put(input, response);
+                        recordRequest(sample, trace, "stream", input, outcome(response));
+                        return DiagramStreamEvent.done(response);
+                      }))
+              .doOnError(e -> model.end(StageTrace.FAILED))
+              .doOnCancel(() -> model.end(StageTrace.FAILED))
+              .doOnError(e -> recordRequest(sample, trace, "stream", input, "error"))
+              .doOnCancel(() -> recordRequest(sample, trace, "stream", input, "cancelled"));
+        });
+  }
+
+  /**
+   * 增量修改：模型按 {@link MermaidPatch} 格式只返回改动，应用到当前图后走与生成相同的清洗、本地修复、
+   * 校验与模型自修复；模型若仍返回整张图则直接使用。修改结果不写入结果缓存。
+   *
+   * @param request 修改请求
+   * @return 修改后的内容与校验结果
+   */
+  @Override
+  public GenerateDiagramResponse edit(UpdateMermaidRequest request) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    DiagramLanguageStrategy strategy = resolveStrategy(DiagramLanguage.MERMAID);
+    DiagramGenerationInput input =
+        new DiagramGenerationInput(
+            DiagramLanguage.MERMAID,
+            request.getDiagramType(),
+            request.getPrompt(),
+            request.getModelConfig());
+    StageTrace trace = startTrace("edit", input);
+    try {
+      GenerateDiagramResponse response = edit(strategy, input, request.getMermaid(), trace);
+      recordRequest(sample, trace, "edit", input, outcome(response));
+      return response;
+    } catch (RuntimeException e) {
+      recordRequest(sample, trace, "edit", input, "error");
+      throw e;
+    }
+  }
+
+  private GenerateDiagramResponse edit(
+      DiagramLanguageStrategy strategy,
+      DiagramGenerationInput input,
+      String mermaid,
+      StageTrace trace) {
+    // 与生成结果同样清洗，保证模型看到的节点 ID 与应用修改时一致
+    String current =
+        trace.time(
+            "sanitize",
+            StageTrace.sizeOf(mermaid),
+            () -> MermaidSanitizer.clean(mermaid),
+            StageTrace::sizeOf);
+    String raw =
+        trace.time(
+            "model",
+            StageTrace.sizeOf(current),
+            () -> strategy.edit(input, current),
+            StageTrace::sizeOf);
+
+    String content;
+    String explain;
+    if (MermaidPatch.isFullDiagram(raw)) {
+      meterRegistry.counter("diagram.edit.requests", "mode", "full").increment();
+      content = raw;
+      explain = "已修改（模型返回了完整图表）";
+    } else {
+      MermaidPatch.Parsed parsed = MermaidPatch.parse(raw);
+      if (parsed.instructions().isEmpty() && parsed.unparsed() > 0) {
+        throw new IllegalStateException("模型返回的修改指令无法解析");
+      }
+      meterRegistry.counter("diagram.edit.requests", "mode", "patch").increment();
+      StageTrace.Stage patch = trace.begin("patch", StageTrace.sizeOf(current));
+      MermaidPatch.Result patched = MermaidPatch.apply(current, parsed.instructions());
+      patch.end(StageTrace.sizeOf(patched.content()));
+      for (MermaidPatch.Instruction instruction : patched.applied()) {
+        countEditOp(instruction, "applied");
+      }
+      for (MermaidPatch.Instruction instruction : patched.unmatched()) {
+        countEditOp(instruction, "unmatched");
+      }
+      content = patched.content();
+      explain = describePatch(patched);
+    }
+
+    GenerateDiagramResponse response =
+        selfRepair(strategy, input, buildResponse(strategy, input, content, trace), trace).block();
+    if (response.getValidation().isValid()) {
+      response.setExplain(explain);
+    }
+    recordResult(input, response);
+    return response;
+  }
+
+  private void countEditOp(MermaidPatch.Instruction instruction, String result) {
+    meterRegistry
+        .counter(
+            "diagram.edit.ops", "op", instruction.op().name().toLowerCase(), "result", result)
+        .increment();
+  }
+
+  private static String describePatch(MermaidPatch.Result patched) {
+    if (patched.applied().isEmpty() && patched.unmatched().isEmpty()) {
+      return "无需修改";
+    }
+    int added = 0;
+    int removed = 0;
+    int changed = 0;
+    for (MermaidPatch.Instruction instruction : patched.applied()) {
+      switch (instruction.op()) {
+        case ADD -> added++;
+        case REMOVE -> removed++;
+        case CHANGE -> changed++;
+      }
+    }
+    String summary = "已修改：新增 " + added + " 处，删除 " + removed + " 处，更新 " + changed + " 处";
+    if (!patched.unmatched().isEmpty()) {
+      summary += "；" + patched.unmatched().size() + " 条指令未找到修改对象";
+    }
+    return summary;
+  }
+
+  /**
+   * 批量生成：各项按模型端点（baseUrl + model）分组，组内最多 perEndpointConcurrency 项同时生成，
+   * 各组之间并行，整批耗时接近最慢的一组而不是各项之和。每项走 {@link #generateReactive}，失败单独报告。
+   *
+   * @param items 生成请求列表
+   * @return 各项结果，按完成顺序输出
+   */
+  @Override
+  public Flux<BatchDiagramItemResult> generateBatch(List<GenerateDiagramRequest> items) {
+    if (items == null || items.isEmpty()) {
+      return Flux.empty();
+    }
+    if (items.size() > batch.getMaxItems()) {
+      throw new IllegalArgumentException("批量生成最多支持 " + batch.getMaxItems() + " 项");
+    }
+    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      groups.computeIfAbsent(endpointKey(items.get(i)), k -> new ArrayList<>()).add(i);
+    }
+    int perEndpoint = Math.max(1, batch.getPerEndpointConcurrency());
+    return Flux.fromIterable(groups.values())
+        .flatMap(
+            indexes ->
+                Flux.fromIterable(indexes)
+                    .flatMap(index -> generateItem(index, items.get(index)), perEndpoint),
+            groups.size());
+  }
 
-    // 调用模型生成图表文本，并去除围栏代码块
-    String content = stripCodeFence(strategy.generate(input));
+  private Mono<BatchDiagramItemResult> generateItem(int index, GenerateDiagramRequest request) {
+    return Mono.defer(() -> generateReactive(request))
+        .map(response -> BatchDiagramItemResult.ok(index, response))
+        .onErrorResume(
+            e -> {
+              String message = e.getMessage() == null ? "服务器错误" : e.getMessage();
+              String reason =
+                  e instanceof AiOverloadedException overloaded
+                      ? overloaded.getReason().name()
+                      : null;
+              return Mono.just(BatchDiagramItemResult.fail(index, message, reason));
+            });
+  }
+
+  private static String endpointKey(GenerateDiagramRequest request) {
+    ModelConfig config = request.getModelConfig();
+    if (config == null) {
+      return "";
+    }
+    String model = config.getModel() == null ? "" : config.getModel().trim();
+    return BaseUrls.normalize(config.getBaseUrl()) + "|" + model;
+  }
+
+  /**
+   * 同步生成模型原文；开启对冲时改走响应式调用，便于取消落败的请求。
+   */
+  private String generateRaw(DiagramLanguageStrategy strategy, DiagramGenerationInput input) {
+    if (!hedger.isEnabled()) {
+      return strategy.generate(input);
+    }
+    return hedgedRaw(strategy, input).block();
+  }
+
+  /**
+   * 主请求进入长尾时对冲，先通过校验的原文胜出。
+   */
+  private Mono<String> hedgedRaw(DiagramLanguageStrategy strategy, DiagramGenerationInput input) {
+    return hedger.hedge(
+        input.getModelConfig(),
+        target ->
+            strategy.generateReactive(
+                new DiagramGenerationInput(
+                    input.getLanguage(), input.getDiagramType(), input.getPrompt(), target)),
+        raw -> buildResponse(strategy, input, raw, StageTrace.NONE).getValidation().isValid());
+  }
+
+  /**
+   * 本地修复后仍未通过校验时，只把内容与错误列表交给模型修复，最多 maxAttempts 轮、总耗时不超过
+   * deadline；超时或调用失败时返回错误最少的已有结果。
+   */
+  private Mono<GenerateDiagramResponse> selfRepair(
+      DiagramLanguageStrategy strategy,
+      DiagramGenerationInput input,
+      GenerateDiagramResponse response,
+      StageTrace trace) {
+    if (!selfRepair.isEnabled()
+        || selfRepair.getMaxAttempts() <= 0
+        || response.getValidation().isValid()) {
+      return Mono.just(response);
+    }
+    AtomicReference<GenerateDiagramResponse> best = new AtomicReference<>(response);
+    AtomicInteger rounds = new AtomicInteger();
+    return repairRound(strategy, input, response, best, rounds, trace)
+        .timeout(selfRepair.getDeadline())
+        .onErrorResume(
+            e -> {
+              log.warn("模型修复中止，返回已有结果: rounds={}, {}", rounds.get(), e.toString());
+              return Mono.fromSupplier(best::get);
+            })
+        .map(result -> finishSelfRepair(response, result, rounds.get()));
+  }
+
+  private Mono<GenerateDiagramResponse> repairRound(
+      DiagramLanguageStrategy strategy,
+      DiagramGenerationInput input,
+      GenerateDiagramResponse current,
+      AtomicReference<GenerateDiagramResponse> best,
+      AtomicInteger rounds,
+      StageTrace trace) {
+    List<DiagramError> errors = current.getValidation().getErrors();
+    int round = rounds.incrementAndGet();
+    // 每轮只计一次：本轮结束后下游取消（总时限到达）也会传到这里
+    AtomicBoolean counted = new AtomicBoolean();
+    return trace
+        .time(
+            "selfrepair",
+            StageTrace.sizeOf(current.getContent()),
+            strategy.repair(input, current.getContent(), errors),
+            StageTrace::sizeOf)
+        .map(raw -> buildResponse(strategy, input, raw, trace))
+        .doOnError(
+            e -> {
+              if (counted.compareAndSet(false, true)) {
+                countRepairAttempt(errors, null, "error");
+              }
+            })
+        .doOnCancel(
+            () -> {
+              if (counted.compareAndSet(false, true)) {
+                countRepairAttempt(errors, null, "timeout");
+              }
+            })
+        .flatMap(
+            next -> {
+              counted.set(true);
+              countRepairAttempt(errors, next, null);
+              if (errorCount(next) <= errorCount(best.get())) {
+                best.set(next);
+              }
+              if (next.getValidation().isValid() || round >= selfRepair.getMaxAttempts()) {
+                return Mono.fromSupplier(best::get);
+              }
+              return repairRound(strategy, input, next, best, rounds, trace);
+            });
+  }
+
+  private GenerateDiagramResponse finishSelfRepair(
+      GenerateDiagramResponse original, GenerateDiagramResponse result, int rounds) {
+    boolean valid = result.getValidation().isValid();
+    meterRegistry.counter("diagram.selfrepair.requests", "result", valid ? "valid" : "invalid")
+        .increment();
+    meterRegistry.summary("diagram.selfrepair.rounds").record(rounds);
+    if (result == original) {
+      return original;
+    }
+    List<DiagramRepair> repairs = new ArrayList<>(result.getRepairs().size() + 1);
+    repairs.add(DiagramRepair.of("MODEL_REPAIRED", 0, "模型按校验错误修复 " + rounds + " 轮"));
+    repairs.addAll(result.getRepairs());
+    result.setRepairs(repairs);
+    if (valid) {
+      result.setExplain("已生成（模型修复 " + rounds + " 轮）");
+    }
+    return result;
+  }
+
+  /**
+   * 按错误码计数修复尝试：next 中不再出现的错误码记为 fixed，否则为 unfixed；调用失败或超时时为 error / timeout。
+   */
+  private void countRepairAttempt(
+      List<DiagramError> errors, GenerateDiagramResponse next, String failure) {
+    Set<String> remaining = new HashSet<>();
+    if (next != null) {
+      for (DiagramError error : next.getValidation().getErrors()) {
+        remaining.add(error.getCode());
+      }
+    }
+    Set<String> codes = new HashSet<>();
+    for (DiagramError error : errors) {
+      if (!codes.add(error.getCode())) {
+        continue;
+      }
+      String outcome =
+          failure != null ? failure : remaining.contains(error.getCode()) ? "unfixed" : "fixed";
+      meterRegistry
+          .counter("diagram.selfrepair.attempts", "code", error.getCode(), "outcome", outcome)
+          .increment();
+    }
+  }
+
+  private static int errorCount(GenerateDiagramResponse response) {
+    return response.getValidation().getErrors().size();
+  }
+
+  private DiagramLanguageStrategy resolveStrategy(DiagramLanguage language) {
+    DiagramLanguageStrategy strategy = strategyMap.get(language);
+    if (strategy == null) throw new IllegalStateException("No strategy for language: " + language);
+    return strategy;
+  }
+
+  /**
+   * 清洗、本地修复与校验模型原文并封装响应；各阶段记入 trace（对冲判定传 {@link StageTrace#NONE}）。
+   */
+  private GenerateDiagramResponse buildResponse(
+      DiagramLanguageStrategy strategy,
+      DiagramGenerationInput input,
+      String raw,
+      StageTrace trace) {
+    DiagramLanguage language = input.getLanguage();
+    Timer.Sample sanitize = Timer.start(meterRegistry);
+    // 去除围栏代码块
+    StageTrace.Stage fence = trace.begin("fence", StageTrace.sizeOf(raw));
+    String content = CodeFences.strip(raw);
+    fence.end(content.length());
     if (language == DiagramLanguage.MERMAID) {
       // Mermaid 需要清洗以提升 draw.io 导入成功率
+      StageTrace.Stage clean = trace.begin("sanitize", content.length());
       content = MermaidSanitizer.clean(content);
+      clean.end(content.length());
     }
+    sanitize.stop(stageTimer("sanitize", language));
     // 语法校验与错误收集，前端可据此提示
-    List<DiagramError> errors = strategy.validate(content, input);
+    List<DiagramError> errors = validate(strategy, input, content, trace);
+    List<DiagramRepair> repairs = List.of();
+    if (language == DiagramLanguage.MERMAID
+        && MermaidRepairer.isRepairable(content, input.getDiagramType(), errors)) {
+      // 括号未闭合、缺图表头等常见问题在本地修复，省去一次重新生成；修复后重新校验
+      Timer.Sample repairTimer = Timer.start(meterRegistry);
+      StageTrace.Stage repair = trace.begin("repair", content.length());
+      MermaidRepairer.Result repaired =
+          MermaidRepairer.repair(content, input.getDiagramType(), errors);
+      repair.end(repaired.content().length());
+      repairTimer.stop(stageTimer("repair", language));
+      if (!repaired.repairs().isEmpty()) {
+        content = repaired.content();
+        repairs = repaired.repairs();
+        errors = validate(strategy, input, content, trace);
+      }
+    }
 
     GenerateDiagramResponse.ValidationResult validation =
         errors.isEmpty()
             ? GenerateDiagramResponse.ValidationResult.ok()
             : GenerateDiagramResponse.ValidationResult.fail(errors);
 
-    String explain = errors.isEmpty() ? "已生成" : "校验失败";
+    String explain;
+    if (!errors.isEmpty()) {
+      explain = "校验失败";
+    } else if (!repairs.isEmpty()) {
+      explain = "已生成（自动修复 " + repairs.size() + " 处）";
+    } else {
+      explain = "已生成";
+    }
+
+    GenerateDiagramResponse response =
+        GenerateDiagramResponse.of(
+            language.getCode(), input.getDiagramType(), content, validation, explain);
+    response.setRepairs(repairs);
+    return response;
+  }
 
-    return GenerateDiagramResponse.of(
-        language.getCode(), request.getDiagramType(), content, validation, explain);
+  private List<DiagramError> validate(
+      DiagramLanguageStrategy strategy,
+      DiagramGenerationInput input,
+      String content,
+      StageTrace trace) {
+    Timer.Sample validate = Timer.start(meterRegistry);
+    StageTrace.Stage validation = trace.begin("validate", content.length());
+    List<DiagramError> errors = strategy.validate(content, input);
+    validation.end(errors.size());
+    validate.stop(stageTimer("validate", input.getLanguage()));
+    return errors;
   }
 
   /**
-   * 去除```mermaid```部分
-   * @param raw
-   * @return
+   * 按修复类型与校验错误码计数（对冲判定也会调用 buildResponse，计数放在最终结果上）。
    */
-  private String stripCodeFence(String raw) {
-    if (raw == null) return "";
-    String trimmed = raw.trim();
-    if (trimmed.startsWith("```")) {
-      // remove leading fence
-      int idx = trimmed.indexOf('\n');
-      if (idx > 0) {
-        trimmed = trimmed.substring(idx + 1);
-      }
-      // remove trailing fence
-      if (trimmed.endsWith("```")) {
-        trimmed = trimmed.substring(0, trimmed.length() - 3);
-      }
+  private void recordResult(DiagramGenerationInput input, GenerateDiagramResponse response) {
+    for (DiagramRepair repair : response.getRepairs()) {
+      meterRegistry.counter("diagram.repairs", "code", repair.getCode()).increment();
     }
-    return trimmed.trim();
+    String language = input.getLanguage().getCode();
+    for (DiagramError error : response.getValidation().getErrors()) {
+      meterRegistry
+          .counter("diagram.validation.errors", "language", language, "code", error.getCode())
+          .increment();
+    }
+  }
+
+  /**
+   * 清洗、本地修复与校验阶段耗时，按 stage 区分；对冲判定中的调用同样计入。
+   */
+  private Timer stageTimer(String stage, DiagramLanguage language) {
+    return Timer.builder("diagram.stage")
+        .description("图表后处理阶段耗时")
+        .tag("stage", stage)
+        .tag("language", language.getCode())
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /**
+   * 请求总耗时（含排队、模型调用、后处理与模型自修复），outcome 为 valid / invalid / cached / error /
+   * cancelled。
+   */
+  private void recordRequest(
+      Timer.Sample sample,
+      StageTrace trace,
+      String mode,
+      DiagramGenerationInput input,
+      String outcome) {
+    sample.stop(
+        Timer.builder("diagram.request")
+            .description("图表请求总耗时")
+            .tag("mode", mode)
+            .tag("language", input.getLanguage().getCode())
+            .tag("provider", trace.provider())
+            .tag("model", trace.model())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    sampler.finish(trace, outcome);
+  }
+
+  private StageTrace startTrace(String mode, DiagramGenerationInput input) {
+    ModelConfig config = input.getModelConfig();
+    return StageTrace.start(
+        "diagram." + mode,
+        modelRouter.resolveProvider(config),
+        AiCallMetrics.modelTag(config == null ? null : config.getModel()));
+  }
+
+  private static String outcome(GenerateDiagramResponse response) {
+    return response.getValidation().isValid() ? "valid" : "invalid";
   }
 }
@@ -0,0 +1,185 @@
+package com.easydraw.backend.service.impl;
+
+import com.easydraw.backend.ai.AiOverloadedException;
+import com.easydraw.backend.config.DiagramJobProperties;
+import com.easydraw.backend.dto.DiagramJobStatus;
+import com.easydraw.backend.dto.DiagramJobStatus.State;
+import com.easydraw.backend.dto.GenerateDiagramRequest;
+import com.easydraw.backend.dto.GenerateDiagramResponse;
+import com.easydraw.backend.service.DiagramGenerationService;
+import com.easydraw.backend.service.DiagramJobNotFoundException;
+import com.easydraw.backend.service.DiagramJobService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * 异步生成任务。
+ *
+ * <p>任务在专用线程池（diagram-job-*）上调用 {@link DiagramGenerationService#generate}，因此同样经过
+ * 结果缓存、相同请求合并、舱壁与重试。线程池队列有界，排满时提交直接返回 429；队列深度、活跃线程等
+ * 以 executor.*（name=diagram-jobs）指标暴露。
+ */
+@Service
+public class DiagramJobServiceImpl implements DiagramJobService, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(DiagramJobServiceImpl.class);
+  private static final Duration RETRY_AFTER = Duration.ofSeconds(10);
+
+  private final DiagramGenerationService diagramGenerationService;
+  private final DiagramJobStore<Job> jobs;
+  private final ExecutorService executor;
+
+  private final Counter submitted;
+  private final Counter rejected;
+  private final Counter succeeded;
+  private final Counter failed;
+  private final Counter evicted;
+
+  public DiagramJobServiceImpl(
+      DiagramGenerationService diagramGenerationService,
+      DiagramJobProperties properties,
+      MeterRegistry meterRegistry) {
+    this.diagramGenerationService = diagramGenerationService;
+    this.jobs = new DiagramJobStore<>(properties.getTtl(), properties.getMaximumSize(), this::evict);
+
+    int threads = Math.max(1, properties.getThreads());
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+            new CustomizableThreadFactory("diagram-job-"));
+    pool.allowCoreThreadTimeOut(true);
+    this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "diagram-jobs");
+
+    meterRegistry.gauge("diagram.jobs.stored", jobs, DiagramJobStore::size);
+    this.submitted = meterRegistry.counter("diagram.jobs.submitted");
+    this.rejected = meterRegistry.counter("diagram.jobs.rejected");
+    this.succeeded = meterRegistry.counter("diagram.jobs.completed", "status", "succeeded");
+    this.failed = meterRegistry.counter("diagram.jobs.completed", "status", "failed");
+    this.evicted = meterRegistry.counter("diagram.jobs.evicted");
+  }
+
+  @Override
+  public DiagramJobStatus submit(GenerateDiagramRequest request) {
+    Job job = new Job(UUID.randomUUID().toString());
+    jobs.put(job.id, job);
+    try {
+      executor.execute(() -> run(job, request));
+    } catch (RejectedExecutionException e) {
+      jobs.remove(job.id);
+      rejected.increment();
+      throw new AiOverloadedException(
+          AiOverloadedException.Reason.QUEUE_FULL, "生成任务排队已满，请稍后重试", RETRY_AFTER);
+    }
+    submitted.increment();
+    return job.current;
+  }
+
+  @Override
+  public DiagramJobStatus get(String jobId) {
+    return find(jobId).current;
+  }
+
+  @Override
+  public Flux<DiagramJobStatus> subscribe(String jobId) {
+    Job job = find(jobId);
+    return job.sink.asFlux().takeUntil(status -> status.getStatus().isTerminal());
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private Job find(String jobId) {
+    Job job = jobId == null ? null : jobs.get(jobId);
+    if (job == null) {
+      throw new DiagramJobNotFoundException(jobId);
+    }
+    return job;
+  }
+
+  private void run(Job job, GenerateDiagramRequest request) {
+    if (jobs.get(job.id) == null) {
+      // 排队期间已被淘汰，不再调用模型
+      return;
+    }
+    job.update(DiagramJobStatus.of(job.id, State.RUNNING, job.createdAt));
+    try {
+      GenerateDiagramResponse response = diagramGenerationService.generate(request);
+      DiagramJobStatus done = DiagramJobStatus.of(job.id, State.SUCCEEDED, job.createdAt);
+      done.setResult(response);
+      job.update(done);
+      succeeded.increment();
+    } catch (Exception e) {
+      log.warn("生成任务失败: jobId={}, {}", job.id, e.toString());
+      DiagramJobStatus done = DiagramJobStatus.of(job.id, State.FAILED, job.createdAt);
+      done.setMessage(e.getMessage() == null ? "服务器错误" : e.getMessage());
+      if (e instanceof AiOverloadedException overloaded) {
+        done.setReason(overloaded.getReason().name());
+      }
+      job.update(done);
+      failed.increment();
+    }
+  }
+
+  private void evict(Job job) {
+    evicted.increment();
+    job.complete();
+  }
+
+  /**
+   * 单个任务：current 为最新状态快照（每次变化替换为新对象），sink 向订阅者重放最新状态。
+   */
+  private static final class Job {
+    final String id;
+    final Instant createdAt = Instant.now();
+    final Sinks.Many<DiagramJobStatus> sink = Sinks.many().replay().latest();
+    final ReentrantLock lock = new ReentrantLock();
+    volatile DiagramJobStatus current;
+
+    Job(String id) {
+      this.id = id;
+      update(DiagramJobStatus.of(id, State.QUEUED, createdAt));
+    }
+
+    void update(DiagramJobStatus status) {
+      lock.lock();
+      try {
+        current = status;
+        sink.tryEmitNext(status);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void complete() {
+      lock.lock();
+      try {
+        sink.tryEmitComplete();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.easydraw.backend.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * 按提交顺序淘汰的任务存储：自提交起超过 ttl 或总数超过 maximumSize 时淘汰最早的任务。
+ *
+ * <p>不用 Caffeine 的大小淘汰：其准入策略会优先淘汰访问频率低的新条目，刚提交的任务可能直接被丢弃。
+ * 过期清理在写入与读取时顺带进行，不需要后台线程。
+ */
+final class DiagramJobStore<T> {
+
+  private final Duration ttl;
+  private final int maximumSize;
+  private final Consumer<T> onEvict;
+  private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Entry<T>> order = new ConcurrentLinkedQueue<>();
+
+  DiagramJobStore(Duration ttl, int maximumSize, Consumer<T> onEvict) {
+    this.ttl = ttl;
+    this.maximumSize = Math.max(1, maximumSize);
+    this.onEvict = onEvict;
+  }
+
+  void put(String id, T value) {
+    Entry<T> entry = new Entry<>(id, value, Instant.now().plus(ttl));
+    entries.put(id, entry);
+    order.add(entry);
+    evict();
+  }
+
+  T get(String id) {
+    Entry<T> entry = entries.get(id);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt.isBefore(Instant.now())) {
+      evict();
+      return null;
+    }
+    return entry.value;
+  }
+
+  void remove(String id) {
+    Entry<T> entry = entries.remove(id);
+    if (entry != null) {
+      order.remove(entry);
+    }
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evict() {
+    Instant now = Instant.now();
+    for (Entry<T> head = order.peek(); head != null; head = order.peek()) {
+      if (entries.size() <= maximumSize && head.expiresAt.isAfter(now)) {
+        return;
+      }
+      // 并发淘汰时只有移除成功的一方回调
+      if (order.remove(head) && entries.remove(head.id, head)) {
+        onEvict.accept(head.value);
+      }
+    }
+  }
+
+  private record Entry<T>(String id, T value, Instant expiresAt) {}
+}
@@ -1,69 +1,232 @@
 package com.easydraw.backend.service.impl;
 
+import com.easydraw.backend.ai.AiCallMetrics;
+import com.easydraw.backend.ai.AiModelRouter;
 import com.easydraw.backend.ai.AiClient;
+import com.easydraw.backend.ai.BaseUrls;
+import com.easydraw.backend.ai.ReactiveAiClient;
+import com.easydraw.backend.ai.SingleFlight;
+import com.easydraw.backend.cache.StyleCommandCache;
+import com.easydraw.backend.config.AiClientProperties;
+import com.easydraw.backend.diagnostics.SlowRequestSampler;
+import com.easydraw.backend.diagnostics.StageTrace;
+import com.easydraw.backend.dto.ModelConfig;
 import com.easydraw.backend.dto.ModifyStyleCommand;
 import com.easydraw.backend.dto.StyleModifyRequest;
 import com.easydraw.backend.service.StyleModificationService;
 import com.easydraw.backend.style.ModifyStyleValidator;
+import com.easydraw.backend.style.StylePhraseCompiler;
+import com.easydraw.backend.style.StylePromptNormalizer;
 import com.easydraw.backend.style.StylePromptTemplate;
+import com.easydraw.backend.util.CodeFences;
+import com.easydraw.backend.util.Digests;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 @Service
 public class StyleModificationServiceImpl implements StyleModificationService {
 
+  private static final Logger log = LoggerFactory.getLogger(StyleModificationServiceImpl.class);
+
   private final AiClient aiClient;
+  private final ReactiveAiClient reactiveAiClient;
   private final StylePromptTemplate promptTemplate;
   private final ModifyStyleValidator validator;
   private final ObjectMapper objectMapper;
+  private final StyleCommandCache commandCache;
+  private final StylePhraseCompiler phraseCompiler;
+  private final Counter fastPathHits;
+  private final Counter fastPathMisses;
+  private final SingleFlight<String, String> inFlight;
+  private final AiModelRouter modelRouter;
+  private final SlowRequestSampler sampler;
+  private final MeterRegistry meterRegistry;
 
   public StyleModificationServiceImpl(
       AiClient aiClient,
+      ReactiveAiClient reactiveAiClient,
       StylePromptTemplate promptTemplate,
       ModifyStyleValidator validator,
-      ObjectMapper objectMapper) {
+      ObjectMapper objectMapper,
+      StyleCommandCache commandCache,
+      StylePhraseCompiler phraseCompiler,
+      AiClientProperties clientProperties,
+      AiModelRouter modelRouter,
+      SlowRequestSampler sampler,
+      MeterRegistry meterRegistry) {
     this.aiClient = aiClient;
+    this.reactiveAiClient = reactiveAiClient;
     this.promptTemplate = promptTemplate;
     this.validator = validator;
     this.objectMapper = objectMapper;
+    this.commandCache = commandCache;
+    this.phraseCompiler = phraseCompiler;
+    this.fastPathHits = meterRegistry.counter("style.fastpath.requests", "result", "hit");
+    this.fastPathMisses = meterRegistry.counter("style.fastpath.requests", "result", "miss");
+    this.inFlight =
+        new SingleFlight<>("style", clientProperties.getCallTimeout(), meterRegistry);
+    this.modelRouter = modelRouter;
+    this.sampler = sampler;
+    this.meterRegistry = meterRegistry;
   }
 
   @Override
   public ModifyStyleCommand generate(StyleModifyRequest request) {
-    // 将用户自然语言转为结构化样式指令提示词
+    Timer.Sample sample = Timer.start(meterRegistry);
+    StageTrace trace = startTrace("generate", request);
+    String cacheKey = StylePromptNormalizer.normalize(request.getPrompt());
+    ModifyStyleCommand local = resolveWithoutModel(request, cacheKey);
+    if (local != null) {
+      recordRequest(sample, trace, "generate", "local");
+      return local;
+    }
+
+    try {
+      // 调用模型生成样式修改指令（JSON 文本）；同时到达的相同指令共用一次调用
+      String raw =
+          trace.time(
+              "model",
+              StageTrace.sizeOf(request.getPrompt()),
+              () ->
+                  inFlight.execute(
+                      flightKey(cacheKey, request.getModelConfig()),
+                      () -> {
+                        // 将用户自然语言转为结构化样式指令提示词
+                        String systemPrompt = promptTemplate.render(request.getPrompt());
+                        String userPrompt = request.getPrompt();
+                        return aiClient.generateWithSystemPrompt(
+                            systemPrompt, userPrompt, request.getModelConfig());
+                      }),
+              StageTrace::sizeOf);
+      ModifyStyleCommand command = acceptCommand(cacheKey, request.getModelConfig(), raw, trace);
+      recordRequest(sample, trace, "generate", "model");
+      return command;
+    } catch (RuntimeException e) {
+      recordRequest(sample, trace, "generate", "error");
+      throw e;
+    }
+  }
+
+  @Override
+  public Mono<ModifyStyleCommand> generateReactive(StyleModifyRequest request) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    StageTrace trace = startTrace("reactive", request);
+    String cacheKey = StylePromptNormalizer.normalize(request.getPrompt());
+    ModifyStyleCommand local = resolveWithoutModel(request, cacheKey);
+    if (local != null) {
+      recordRequest(sample, trace, "reactive", "local");
+      return Mono.just(local);
+    }
+
     String systemPrompt = promptTemplate.render(request.getPrompt());
-    String userPrompt = request.getPrompt();
-    // 调用模型生成样式修改指令（JSON 文本）
-    String raw =
-        aiClient.generateWithSystemPrompt(systemPrompt, userPrompt, request.getModelConfig());
+    return trace
+        .time(
+            "model",
+            StageTrace.sizeOf(request.getPrompt()),
+            reactiveAiClient.generateWithSystemPrompt(
+                systemPrompt, request.getPrompt(), request.getModelConfig()),
+            StageTrace::sizeOf)
+        .map(raw -> acceptCommand(cacheKey, request.getModelConfig(), raw, trace))
+        .doOnNext(command -> recordRequest(sample, trace, "reactive", "model"))
+        .doOnError(e -> recordRequest(sample, trace, "reactive", "error"))
+        .doOnCancel(() -> recordRequest(sample, trace, "reactive", "cancelled"));
+  }
+
+  /**
+   * 样式请求总耗时；outcome 为 local（短语编译或缓存命中）/ model / error / cancelled。
+   */
+  private void recordRequest(Timer.Sample sample, StageTrace trace, String mode, String outcome) {
+    sample.stop(
+        Timer.builder("style.request")
+            .description("样式请求总耗时")
+            .tag("mode", mode)
+            .tag("provider", trace.provider())
+            .tag("model", trace.model())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    sampler.finish(trace, outcome);
+  }
+
+  private StageTrace startTrace(String mode, StyleModifyRequest request) {
+    ModelConfig config = request.getModelConfig();
+    return StageTrace.start(
+        "style." + mode,
+        modelRouter.resolveProvider(config),
+        AiCallMetrics.modelTag(config == null ? null : config.getModel()));
+  }
 
+  /**
+   * 不调用模型的两条路径：本地短语编译与指令缓存，都未命中时返回 null。
+   */
+  private ModifyStyleCommand resolveWithoutModel(StyleModifyRequest request, String cacheKey) {
+    // 简单短语（改颜色、虚线、加粗、圆角、字号等）本地直接编译，不调用模型
+    Optional<ModifyStyleCommand> compiled = phraseCompiler.compile(request.getPrompt());
+    if (compiled.isPresent() && isValid(compiled.get(), request.getPrompt())) {
+      fastPathHits.increment();
+      return compiled.get();
+    }
+    fastPathMisses.increment();
+
+    // 常见样式短语在用户间大量重复，规范化后命中同一模型的缓存即可跳过模型调用
+    return commandCache.get(cacheKey, request.getModelConfig());
+  }
+
+  /**
+   * 本地编译的指令未通过校验时不报错给用户，按未命中处理，改由缓存或模型生成。
+   */
+  private boolean isValid(ModifyStyleCommand compiled, String prompt) {
+    try {
+      validator.validate(compiled);
+      return true;
+    } catch (IllegalArgumentException e) {
+      log.warn("本地编译的样式指令未通过校验，改由模型生成, prompt={}, reason={}", prompt, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * 合并在途调用的键：规范化指令之外还要求端点、模型参数与 apiKey 摘要一致，不同调用方不会共用
+   * 一次用别人凭据发起的调用。
+   */
+  private static String flightKey(String cacheKey, ModelConfig config) {
+    StringBuilder sb = new StringBuilder(cacheKey).append('\u0000');
+    if (config != null) {
+      sb.append(BaseUrls.normalize(config.getBaseUrl()).toLowerCase(Locale.ROOT)).append('\u0000');
+      sb.append(config.getModel()).append('\u0000');
+      sb.append(config.getTemperature()).append('\u0000');
+      sb.append(config.getMaxTokens()).append('\u0000');
+      sb.append(Digests.sha256Hex(config.getApiKey()));
+    }
+    return Digests.sha256Hex(sb.toString());
+  }
+
+  private ModifyStyleCommand acceptCommand(
+      String cacheKey, ModelConfig modelConfig, String raw, StageTrace trace) {
     // 解析并校验指令，避免无效或危险操作
-    ModifyStyleCommand command = parseCommand(raw);
+    int size = StageTrace.sizeOf(raw);
+    ModifyStyleCommand command = trace.time("parse", size, () -> parseCommand(raw), c -> size);
+    StageTrace.Stage validate = trace.begin("validate", size);
     validator.validate(command);
+    validate.end(size);
+    commandCache.put(cacheKey, modelConfig, command);
     return command;
   }
 
   private ModifyStyleCommand parseCommand(String raw) {
-    String cleaned = stripCodeFence(raw);
+    String cleaned = CodeFences.strip(raw);
     try {
       return objectMapper.readValue(cleaned, ModifyStyleCommand.class);
     } catch (Exception e) {
       throw new IllegalStateException("样式指令解析失败: " + e.getMessage(), e);
     }
   }
-
-  private String stripCodeFence(String raw) {
-    if (raw == null) return "";
-    String trimmed = raw.trim();
-    if (trimmed.startsWith("```")) {
-      int idx = trimmed.indexOf('\n');
-      if (idx > 0) {
-        trimmed = trimmed.substring(idx + 1);
-      }
-      if (trimmed.endsWith("```")) {
-        trimmed = trimmed.substring(0, trimmed.length() - 3);
-      }
-    }
-    return trimmed.trim();
-  }
 }
@@ -0,0 +1,449 @@
+package com.easydraw.backend.style;
+
+import com.easydraw.backend.dto.ModifyStyleCommand;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地样式短语编译器：把“把连线改成红色”“make all edges dashed”这类简单、格式化的指令直接编译为
+ * {@link ModifyStyleCommand}，无需调用大模型。
+ *
+ * <p>只在有把握时返回结果：规范化后的文本必须能被词表完整切分（任何无法识别的字符都会放弃），并且
+ * 目标、属性与操作之间没有歧义（例如同时出现“边框”和“图形”时不判断颜色归属）。放弃时返回空，
+ * 由调用方回退到模型。
+ */
+@Component
+public class StylePhraseCompiler {
+
+  private enum Kind {
+    TARGET,
+    SUBJECT,
+    COLOR,
+    ACTION,
+    NUMBER,
+    MULTIPLIER,
+    SET,
+    FILLER
+  }
+
+  private enum Subject {
+    LINE,
+    BORDER,
+    TEXT,
+    FILL,
+    SHAPE
+  }
+
+  private enum Action {
+    DASHED,
+    SOLID,
+    ROUNDED,
+    SQUARE,
+    SHADOW,
+    CURVED,
+    THICKER,
+    THINNER,
+    BIGGER,
+    SMALLER,
+    DOUBLE,
+    MORE_TRANSPARENT,
+    SEMI_TRANSPARENT
+  }
+
+  private record Token(Kind kind, String value, double number) {
+
+    static Token of(Kind kind, String value) {
+      return new Token(kind, value, 0);
+    }
+
+    static Token number(double number) {
+      return new Token(Kind.NUMBER, null, number);
+    }
+  }
+
+  private static final Map<String, Token> VOCABULARY = buildVocabulary();
+
+  /**
+   * 尝试本地编译样式指令。
+   *
+   * @param prompt 用户原始输入
+   * @return 编译成功的指令；无法确定时为空
+   */
+  public Optional<ModifyStyleCommand> compile(String prompt) {
+    String text = StylePromptNormalizer.normalize(prompt);
+    if (text.isEmpty()) {
+      return Optional.empty();
+    }
+    List<Token> tokens = tokenize(text);
+    if (tokens == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(assemble(tokens));
+  }
+
+  private static List<Token> tokenize(String text) {
+    List<Token> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      if (c == ' ') {
+        i++;
+        continue;
+      }
+      if (c >= '0' && c <= '9') {
+        int end = i;
+        while (end < text.length()
+            && ((text.charAt(end) >= '0' && text.charAt(end) <= '9') || text.charAt(end) == '.')) {
+          end++;
+        }
+        try {
+          tokens.add(Token.number(Double.parseDouble(text.substring(i, end))));
+        } catch (NumberFormatException e) {
+          return null;
+        }
+        i = end;
+        continue;
+      }
+      if (c == '#') {
+        int end = i + 1;
+        while (end < text.length() && Character.digit(text.charAt(end), 16) >= 0) {
+          end++;
+        }
+        int digits = end - i - 1;
+        boolean glued = end < text.length() && isAsciiLetter(text.charAt(end));
+        if ((digits != 3 && digits != 6) || glued) {
+          return null;
+        }
+        tokens.add(Token.of(Kind.COLOR, text.substring(i, end).toUpperCase(Locale.ROOT)));
+        i = end;
+        continue;
+      }
+      String match = longestMatch(text, i);
+      if (match == null) {
+        // 出现词表外的内容，说明指令不是简单短语，交给模型
+        return null;
+      }
+      Token token = VOCABULARY.get(match);
+      if (token.kind() != Kind.FILLER) {
+        tokens.add(token);
+      }
+      i += match.length();
+    }
+    return tokens;
+  }
+
+  private static String longestMatch(String text, int start) {
+    String best = null;
+    for (String phrase : VOCABULARY.keySet()) {
+      if (best != null && phrase.length() <= best.length()) {
+        continue;
+      }
+      if (!text.startsWith(phrase, start)) {
+        continue;
+      }
+      int end = start + phrase.length();
+      // 英文词需要完整匹配，避免 red 命中 reduce
+      if (isAsciiLetter(phrase.charAt(phrase.length() - 1))
+          && end < text.length()
+          && isAsciiLetter(text.charAt(end))) {
+        continue;
+      }
+      best = phrase;
+    }
+    return best;
+  }
+
+  private static ModifyStyleCommand assemble(List<Token> tokens) {
+    String explicitTarget = null;
+    Set<Subject> subjects = EnumSet.noneOf(Subject.class);
+    Set<Action> actions = EnumSet.noneOf(Action.class);
+    String color = null;
+    Double number = null;
+    boolean multiplier = false;
+    boolean setVerb = false;
+
+    for (Token token : tokens) {
+      switch (token.kind()) {
+        case TARGET:
+          if (explicitTarget != null && !explicitTarget.equals(token.value())) {
+            return null;
+          }
+          explicitTarget = token.value();
+          break;
+        case SUBJECT:
+          subjects.add(Subject.valueOf(token.value()));
+          break;
+        case COLOR:
+          if (color != null && !color.equals(token.value())) {
+            return null;
+          }
+          color = token.value();
+          break;
+        case ACTION:
+          actions.add(Action.valueOf(token.value()));
+          break;
+        case NUMBER:
+          if (number != null) {
+            return null;
+          }
+          number = token.number();
+          break;
+        case MULTIPLIER:
+          if (number == null) {
+            return null;
+          }
+          multiplier = true;
+          break;
+        case SET:
+          setVerb = true;
+          break;
+        default:
+          break;
+      }
+    }
+
+    // 多个对象时（如“图形的边框”“线条和文字”）属性归属不确定，交给模型
+    if (subjects.size() > 1) {
+      return null;
+    }
+    Subject subject = subjects.isEmpty() ? null : subjects.iterator().next();
+    if ((actions.contains(Action.DASHED) && actions.contains(Action.SOLID))
+        || (actions.contains(Action.ROUNDED) && actions.contains(Action.SQUARE))
+        || (actions.contains(Action.THICKER) && actions.contains(Action.THINNER))
+        || (actions.contains(Action.BIGGER) && actions.contains(Action.SMALLER))
+        || (actions.contains(Action.DOUBLE) && actions.contains(Action.THINNER))
+        || (actions.contains(Action.DOUBLE) && actions.contains(Action.SMALLER))) {
+      return null;
+    }
+
+    String target = resolveTarget(explicitTarget, subject);
+    Map<String, Object> styles = new LinkedHashMap<>();
+    Map<String, ModifyStyleCommand.Operation> operations = new LinkedHashMap<>();
+    boolean numberUsed = false;
+
+    if (color != null) {
+      styles.put(colorProperty(subject, target), color);
+    }
+    if (actions.contains(Action.DASHED)) {
+      styles.put("dashed", 1);
+    }
+    if (actions.contains(Action.SOLID)) {
+      styles.put("dashed", 0);
+    }
+    if (actions.contains(Action.ROUNDED)) {
+      styles.put("rounded", 1);
+    }
+    if (actions.contains(Action.SQUARE)) {
+      styles.put("rounded", 0);
+    }
+    if (actions.contains(Action.SHADOW)) {
+      styles.put("shadow", 1);
+    }
+    if (actions.contains(Action.CURVED)) {
+      if (!"edges".equals(target)) {
+        return null;
+      }
+      styles.put("curved", 1);
+    }
+    if (actions.contains(Action.SEMI_TRANSPARENT)) {
+      styles.put("opacity", 50);
+    }
+    if (actions.contains(Action.MORE_TRANSPARENT)) {
+      operations.put("opacity", operation("decrease", 20));
+    }
+
+    if (actions.contains(Action.THICKER)) {
+      if (subject == Subject.TEXT) {
+        // 文字“加粗”指粗体
+        styles.put("fontStyle", 1);
+      } else if (subject == Subject.FILL) {
+        return null;
+      } else if (!actions.contains(Action.DOUBLE)) {
+        if (number != null && multiplier) {
+          operations.put("strokeWidth", operation("multiply", number));
+        } else {
+          operations.put("strokeWidth", operation("increase", number == null ? 2 : number));
+        }
+        numberUsed = number != null;
+      }
+    }
+    if (actions.contains(Action.THINNER)) {
+      if (subject == Subject.TEXT || subject == Subject.FILL || multiplier) {
+        return null;
+      }
+      operations.put("strokeWidth", operation("decrease", number == null ? 1 : number));
+      numberUsed = number != null;
+    }
+
+    if (actions.contains(Action.BIGGER) || actions.contains(Action.SMALLER)) {
+      if (subject != Subject.TEXT) {
+        // 图形“放大”没有对应的样式属性
+        return null;
+      }
+      if (actions.contains(Action.DOUBLE)) {
+        operations.put("fontSize", operation("multiply", 2));
+      } else if (number != null && multiplier) {
+        if (actions.contains(Action.SMALLER)) {
+          return null;
+        }
+        operations.put("fontSize", operation("multiply", number));
+        numberUsed = true;
+      } else if (actions.contains(Action.BIGGER)) {
+        operations.put("fontSize", operation("increase", number == null ? 4 : number));
+        numberUsed = number != null;
+      } else {
+        operations.put("fontSize", operation("decrease", number == null ? 2 : number));
+        numberUsed = number != null;
+      }
+    } else if (actions.contains(Action.DOUBLE)) {
+      if (subject == Subject.TEXT) {
+        operations.put("fontSize", operation("multiply", 2));
+      } else if (subject == null || subject == Subject.LINE || subject == Subject.BORDER) {
+        operations.put("strokeWidth", operation("multiply", 2));
+      } else {
+        return null;
+      }
+    }
+
+    if (number != null && !numberUsed) {
+      // “线条设为 5 像素”“字号改成 14”：只有数字时按绝对值设置
+      if (!operations.isEmpty() || multiplier || !setVerb) {
+        return null;
+      }
+      if (subject == Subject.TEXT) {
+        operations.put("fontSize", operation("set", number));
+      } else if (subject == Subject.LINE || subject == Subject.BORDER) {
+        operations.put("strokeWidth", operation("set", number));
+      } else {
+        return null;
+      }
+    }
+
+    if (styles.isEmpty() && operations.isEmpty()) {
+      return null;
+    }
+
+    ModifyStyleCommand command = new ModifyStyleCommand();
+    command.setAction("modifyStyle");
+    command.setTarget(target);
+    command.setStyles(styles.isEmpty() ? null : styles);
+    command.setOperations(operations.isEmpty() ? null : operations);
+    return command;
+  }
+
+  private static String resolveTarget(String explicitTarget, Subject subject) {
+    if ("selected".equals(explicitTarget)) {
+      return "selected";
+    }
+    if (subject == Subject.LINE) {
+      return "edges";
+    }
+    if (subject == Subject.SHAPE) {
+      return "vertices";
+    }
+    if (explicitTarget != null) {
+      return explicitTarget;
+    }
+    // 与提示词示例一致，未指明范围时作用于选中元素
+    return "selected";
+  }
+
+  private static String colorProperty(Subject subject, String target) {
+    if (subject == null || subject == Subject.SHAPE) {
+      return "edges".equals(target) ? "strokeColor" : "fillColor";
+    }
+    switch (subject) {
+      case TEXT:
+        return "fontColor";
+      case FILL:
+        return "fillColor";
+      default:
+        return "strokeColor";
+    }
+  }
+
+  private static ModifyStyleCommand.Operation operation(String op, double value) {
+    ModifyStyleCommand.Operation operation = new ModifyStyleCommand.Operation();
+    operation.setOp(op);
+    operation.setValue(value);
+    return operation;
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static Map<String, Token> buildVocabulary() {
+    Map<String, Token> v = new HashMap<>();
+    put(v, Kind.TARGET, "selected", "选中的", "选中", "所选", "选择的", "当前", "这个", "这些", "selected",
+        "selection", "this", "these");
+    put(v, Kind.TARGET, "all", "所有的", "所有", "全部的", "全部", "整个图", "全图", "all", "everything");
+
+    put(v, Kind.SUBJECT, "LINE", "连线", "连接线", "线条", "线宽", "粗细", "线", "边", "箭头", "edges", "edge",
+        "lines", "line", "connectors", "connector", "arrows", "arrow");
+    put(v, Kind.SUBJECT, "BORDER", "边框", "描边", "外框", "border", "borders", "outline", "stroke");
+    put(v, Kind.SUBJECT, "TEXT", "文字", "字体", "文本", "字号", "字", "标签", "text", "font", "fonts",
+        "label", "labels");
+    put(v, Kind.SUBJECT, "FILL", "填充", "背景", "底色", "fill", "background");
+    put(v, Kind.SUBJECT, "SHAPE", "图形", "形状", "节点", "方框", "框", "矩形", "shapes", "shape", "nodes",
+        "node", "boxes", "box", "vertices", "vertex");
+
+    // 与 STYLE_PROMPT 中的颜色参考表一致
+    color(v, "#FF0000", "红", "red");
+    color(v, "#0000FF", "蓝", "blue");
+    color(v, "#00FF00", "绿", "green");
+    color(v, "#FFFF00", "黄", "yellow");
+    color(v, "#FFA500", "橙", "orange");
+    color(v, "#800080", "紫", "purple");
+    color(v, "#FFC0CB", "粉", "pink");
+    color(v, "#000000", "黑", "black");
+    color(v, "#FFFFFF", "白", "white");
+    color(v, "#808080", "灰", "gray");
+    color(v, "#808080", "灰", "grey");
+    color(v, "#A52A2A", "棕", "brown");
+    color(v, "#00FFFF", "青", "cyan");
+
+    put(v, Kind.ACTION, "DASHED", "虚线", "dashed", "dash");
+    put(v, Kind.ACTION, "SOLID", "实线", "solid");
+    put(v, Kind.ACTION, "ROUNDED", "圆角", "rounded", "round");
+    put(v, Kind.ACTION, "SQUARE", "直角", "sharp");
+    put(v, Kind.ACTION, "SHADOW", "阴影", "shadow", "shadows");
+    put(v, Kind.ACTION, "CURVED", "曲线", "弯曲", "curved");
+    put(v, Kind.ACTION, "THICKER", "加粗", "变粗", "更粗", "粗", "thicker", "bolder", "bold");
+    put(v, Kind.ACTION, "THINNER", "变细", "更细", "细", "thinner");
+    put(v, Kind.ACTION, "BIGGER", "放大", "变大", "更大", "调大", "加大", "大", "bigger", "larger", "enlarge");
+    put(v, Kind.ACTION, "SMALLER", "缩小", "变小", "更小", "调小", "减小", "小", "smaller");
+    put(v, Kind.ACTION, "DOUBLE", "翻倍", "两倍", "double", "twice");
+    // 单独的“透明”“transparent”可能指完全透明（opacity 0 / 无填充），不做猜测，交给模型
+    put(v, Kind.ACTION, "MORE_TRANSPARENT", "更透明", "more transparent");
+    put(v, Kind.ACTION, "SEMI_TRANSPARENT", "半透明", "semi-transparent", "translucent");
+
+    put(v, Kind.MULTIPLIER, null, "倍", "x", "times");
+    put(v, Kind.SET, null, "改成", "改为", "变成", "换成", "设为", "设置为", "设置成", "设成", "调成", "调整为",
+        "调为", "设置", "改", "换", "为", "成", "to", "set", "change", "make", "turn", "into");
+    put(v, Kind.FILLER, null, "把", "将", "给", "让", "请", "帮我", "的", "一点", "一些", "点", "些", "都",
+        "并且", "并", "和", "然后", "再", "颜色", "色", "加上", "添加", "加", "显示", "使用", "用", "上", "它",
+        "它们", "像素", "px", "pt", "号", ",", ".", "and", "the", "a", "please", "color", "colour", "of",
+        "with", "add", "use", "be", "it", "them", "more", "bit", "little", "corners", "corner");
+    return v;
+  }
+
+  private static void color(Map<String, Token> v, String hex, String zh, String en) {
+    put(v, Kind.COLOR, hex, zh + "色", zh, en);
+  }
+
+  private static void put(Map<String, Token> v, Kind kind, String value, String... phrases) {
+    Token token = Token.of(kind, value);
+    for (String phrase : phrases) {
+      v.put(phrase, token);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.easydraw.backend.style;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * 样式指令的文本规范化：全角转半角、统一中文标点、折叠空白、忽略大小写与结尾标点。
+ *
+ * <p>例如 “把连线 改成红色。” 与 “把连线改成红色” 规范化后相同。
+ */
+public final class StylePromptNormalizer {
+
+  private StylePromptNormalizer() {}
+
+  public static String normalize(String prompt) {
+    if (prompt == null) {
+      return "";
+    }
+    // NFKC 会把全角字母、数字和大部分全角标点折叠为半角
+    String folded = Normalizer.normalize(prompt, Normalizer.Form.NFKC);
+    StringBuilder sb = new StringBuilder(folded.length());
+    boolean pendingSpace = false;
+    for (int i = 0; i < folded.length(); i++) {
+      char c = foldPunctuation(folded.charAt(i));
+      if (Character.isWhitespace(c)) {
+        pendingSpace = sb.length() > 0;
+        continue;
+      }
+      if (pendingSpace && !isCjk(c) && !isCjk(sb.charAt(sb.length() - 1))) {
+        // 中文之间的空格没有语义，英文单词之间保留一个
+        sb.append(' ');
+      }
+      pendingSpace = false;
+      sb.append(c);
+    }
+    int end = sb.length();
+    while (end > 0 && isTrailingPunctuation(sb.charAt(end - 1))) {
+      end--;
+    }
+    sb.setLength(end);
+    return sb.toString().toLowerCase(Locale.ROOT);
+  }
+
+  private static char foldPunctuation(char c) {
+    switch (c) {
+      case '。':
+        return '.';
+      case '、':
+        return ',';
+      case '“':
+      case '”':
+        return '"';
+      case '‘':
+      case '’':
+        return '\'';
+      default:
+        return c;
+    }
+  }
+
+  private static boolean isTrailingPunctuation(char c) {
+    return c == '.' || c == '!' || c == '?' || c == ',' || c == ';' || c == '~' || c == ' ';
+  }
+
+  private static boolean isCjk(char c) {
+    Character.UnicodeScript script = Character.UnicodeScript.of(c);
+    return script == Character.UnicodeScript.HAN;
+  }
+}
@@ -1,30 +1,172 @@
 package com.easydraw.backend.style;
 
+import com.easydraw.backend.config.StylePromptProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+/**
+ * 样式修改提示词模板。
+ *
+ * <p>STYLE_PROMPT 按 “## ” 标题拆成章节：前言、target 说明、示例与选择指南构成固定前缀（每次请求
+ * 完全相同，便于提供方的前缀缓存命中），属性表等章节由 {@link StyleSectionIndex} 按用户指令挑选
+ * top-k 附加在后，用户指令放在最后。没有命中任何章节或关闭检索时退回完整模板。
+ */
 @Component
 public class StylePromptTemplate {
 
+  private static final Logger log = LoggerFactory.getLogger(StylePromptTemplate.class);
+
+  private static final String PLACEHOLDER = "{user_input}";
+  private static final List<String> STATIC_SECTIONS =
+      List.of("AI 指令生成示例", "target 目标选择", "AI 指令选择指南");
+
   private final String template;
+  private final StylePromptProperties properties;
+  private final String staticPrefix;
+  private final List<String> sections;
+  private final String suffix;
+  private final StyleSectionIndex index;
+  private final DistributionSummary promptTokens;
+  private final DistributionSummary savedTokens;
 
-  public StylePromptTemplate() {
+  public StylePromptTemplate(StylePromptProperties properties, MeterRegistry meterRegistry) {
     this.template = loadTemplate();
+    this.properties = properties;
+
+    // 章节切分统一按 \n 处理，完整模板仍保持原样输出
+    String normalized = template.replace("\r\n", "\n");
+    int placeholder = normalized.indexOf(PLACEHOLDER);
+    int suffixStart =
+        placeholder < 0 ? normalized.length() : normalized.lastIndexOf('\n', placeholder) + 1;
+    this.suffix = normalized.substring(suffixStart).trim();
+
+    StringBuilder prefix = new StringBuilder();
+    List<String> staticBodies = new ArrayList<>();
+    List<String> headings = new ArrayList<>();
+    List<String> bodies = new ArrayList<>();
+    for (String chunk : splitSections(normalized.substring(0, suffixStart))) {
+      if (!chunk.startsWith("## ")) {
+        prefix.append(chunk);
+        continue;
+      }
+      int headingEnd = chunk.indexOf('\n');
+      String heading = chunk.substring(3, headingEnd < 0 ? chunk.length() : headingEnd);
+      if (STATIC_SECTIONS.stream().anyMatch(heading::startsWith)) {
+        staticBodies.add(chunk);
+      } else {
+        headings.add(heading.trim());
+        bodies.add(chunk);
+      }
+    }
+    for (String body : staticBodies) {
+      prefix.append("\n\n").append(body);
+    }
+    this.staticPrefix = prefix.toString();
+    this.sections = bodies;
+    this.index = new StyleSectionIndex(headings, bodies);
+
+    this.promptTokens = meterRegistry.summary("style.prompt.tokens.estimated");
+    this.savedTokens = meterRegistry.summary("style.prompt.tokens.saved");
   }
 
   public String render(String userInput) {
-    if (template.contains("{user_input}")) {
-      return template.replace("{user_input}", userInput);
+    String full = renderFull(userInput);
+    if (!properties.isRetrievalEnabled() || sections.isEmpty()) {
+      return full;
+    }
+
+    List<Integer> selected =
+        index.select(StylePromptNormalizer.normalize(userInput), properties.getTopK());
+    if (selected.isEmpty()) {
+      // 识别不出相关章节时宁可多发，保证指令准确
+      return full;
+    }
+
+    Set<Integer> chosen = new HashSet<>(selected);
+    StringBuilder sb = new StringBuilder(staticPrefix.length() + 4096);
+    sb.append(staticPrefix);
+    for (int i = 0; i < sections.size(); i++) {
+      if (chosen.contains(i)) {
+        sb.append("\n\n").append(sections.get(i));
+      }
+    }
+    sb.append("\n\n");
+    if (suffix.contains(PLACEHOLDER)) {
+      sb.append(suffix.replace(PLACEHOLDER, userInput));
+    } else {
+      sb.append(suffix).append('\n').append("用户指令: ").append(userInput);
+    }
+    String trimmed = sb.toString();
+
+    long fullTokens = estimateTokens(full);
+    long trimmedTokens = estimateTokens(trimmed);
+    promptTokens.record(trimmedTokens);
+    savedTokens.record(fullTokens - trimmedTokens);
+    log.debug(
+        "样式提示词裁剪: sections={}, tokens≈{} -> {}", selected, fullTokens, trimmedTokens);
+    return trimmed;
+  }
+
+  /**
+   * 完整模板（不做章节裁剪）。
+   */
+  public String renderFull(String userInput) {
+    if (template.contains(PLACEHOLDER)) {
+      return template.replace(PLACEHOLDER, userInput);
     }
     return template + System.lineSeparator() + "用户指令: " + userInput;
   }
 
+  /**
+   * 粗略估算 token 数：ASCII 约 4 字符一个 token，中文等约 1 字符一个 token。
+   */
+  static long estimateTokens(String text) {
+    long ascii = 0;
+    long other = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) < 128) {
+        ascii++;
+      } else {
+        other++;
+      }
+    }
+    return other + (ascii + 3) / 4;
+  }
+
+  private static List<String> splitSections(String text) {
+    List<String> chunks = new ArrayList<>();
+    int start = 0;
+    while (start < text.length()) {
+      int next = text.indexOf("\n## ", start);
+      int end = next < 0 ? text.length() : next + 1;
+      String chunk = stripSeparator(text.substring(start, end));
+      if (!chunk.isEmpty()) {
+        chunks.add(chunk);
+      }
+      start = end;
+    }
+    return chunks;
+  }
+
+  private static String stripSeparator(String chunk) {
+    String trimmed = chunk.trim();
+    while (trimmed.endsWith("---")) {
+      trimmed = trimmed.substring(0, trimmed.length() - 3).trim();
+    }
+    return trimmed;
+  }
+
   private String loadTemplate() {
     // 从 classpath 读取模板文件
     ClassPathResource resource = new ClassPathResource("STYLE_PROMPT");
@@ -34,4 +176,4 @@ public class StylePromptTemplate {
       throw new IllegalStateException("无法读取 STYLE_PROMPT(classpath)", e);
     }
   }
-}
\ No newline at end of file
+}
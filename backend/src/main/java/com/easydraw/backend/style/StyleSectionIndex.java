@@ -0,0 +1,213 @@
+package com.easydraw.backend.style;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * STYLE_PROMPT 章节的本地关键词/二元组索引，用于按用户指令挑选相关章节。
+ *
+ * <p>每个章节的检索词由三部分组成：人工维护的同义词（中英文）、章节中反引号包裹的属性名，以及标题的
+ * 中文二元组；词的权重按出现的章节数做 IDF 式衰减。正文的中文二元组只作为弱信号，用于打破平分。
+ *
+ * <p>英文词按整词匹配（允许 s/es/d/ed/ing 词尾），避免 red、end、top 误中 ordered、append、stop；
+ * 中文词与符号没有词边界，仍按子串匹配。
+ */
+public final class StyleSectionIndex {
+
+  private static final Pattern BACKTICK = Pattern.compile("`([A-Za-z][A-Za-z0-9]*)`");
+  private static final Pattern WORD = Pattern.compile("[a-z]+");
+  private static final List<String> WORD_SUFFIXES = List.of("s", "es", "d", "ed", "ing");
+  private static final double BODY_BIGRAM_WEIGHT = 0.05;
+
+  /**
+   * 章节标题前缀 -> 同义词。标题未在此列出的章节只靠属性名与二元组检索。
+   */
+  private static final Map<String, List<String>> SYNONYMS =
+      Map.ofEntries(
+          Map.entry(
+              "颜色属性",
+              List.of("颜色", "色", "红", "蓝", "绿", "黄", "橙", "紫", "粉", "黑", "白", "灰", "棕", "青",
+                  "填充", "背景", "边框", "color", "red", "blue", "green", "yellow", "orange",
+                  "purple", "pink", "black", "white", "gray", "grey", "brown", "cyan", "fill",
+                  "background", "#")),
+          Map.entry(
+              "线条属性",
+              List.of("线", "边", "粗", "细", "虚", "实线", "圆角", "直角", "曲线", "弯", "line", "edge",
+                  "dash", "solid", "stroke", "width", "thick", "thin", "round", "curve", "corner")),
+          Map.entry(
+              "透明度属性",
+              List.of("透明", "淡", "不透明", "opacity", "transparent", "translucent", "fade")),
+          Map.entry(
+              "字体属性",
+              List.of("字", "文本", "粗体", "斜体", "下划线", "标签", "font", "text", "bold", "italic",
+                  "underline", "label")),
+          Map.entry(
+              "对齐属性",
+              List.of("对齐", "居中", "靠左", "靠右", "顶部", "底部", "align", "center", "left", "right",
+                  "top", "bottom", "middle")),
+          Map.entry(
+              "箭头属性",
+              List.of("箭头", "起点", "终点", "arrow", "start", "end")),
+          Map.entry("阴影属性", List.of("阴影", "投影", "shadow")),
+          Map.entry(
+              "尺寸和位置属性",
+              List.of("旋转", "角度", "度", "内边距", "间距", "留白", "rotate", "rotation", "spacing",
+                  "padding")),
+          Map.entry(
+              "行为属性",
+              List.of("编辑", "移动", "锁定", "固定", "调整大小", "删除", "折叠", "弯曲", "lock", "move",
+                  "edit", "resize", "delete", "fold")),
+          Map.entry(
+              "形状属性",
+              List.of("形状", "椭圆", "圆形", "菱形", "三角", "六边形", "圆柱", "人形", "云", "平行四边形",
+                  "文档", "标注", "矩形", "shape", "ellipse", "circle", "rhombus", "diamond",
+                  "triangle", "hexagon", "cylinder", "actor", "cloud", "rectangle")),
+          Map.entry(
+              "颜色参考",
+              List.of("红", "蓝", "绿", "黄", "橙", "紫", "粉", "黑", "白", "灰", "棕", "青", "red",
+                  "blue", "green", "yellow", "orange", "purple", "pink", "black", "white", "gray",
+                  "grey", "brown", "cyan")),
+          Map.entry(
+              "相对操作",
+              List.of("加粗", "变粗", "变细", "放大", "缩小", "变大", "变小", "增加", "减少", "调大", "调小",
+                  "倍", "翻倍", "一点", "一些", "更", "像素", "px", "设为", "increase", "decrease",
+                  "multiply", "bigger", "smaller", "larger", "thicker", "thinner", "double",
+                  "twice", "more", "less")));
+
+  private final List<Entry> entries;
+
+  public StyleSectionIndex(List<String> headings, List<String> bodies) {
+    List<Entry> built = new ArrayList<>(headings.size());
+    for (int i = 0; i < headings.size(); i++) {
+      String heading = headings.get(i);
+      String body = bodies.get(i);
+      Set<String> terms = new HashSet<>();
+      for (Map.Entry<String, List<String>> synonym : SYNONYMS.entrySet()) {
+        if (heading.startsWith(synonym.getKey())) {
+          for (String word : synonym.getValue()) {
+            terms.add(word.toLowerCase(Locale.ROOT));
+          }
+        }
+      }
+      Matcher m = BACKTICK.matcher(body);
+      while (m.find()) {
+        terms.add(m.group(1).toLowerCase(Locale.ROOT));
+      }
+      terms.addAll(cjkBigrams(heading));
+      built.add(new Entry(i, terms, cjkBigrams(body)));
+    }
+
+    Map<String, Integer> documentFrequency = new HashMap<>();
+    for (Entry entry : built) {
+      for (String term : entry.terms) {
+        documentFrequency.merge(term, 1, Integer::sum);
+      }
+    }
+    for (Entry entry : built) {
+      for (String term : entry.terms) {
+        double weight = 1.0 / documentFrequency.get(term);
+        if (WORD.matcher(term).matches()) {
+          entry.wordWeights.put(term, weight);
+        } else {
+          entry.substringWeights.put(term, weight);
+        }
+      }
+    }
+    this.entries = built;
+  }
+
+  /**
+   * 选出与指令最相关的章节。
+   *
+   * @param normalizedInput 经 {@link StylePromptNormalizer} 规范化的指令
+   * @param topK 最多返回的章节数
+   * @return 章节下标（按相关度降序）；没有任何命中时为空
+   */
+  public List<Integer> select(String normalizedInput, int topK) {
+    Set<String> inputWords = words(normalizedInput);
+    Set<String> inputBigrams = cjkBigrams(normalizedInput);
+    List<double[]> scored = new ArrayList<>();
+    for (Entry entry : entries) {
+      double score = 0;
+      for (Map.Entry<String, Double> term : entry.wordWeights.entrySet()) {
+        if (inputWords.contains(term.getKey())) {
+          score += term.getValue();
+        }
+      }
+      for (Map.Entry<String, Double> term : entry.substringWeights.entrySet()) {
+        if (normalizedInput.contains(term.getKey())) {
+          score += term.getValue();
+        }
+      }
+      if (score <= 0) {
+        continue;
+      }
+      for (String bigram : inputBigrams) {
+        if (entry.bodyBigrams.contains(bigram)) {
+          score += BODY_BIGRAM_WEIGHT;
+        }
+      }
+      scored.add(new double[] {entry.position, score});
+    }
+    scored.sort(Comparator.comparingDouble((double[] s) -> s[1]).reversed());
+    List<Integer> result = new ArrayList<>(Math.min(topK, scored.size()));
+    for (int i = 0; i < scored.size() && i < topK; i++) {
+      result.add((int) scored.get(i)[0]);
+    }
+    return result;
+  }
+
+  /**
+   * 输入中的英文单词，以及去掉常见词尾后的词干（edges -> edge，dashed -> dash）。
+   */
+  static Set<String> words(String text) {
+    Set<String> words = new HashSet<>();
+    Matcher m = WORD.matcher(text);
+    while (m.find()) {
+      String word = m.group();
+      words.add(word);
+      for (String suffix : WORD_SUFFIXES) {
+        if (word.length() > suffix.length() + 1 && word.endsWith(suffix)) {
+          words.add(word.substring(0, word.length() - suffix.length()));
+        }
+      }
+    }
+    return words;
+  }
+
+  static Set<String> cjkBigrams(String text) {
+    Set<String> bigrams = new HashSet<>();
+    for (int i = 0; i + 1 < text.length(); i++) {
+      if (isHan(text.charAt(i)) && isHan(text.charAt(i + 1))) {
+        bigrams.add(text.substring(i, i + 2));
+      }
+    }
+    return bigrams;
+  }
+
+  private static boolean isHan(char c) {
+    return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+  }
+
+  private static final class Entry {
+    private final int position;
+    private final Set<String> terms;
+    private final Set<String> bodyBigrams;
+    private final Map<String, Double> wordWeights = new HashMap<>();
+    private final Map<String, Double> substringWeights = new HashMap<>();
+
+    private Entry(int position, Set<String> terms, Set<String> bodyBigrams) {
+      this.position = position;
+      this.terms = terms;
+      this.bodyBigrams = bodyBigrams;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.easydraw.backend.util;
+
+/**
+ * 去除模型输出外层的 Markdown 围栏代码块（如 ```mermaid ... ```）。
+ */
+public final class CodeFences {
+
+  private CodeFences() {}
+
+  public static String strip(String raw) {
+    if (raw == null) return "";
+    String trimmed = raw.trim();
+    if (trimmed.startsWith("```")) {
+      // remove leading fence
+      int idx = trimmed.indexOf('\n');
+      if (idx > 0) {
+        trimmed = trimmed.substring(idx + 1);
+      }
+      // remove trailing fence
+      if (trimmed.endsWith("```")) {
+        trimmed = trimmed.substring(0, trimmed.length() - 3);
+      }
+    }
+    return trimmed.trim();
+  }
+}
@@ -0,0 +1,28 @@
+package com.easydraw.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 摘要工具：用于生成缓存键等场景，避免明文 apiKey 等敏感信息留在键里。
+ */
+public final class Digests {
+
+  private Digests() {}
+
+  public static String sha256Hex(String value) {
+    MessageDigest digest = newSha256();
+    byte[] hash = digest.digest((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    return HexFormat.of().formatHex(hash);
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("JVM 不支持 SHA-256", e);
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package com.easydraw.backend.web;
 
+import com.easydraw.backend.ai.AiOverloadedException;
+import com.easydraw.backend.service.DiagramJobNotFoundException;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -33,6 +36,29 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
   }
 
+  @ExceptionHandler(DiagramJobNotFoundException.class)
+  public ResponseEntity<Map<String, Object>> handleNotFound(DiagramJobNotFoundException e) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("message", e.getMessage());
+    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+  }
+
+  @ExceptionHandler(AiOverloadedException.class)
+  public ResponseEntity<Map<String, Object>> handleOverloaded(AiOverloadedException e) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("message", e.getMessage());
+    body.put("reason", e.getReason().name());
+    // 排队已满是调用方过多（429），排队超时或端点熔断是服务端处理不过来（503）
+    HttpStatus status =
+        e.getReason() == AiOverloadedException.Reason.QUEUE_FULL
+            ? HttpStatus.TOO_MANY_REQUESTS
+            : HttpStatus.SERVICE_UNAVAILABLE;
+    long retryAfterSeconds = Math.max(1, e.getRetryAfter().toSeconds());
+    return ResponseEntity.status(status)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(body);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<Map<String, Object>> handleAny(Exception e) {
     Map<String, Object> body = new HashMap<>();
@@ -0,0 +1,169 @@
+package com.easydraw.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.easydraw.backend.config.BulkheadProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 闲置端点清理：有调用在进行的端点不清理，清理只移除被清理端点自己的指标。调用方自身的错误不收缩
+ * 共享端点的上限。
+ */
+class EndpointBulkheadTest {
+
+  private static final String BUSY = "https://busy.example.com/v1";
+  private static final String OTHER = "https://other.example.com/v1";
+  private static final Duration IDLE = Duration.ofMillis(50);
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final EndpointBulkhead bulkhead = new EndpointBulkhead(properties(), registry);
+
+  @Test
+  void endpointWithCallInFlightIsNotEvicted() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    Thread caller =
+        new Thread(
+            () ->
+                bulkhead.execute(
+                    BUSY,
+                    "gpt-4o",
+                    () -> {
+                      started.countDown();
+                      await(finish);
+                      return "ok";
+                    }));
+    caller.start();
+    started.await(5, TimeUnit.SECONDS);
+
+    idle();
+    bulkhead.execute(OTHER, "gpt-4o", () -> "ok");
+    assertEquals(1.0, gauge("ai.bulkhead.inflight", BUSY).value(), "进行中的端点不应被清理");
+
+    finish.countDown();
+    caller.join(5_000);
+    idle();
+    bulkhead.execute(OTHER, "gpt-4o", () -> "ok");
+    assertNull(registry.find("ai.bulkhead.inflight").tag("endpoint", BUSY).gauge());
+    assertEquals(1, bulkhead.size());
+  }
+
+  @Test
+  void recreatedEndpointKeepsItsOwnMeters() throws Exception {
+    bulkhead.execute(BUSY, "gpt-4o", () -> "ok");
+    idle();
+    // 这次调用先清理旧端点再重建，新端点的指标不能被旧端点的清理删掉
+    bulkhead.execute(BUSY, "gpt-4o", () -> "ok");
+
+    assertEquals(1, bulkhead.size());
+    assertEquals(10.0, gauge("ai.bulkhead.limit", BUSY).value());
+    assertEquals(0.0, gauge("ai.bulkhead.inflight", BUSY).value());
+    assertEquals(1, registry.find("ai.bulkhead.limit").gauges().size());
+  }
+
+  @Test
+  void clientErrorsLeaveLimitUnchanged() {
+    for (int status : new int[] {400, 401, 403, 404}) {
+      for (int i = 0; i < 5; i++) {
+        assertThrows(
+            ProviderHttpException.class,
+            () ->
+                bulkhead.execute(
+                    BUSY,
+                    "gpt-4o",
+                    () -> {
+                      throw new ProviderHttpException(status, null, "client error");
+                    }));
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                bulkhead
+                    .execute(
+                        BUSY,
+                        "gpt-4o",
+                        Mono.error(
+                            new IllegalStateException(
+                                "调用大模型异常", new ProviderHttpException(status, null, ""))))
+                    .block());
+      }
+    }
+    assertEquals(10.0, gauge("ai.bulkhead.limit", BUSY).value(), "4xx 不应收缩端点上限");
+    assertEquals(0.0, gauge("ai.bulkhead.inflight", BUSY).value());
+  }
+
+  @Test
+  void endpointFailuresShrinkLimit() {
+    assertThrows(
+        ProviderHttpException.class,
+        () ->
+            bulkhead.execute(
+                BUSY,
+                "gpt-4o",
+                () -> {
+                  throw new ProviderHttpException(503, null, "unavailable");
+                }));
+    assertThrows(
+        ProviderHttpException.class,
+        () ->
+            bulkhead
+                .execute(
+                    BUSY, "gpt-4o", Mono.error(new ProviderHttpException(429, null, "slow down")))
+                .block());
+    // 初始上限 10，每次故障乘以 backoffRatio 0.9：10 -> 9 -> 8.1
+    assertEquals(8.0, gauge("ai.bulkhead.limit", BUSY).value());
+  }
+
+  @Test
+  void cancellationCountsAsFailureOnlyWhenTimedOut() {
+    AtomicBoolean timedOut = new AtomicBoolean();
+    Disposable cancelled =
+        bulkhead.execute(BUSY, "gpt-4o", Flux.never(), timedOut::get).subscribe();
+    cancelled.dispose();
+    // 对冲落败、客户端断开等普通取消不调整上限
+    assertEquals(10.0, gauge("ai.bulkhead.limit", BUSY).value());
+
+    Disposable timedOutCall =
+        bulkhead.execute(BUSY, "gpt-4o", Flux.never(), timedOut::get).subscribe();
+    timedOut.set(true);
+    timedOutCall.dispose();
+    assertEquals(9.0, gauge("ai.bulkhead.limit", BUSY).value());
+    assertEquals(0.0, gauge("ai.bulkhead.inflight", BUSY).value());
+  }
+
+  private Gauge gauge(String name, String endpoint) {
+    Gauge gauge = registry.find(name).tag("endpoint", endpoint).gauge();
+    assertNotNull(gauge, name + " 缺失: " + endpoint);
+    return gauge;
+  }
+
+  private static void idle() throws InterruptedException {
+    Thread.sleep(IDLE.toMillis() * 3);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static BulkheadProperties properties() {
+    BulkheadProperties properties = new BulkheadProperties();
+    properties.setIdleExpiry(IDLE);
+    return properties;
+  }
+}
@@ -0,0 +1,165 @@
+package com.easydraw.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.easydraw.backend.config.CircuitBreakerProperties;
+import com.easydraw.backend.dto.ModelConfig;
+import com.easydraw.backend.dto.ModelEndpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Mono;
+
+/**
+ * 失败分类：端点故障计入熔断并切换端点，请求方自身的错误直接抛出、不计入熔断。
+ */
+class ModelEndpointFailoverTest {
+
+  private static final String PRIMARY = "https://shared.example.com/v1";
+  private static final String FALLBACK = "https://backup.example.com/v1";
+
+  private final ModelEndpointFailover failover =
+      new ModelEndpointFailover(properties(), new SimpleMeterRegistry());
+
+  @Test
+  void clientErrorsAreRethrownWithoutFailoverOrBreakerFailure() {
+    List<Supplier<RuntimeException>> clientErrors =
+        List.of(
+            () -> new ProviderHttpException(401, null, "invalid api key"),
+            () -> new ProviderHttpException(403, null, "forbidden"),
+            () -> new ProviderHttpException(400, null, "bad request"),
+            () -> new ProviderHttpException(404, null, "model not found"),
+            // SpringAiClient 把提供方异常包装成 IllegalStateException
+            () -> new IllegalStateException("调用大模型异常", new ProviderHttpException(401, null, "")),
+            () -> new IllegalStateException("缺少模型配置：请在请求中提供 baseUrl 与 apiKey"));
+    for (Supplier<RuntimeException> error : clientErrors) {
+      RuntimeException expected = error.get();
+      List<String> called = new ArrayList<>();
+      RuntimeException thrown =
+          assertThrows(
+              RuntimeException.class,
+              () ->
+                  failover.execute(
+                      config(),
+                      target -> {
+                        called.add(target.getBaseUrl());
+                        throw expected;
+                      }));
+      assertSame(expected, thrown);
+      assertEquals(List.of(PRIMARY), called, "客户端错误不应切换端点");
+      assertEquals("CLOSED", state(PRIMARY));
+      assertEquals(0, bufferedCalls(PRIMARY), "客户端错误不应计入熔断窗口");
+    }
+  }
+
+  @Test
+  void endpointFailuresFailOverAndCountTowardsBreaker() {
+    List<Supplier<RuntimeException>> endpointErrors =
+        List.of(
+            () -> new ProviderHttpException(503, null, "unavailable"),
+            () -> new ProviderHttpException(429, null, "rate limited"),
+            () -> new ProviderHttpException(408, null, "timeout"),
+            () -> new IllegalStateException("调用大模型异常", new ResourceAccessException("io")),
+            () -> new IllegalStateException("调用大模型异常", new IOException("reset")),
+            () -> new IllegalStateException("超时", new TimeoutException()));
+    for (Supplier<RuntimeException> error : endpointErrors) {
+      ModelEndpointFailover fresh =
+          new ModelEndpointFailover(properties(), new SimpleMeterRegistry());
+      String result =
+          fresh.execute(
+              config(),
+              target -> {
+                if (PRIMARY.equals(target.getBaseUrl())) {
+                  throw error.get();
+                }
+                return "ok";
+              });
+      assertEquals("ok", result);
+      // minimumCalls = 1：一次端点故障即熔断
+      assertEquals("OPEN", state(fresh, PRIMARY));
+    }
+  }
+
+  @Test
+  void reactiveClientErrorDoesNotFailOver() {
+    List<String> called = new ArrayList<>();
+    ProviderHttpException unauthorized = new ProviderHttpException(401, null, "invalid api key");
+    RuntimeException thrown =
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                failover
+                    .executeMono(
+                        config(),
+                        target -> {
+                          called.add(target.getBaseUrl());
+                          return Mono.<String>error(unauthorized);
+                        })
+                    .block());
+    assertSame(unauthorized, thrown);
+    assertEquals(List.of(PRIMARY), called);
+    assertEquals(0, bufferedCalls(PRIMARY));
+  }
+
+  @Test
+  void reactiveEndpointFailureFailsOver() {
+    String result =
+        failover
+            .executeMono(
+                config(),
+                target ->
+                    PRIMARY.equals(target.getBaseUrl())
+                        ? Mono.error(new ProviderHttpException(502, null, "bad gateway"))
+                        : Mono.just("ok"))
+            .block();
+    assertEquals("ok", result);
+    assertEquals("OPEN", state(PRIMARY));
+  }
+
+  private String state(String baseUrl) {
+    return state(failover, baseUrl);
+  }
+
+  private static String state(ModelEndpointFailover failover, String baseUrl) {
+    return String.valueOf(endpoint(failover, baseUrl).get("state"));
+  }
+
+  private int bufferedCalls(String baseUrl) {
+    Map<String, Object> endpoint = endpoint(failover, baseUrl);
+    return endpoint == null ? 0 : (Integer) endpoint.get("bufferedCalls");
+  }
+
+  private static Map<String, Object> endpoint(ModelEndpointFailover failover, String baseUrl) {
+    return failover.snapshot().stream()
+        .filter(e -> baseUrl.equals(e.get("endpoint")))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static CircuitBreakerProperties properties() {
+    CircuitBreakerProperties properties = new CircuitBreakerProperties();
+    properties.setMinimumCalls(1);
+    properties.setFailureRateThreshold(50);
+    return properties;
+  }
+
+  private static ModelConfig config() {
+    ModelEndpoint fallback = new ModelEndpoint();
+    fallback.setBaseUrl(FALLBACK);
+    fallback.setApiKey("fallback-key");
+    ModelConfig config = new ModelConfig();
+    config.setBaseUrl(PRIMARY);
+    config.setApiKey("tenant-key");
+    config.setModel("gpt-4o");
+    config.setFallbacks(List.of(fallback));
+    return config;
+  }
+}
@@ -0,0 +1,94 @@
+package com.easydraw.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.easydraw.backend.config.HedgingProperties;
+import com.easydraw.backend.dto.ModelConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * 对冲延迟用虚拟时间推进：主请求先结束时不应再等待对冲延迟。
+ */
+class RequestHedgerTest {
+
+  private static final Duration HEDGE_DELAY = Duration.ofSeconds(10);
+  private static final Duration VERIFY_TIMEOUT = Duration.ofSeconds(5);
+
+  private final RequestHedger hedger = new RequestHedger(properties(), new SimpleMeterRegistry());
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  void rejectedPrimaryResultReturnsWithoutWaitingForHedgeDelay() {
+    StepVerifier.withVirtualTime(
+            () ->
+                hedger.hedge(
+                    config(),
+                    c -> {
+                      calls.incrementAndGet();
+                      return Mono.just("invalid");
+                    },
+                    value -> false))
+        .expectNext("invalid")
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void failedPrimaryReturnsWithoutWaitingForHedgeDelay() {
+    StepVerifier.withVirtualTime(
+            () ->
+                hedger.hedge(
+                    config(),
+                    c -> {
+                      calls.incrementAndGet();
+                      return Mono.<String>error(new IllegalStateException("boom"));
+                    },
+                    value -> true))
+        .expectErrorMessage("boom")
+        .verify(VERIFY_TIMEOUT);
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void slowPrimaryIsHedgedAfterDelay() {
+    StepVerifier.withVirtualTime(
+            () ->
+                hedger.hedge(
+                    config(),
+                    c ->
+                        calls.getAndIncrement() == 0
+                            ? Mono.delay(Duration.ofSeconds(60)).thenReturn("primary")
+                            : Mono.just("hedge"),
+                    value -> true))
+        .expectSubscription()
+        .expectNoEvent(HEDGE_DELAY.minusMillis(1))
+        .thenAwait(Duration.ofMillis(1))
+        .expectNext("hedge")
+        .expectComplete()
+        .verify(VERIFY_TIMEOUT);
+    assertEquals(2, calls.get());
+  }
+
+  private static HedgingProperties properties() {
+    HedgingProperties properties = new HedgingProperties();
+    properties.setEnabled(true);
+    properties.setInitialDelay(HEDGE_DELAY);
+    properties.setMaxHedgeRatio(1.0);
+    properties.setBurst(1);
+    return properties;
+  }
+
+  private static ModelConfig config() {
+    ModelConfig config = new ModelConfig();
+    config.setBaseUrl("https://api.example.com/v1");
+    config.setApiKey("key");
+    config.setModel("gpt-4o");
+    return config;
+  }
+}
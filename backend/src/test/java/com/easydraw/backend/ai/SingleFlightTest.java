@@ -0,0 +1,105 @@
+package com.easydraw.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private final SingleFlight<String, String> flight =
+      new SingleFlight<>("test", Duration.ofMillis(100), new SimpleMeterRegistry());
+
+  @Test
+  void leaderRunsOnCallerThread() {
+    AtomicReference<Thread> ran = new AtomicReference<>();
+
+    String result =
+        flight.execute(
+            "k",
+            () -> {
+              ran.set(Thread.currentThread());
+              return "ok";
+            });
+
+    assertEquals("ok", result);
+    assertSame(Thread.currentThread(), ran.get());
+    assertEquals(0, flight.inFlight());
+  }
+
+  @Test
+  void followerReceivesLeaderError() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                flight.execute(
+                    "k",
+                    () -> {
+                      started.countDown();
+                      finish.await(5, TimeUnit.SECONDS);
+                      throw new IllegalStateException("调用大模型异常");
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<String> follower =
+        CompletableFuture.supplyAsync(() -> flight.execute("k", () -> "second call"));
+    // 等待者登记后再放行 leader
+    Thread.sleep(20);
+    finish.countDown();
+
+    IllegalStateException error =
+        assertThrows(IllegalStateException.class, () -> unwrap(follower));
+    assertEquals("调用大模型异常", error.getMessage());
+    assertThrows(IllegalStateException.class, () -> unwrap(leader));
+  }
+
+  @Test
+  void followerTimesOutWithoutAffectingLeader() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                flight.execute(
+                    "k",
+                    () -> {
+                      started.countDown();
+                      finish.await(5, TimeUnit.SECONDS);
+                      return "late";
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    IllegalStateException error =
+        assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> "unused"));
+    assertInstanceOf(TimeoutException.class, error.getCause());
+
+    // 等待者超时不打断 leader，调用结束后相同 key 发起新调用
+    finish.countDown();
+    assertEquals("late", leader.get(5, TimeUnit.SECONDS));
+    assertEquals("fresh", flight.execute("k", () -> "fresh"));
+  }
+
+  private static String unwrap(CompletableFuture<String> future) throws Exception {
+    try {
+      return future.get(5, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.easydraw.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.easydraw.backend.config.ResultCacheProperties;
+import com.easydraw.backend.dto.ModelConfig;
+import com.easydraw.backend.dto.ModifyStyleCommand;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class StyleCommandCacheTest {
+
+  private static final String PROMPT = "把连线改成品牌色";
+
+  private final StyleCommandCache cache =
+      new StyleCommandCache(new ResultCacheProperties(), new SimpleMeterRegistry());
+
+  @Test
+  void commandsAreCachedPerModel() {
+    cache.put(PROMPT, config("https://api.example.com/v1", "gpt-4o", "key-a"), command());
+
+    assertNull(cache.get(PROMPT, config("https://api.example.com/v1", "gpt-4o-mini", "key-a")));
+    assertNull(cache.get(PROMPT, config("https://other.example.com/v1", "gpt-4o", "key-a")));
+    assertNull(cache.get(PROMPT, null));
+  }
+
+  @Test
+  void keyIgnoresApiKeyAndBaseUrlSpelling() {
+    cache.put(PROMPT, config("https://api.example.com/v1", "gpt-4o", "key-a"), command());
+
+    ModifyStyleCommand cached =
+        cache.get(
+            PROMPT, config("HTTPS://API.example.com/v1/chat/completions/", " GPT-4o ", "key-b"));
+    assertNotNull(cached);
+    assertEquals("#336699", cached.getStyles().get("strokeColor"));
+  }
+
+  private static ModifyStyleCommand command() {
+    ModifyStyleCommand command = new ModifyStyleCommand();
+    command.setAction("modifyStyle");
+    command.setTarget("edges");
+    command.setStyles(Map.of("strokeColor", "#336699"));
+    return command;
+  }
+
+  private static ModelConfig config(String baseUrl, String model, String apiKey) {
+    ModelConfig config = new ModelConfig();
+    config.setBaseUrl(baseUrl);
+    config.setModel(model);
+    config.setApiKey(apiKey);
+    return config;
+  }
+}
@@ -0,0 +1,85 @@
+package com.easydraw.backend.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.easydraw.backend.config.MetricTagProperties;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BoundedTagMeterFilterTest {
+
+  @Test
+  void modelsBeyondLimitAreFoldedIntoOther() {
+    MeterRegistry registry = registry(3);
+    for (int i = 0; i < 10; i++) {
+      timer(registry, "model-" + i).record(Duration.ofMillis(5));
+    }
+
+    Set<String> models =
+        registry.find("ai.call").timers().stream()
+            .map(t -> t.getId().getTag("model"))
+            .collect(Collectors.toSet());
+    assertEquals(Set.of("model-0", "model-1", "model-2", BoundedTagMeterFilter.OTHER), models);
+    assertEquals(7, registry.get("ai.call").tag("model", "other").timer().count());
+    // 已保留的取值不受后来者影响
+    assertEquals(1, registry.get("ai.call").tag("model", "model-1").timer().count());
+  }
+
+  @Test
+  void otherDoesNotPublishHistogram() {
+    BoundedTagMeterFilter filter = filter(1);
+    Meter.Id kept = filter.map(id("gpt-4o"));
+    Meter.Id folded = filter.map(id("tenant-model"));
+    DistributionStatisticConfig histogram =
+        DistributionStatisticConfig.builder().percentilesHistogram(true).build();
+
+    assertTrue(filter.configure(kept, histogram).isPercentileHistogram());
+    assertEquals(BoundedTagMeterFilter.OTHER, folded.getTag("model"));
+    assertFalse(filter.configure(folded, histogram).isPercentileHistogram());
+  }
+
+  @Test
+  void overflowingEndpointGaugesAreNotRegistered() {
+    MeterRegistry registry = registry(1);
+    registry.gauge("ai.bulkhead.limit", Tags.of("endpoint", "a"), 1);
+    registry.gauge("ai.bulkhead.limit", Tags.of("endpoint", "b"), 2);
+
+    assertEquals(1, registry.find("ai.bulkhead.limit").gauges().size());
+    assertNull(registry.find("ai.bulkhead.limit").tag("endpoint", "other").gauge());
+  }
+
+  private static Timer timer(MeterRegistry registry, String model) {
+    return Timer.builder("ai.call")
+        .tag("provider", "openai")
+        .tag("model", model)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  private static Meter.Id id(String model) {
+    return timer(new SimpleMeterRegistry(), model).getId();
+  }
+
+  private static MeterRegistry registry(int maxValues) {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    registry.config().meterFilter(filter(maxValues));
+    return registry;
+  }
+
+  private static BoundedTagMeterFilter filter(int maxValues) {
+    MetricTagProperties properties = new MetricTagProperties();
+    properties.setMaxValues(maxValues);
+    return new BoundedTagMeterFilter(properties);
+  }
+}
@@ -0,0 +1,135 @@
+package com.easydraw.backend.mermaid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.easydraw.backend.mermaid.MermaidPatch.Instruction;
+import com.easydraw.backend.mermaid.MermaidPatch.Op;
+import com.easydraw.backend.mermaid.MermaidPatch.Parsed;
+import com.easydraw.backend.mermaid.MermaidPatch.Result;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MermaidPatchTest {
+
+  private static final String DIAGRAM =
+      """
+      graph TD
+        A[开始] --> B{审批}
+        B -->|通过| C[归档]
+        B -->|驳回| D["退回 A"]
+        subgraph 财务
+          C --> E[付款]
+        end
+        style D fill:#f99""";
+
+  @Test
+  void noChangeMarkerParsesToEmptyPatch() {
+    Parsed parsed = MermaidPatch.parse(MermaidPatch.NO_CHANGE);
+    assertEquals(List.of(), parsed.instructions());
+    assertEquals(0, parsed.unparsed());
+
+    Result result = MermaidPatch.apply(DIAGRAM, parsed.instructions());
+    assertEquals(DIAGRAM, result.content());
+    assertTrue(result.applied().isEmpty());
+  }
+
+  @Test
+  void parseCountsUnrecognizedLines() {
+    Parsed parsed = MermaidPatch.parse("```\n+ C --> F[通知]\n好的，已修改\n~ C\n- D\n```");
+    assertEquals(
+        List.of(new Instruction(Op.ADD, "C --> F[通知]"), new Instruction(Op.REMOVE, "D")),
+        parsed.instructions());
+    // 说明文字与缺少新形状的 ~ 指令
+    assertEquals(2, parsed.unparsed());
+  }
+
+  @Test
+  void fullDiagramIsDetected() {
+    assertTrue(MermaidPatch.isFullDiagram("```mermaid\nflowchart LR\nA --> B\n```"));
+    assertFalse(MermaidPatch.isFullDiagram("+ A --> B"));
+    assertFalse(MermaidPatch.isFullDiagram(MermaidPatch.NO_CHANGE));
+  }
+
+  @Test
+  void addAppendsNewLinesAndSkipsExistingOnes() {
+    Result result = apply("+ C --> F[通知]", "+ A[开始]-->B{审批}");
+    assertEquals(DIAGRAM + "\nC --> F[通知]", result.content());
+    assertEquals(2, result.applied().size());
+  }
+
+  @Test
+  void removeLineIgnoresWhitespaceDifferences() {
+    Result result = apply("- B-->|驳回|D[\"退回 A\"]", "- X --> Y");
+    assertFalse(result.content().contains("驳回"));
+    assertEquals(List.of(new Instruction(Op.REMOVE, "X --> Y")), result.unmatched());
+  }
+
+  @Test
+  void removeNodeDropsDefinitionEdgesAndStyles() {
+    Result result = apply("- D");
+    assertFalse(result.content().contains("D[\"退回 A\"]"));
+    assertFalse(result.content().contains("style D"));
+    assertTrue(result.content().contains("B -->|通过| C[归档]"));
+  }
+
+  @Test
+  void removeNodeIgnoresIdsInsideQuotedText() {
+    // D 的文本 "退回 A" 里出现了 A，不能把这一行当作引用 A
+    Result result = apply("- A");
+    assertFalse(result.content().contains("A[开始]"));
+    assertTrue(result.content().contains("D[\"退回 A\"]"));
+  }
+
+  @Test
+  void removeNodeKeepsSubgraphAndEnd() {
+    Result result = apply("- E");
+    assertEquals(
+        """
+        graph TD
+          A[开始] --> B{审批}
+          B -->|通过| C[归档]
+          B -->|驳回| D["退回 A"]
+          subgraph 财务
+          end
+          style D fill:#f99""",
+        result.content());
+  }
+
+  @Test
+  void removeUnknownNodeIsUnmatched() {
+    Result result = apply("- Z");
+    assertEquals(DIAGRAM, result.content());
+    assertEquals(1, result.unmatched().size());
+  }
+
+  @Test
+  void changeReplacesShapeWhereNodeIsDefined() {
+    Result result = apply("~ C(已归档)");
+    assertTrue(result.content().contains("B -->|通过| C(已归档)"));
+    // 没有形状的引用保持不变
+    assertTrue(result.content().contains("C --> E[付款]"));
+    assertFalse(result.content().contains("C[归档]"));
+  }
+
+  @Test
+  void changeOfReferencedNodeWithoutShapeAddsDefinition() {
+    Result result =
+        MermaidPatch.apply("graph TD\nA --> B", MermaidPatch.parse("~ B{检查}").instructions());
+    assertEquals("graph TD\nA --> B\nB{检查}", result.content());
+  }
+
+  @Test
+  void changeOfUnknownNodeIsUnmatched() {
+    Result result = apply("~ Z[新节点]");
+    assertEquals(DIAGRAM, result.content());
+    assertEquals(1, result.unmatched().size());
+  }
+
+  private static Result apply(String... patch) {
+    Parsed parsed = MermaidPatch.parse(String.join("\n", patch));
+    assertEquals(0, parsed.unparsed());
+    return MermaidPatch.apply(DIAGRAM, parsed.instructions());
+  }
+}
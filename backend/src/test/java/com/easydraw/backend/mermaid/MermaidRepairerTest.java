@@ -0,0 +1,107 @@
+package com.easydraw.backend.mermaid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.easydraw.backend.dto.DiagramError;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MermaidRepairerTest {
+
+  private static final BasicMermaidValidator VALIDATOR = new BasicMermaidValidator();
+
+  /** {输入, 期望输出}：flowchart 中只补全节点形状的括号，不删除任何字符 */
+  private static final String[][] FLOWCHART_CASES = {
+    // 未闭合的节点形状补在连线之前或行尾
+    {"A[开始 --> B[结束]", "A[开始] --> B[结束]"},
+    {"A(处理 --> B", "A(处理) --> B"},
+    {"A --> B[结束", "A --> B[结束]"},
+    {"A[(数据库 --> B", "A[(数据库)] --> B"},
+    {"A((圆 --> B{判断", "A((圆)) --> B{判断}"},
+    // 节点文本中的括号不是形状，不补不删，整段文本加引号
+    {"A --> B[:)]", "A --> B[\":)\"]"},
+    {"A --> B[f(x]", "A --> B[\"f(x\"]"},
+    {"A[结束]] --> B", "A[结束]] --> B"},
+    // 连线文本与引号内的括号不参与匹配
+    {"A -->|是(| B", "A -->|是(| B"},
+    {"A[\"(\"] --> B(", "A[\"(\"] --> B()"},
+  };
+
+  @Test
+  void flowchartBracketRepairTable() {
+    for (String[] c : FLOWCHART_CASES) {
+      String content = "graph TD\n" + c[0];
+      MermaidRepairer.Result result = repair(content, "flowchart");
+      assertEquals("graph TD\n" + c[1], result.content(), () -> "输入: " + c[0]);
+      assertNoCharacterDropped(c[0], c[1]);
+    }
+  }
+
+  @Test
+  void sequenceMessagesAreNeverTouched() {
+    String[] messages = {
+      "Alice->>Bob: hi :)", "Alice->>Bob: 调用 f(x", "Bob-->>Alice: [ok", "Note over A: a)"
+    };
+    for (String message : messages) {
+      String content = "sequenceDiagram\n" + message;
+      MermaidRepairer.Result result = repair(content, "sequence");
+      assertEquals(content, result.content(), () -> "输入: " + message);
+      assertTrue(result.repairs().isEmpty());
+    }
+  }
+
+  @Test
+  void balancedLinesInUnbalancedDiagramAreLeftAlone() {
+    String content = "graph TD\nA[a|b] --> B\nB --> C[未闭合";
+    MermaidRepairer.Result result = repair(content, "flowchart");
+    assertEquals("graph TD\nA[a|b] --> B\nB --> C[未闭合]", result.content());
+  }
+
+  @Test
+  void validDiagramIsNotRepairable() {
+    String[] contents = {
+      "graph TD\nA[开始] --> B(结束)",
+      "sequenceDiagram\nAlice->>Bob: hi",
+      "graph TD\nA[\"含(括号)的文本\"] --> B",
+    };
+    for (String content : contents) {
+      assertFalse(
+          MermaidRepairer.isRepairable(content, "flowchart", VALIDATOR.validate(content, null)),
+          () -> "输入: " + content);
+    }
+  }
+
+  @Test
+  void defaultHeaderIsReplacedForOtherDiagramTypes() {
+    String content = "graph TB\nAlice->>Bob: hi";
+    assertTrue(MermaidRepairer.isRepairable(content, "sequence", List.of()));
+    MermaidRepairer.Result result = MermaidRepairer.repair(content, "sequence", List.of());
+    assertEquals("sequenceDiagram\nAlice->>Bob: hi", result.content());
+  }
+
+  @Test
+  void missingHeaderIsInjected() {
+    String content = "A --> B";
+    List<DiagramError> errors = VALIDATOR.validate(content, null);
+    assertTrue(MermaidRepairer.isRepairable(content, "flowchart", errors));
+    assertEquals("graph TB\nA --> B", MermaidRepairer.repair(content, null, errors).content());
+  }
+
+  private static MermaidRepairer.Result repair(String content, String diagramType) {
+    return MermaidRepairer.repair(
+        content, diagramType, VALIDATOR.validate(content, diagramType));
+  }
+
+  /** 输出按顺序包含输入的全部字符 */
+  private static void assertNoCharacterDropped(String input, String output) {
+    int j = 0;
+    for (int i = 0; i < output.length() && j < input.length(); i++) {
+      if (output.charAt(i) == input.charAt(j)) {
+        j++;
+      }
+    }
+    assertEquals(input.length(), j, "删除了字符: " + input + " -> " + output);
+  }
+}
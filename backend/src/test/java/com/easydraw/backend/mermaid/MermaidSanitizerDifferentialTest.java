@@ -0,0 +1,277 @@
+package com.easydraw.backend.mermaid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 单遍实现的回归保护：对固定种子生成的输入，{@link MermaidSanitizer} 的输出须与原先基于
+ * split / 正则的实现（{@link Legacy}）逐字一致。
+ */
+class MermaidSanitizerDifferentialTest {
+
+  /** 生成输入用的片段，覆盖围栏、图表头、连线、边标签、转义字符、各类换行与空白 */
+  private static final String[] FRAGMENTS = {
+    "```", "```mermaid", "mermaid", "MerMaid", "graph", "graph TD", "graph LR", "flowchart",
+    "flowchart TB", "FlowChart RL", "sequenceDiagram", "stateDiagram-v2", "classDiagram",
+    "erDiagram", "A", "B1", "node_2", "开始", "审批通过", "A[开始]", "B{是否通过}", "C(结束)",
+    "D [带空格]", "-->", " --> ", "-->|是|", "-->|否| ", "|", "[", "{", "(", "\"", "\\", "%%",
+    "%% 注释", "subgraph 财务", "end", "style A fill:#f9f", "-", ">", "->", "--", " ", "  ",
+    "\t", "\n", "\r", "\r\n", "\n\n", "\u0001", "\u000B", "\f", "\u00A0", "\u2003", "\u0085",
+    "\u2028", "\u2029", "\u0130", "\u017F", "x", "研发", "A --> B", "开始 --> 结束", "A -->|是| B",
+  };
+
+  @Test
+  void cleanMatchesLegacyOnRandomInputs() {
+    Random random = new Random(20240611L);
+    for (int i = 0; i < 20_000; i++) {
+      String input = randomInput(random, 1 + random.nextInt(40));
+      assertEquals(
+          Legacy.clean(input), MermaidSanitizer.clean(input), () -> "输入: " + escape(input));
+    }
+  }
+
+  @Test
+  void cleanMatchesLegacyOnEdgeCases() {
+    List<String> inputs =
+        List.of(
+            "",
+            "   \n\t ",
+            "```\n```",
+            "mermaid",
+            "graph",
+            "graph TD\nA --> B\n",
+            "\n\n```mermaid\nflowchart LR\n开始 --> 审批\n审批 -->|通过| 结束\n```\n\n",
+            "A --> B",
+            "graph TD\n-->\nA -->\n--> B\nA -->|x|\n",
+            "graph -->\u0001 x\nA --> B",
+            "graph TD\r\nA --> \"引号\\反斜杠\"\r\r\nB --> A\r",
+            "sequenceDiagram\nA->>B: hi\nA --> B",
+            "graph TD\n%% A --> B\n  A --> B  \n\n\n");
+    for (String input : inputs) {
+      assertEquals(
+          Legacy.clean(input), MermaidSanitizer.clean(input), () -> "输入: " + escape(input));
+    }
+    assertEquals(Legacy.clean(null), MermaidSanitizer.clean(null));
+  }
+
+  @Test
+  void cleanMatchesLegacyOnLargeDiagram() {
+    Random random = new Random(7L);
+    StringBuilder sb = new StringBuilder("```mermaid\nflowchart TD\n");
+    for (int i = 0; i < 5_000; i++) {
+      sb.append("  步骤").append(i % 700).append(" --> ");
+      if (random.nextInt(4) == 0) {
+        sb.append("|条件").append(i).append("| ");
+      }
+      sb.append(random.nextBoolean() ? "N" + i + "[节点 " + i + "]" : "步骤" + (i + 1) % 700);
+      sb.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+    }
+    sb.append("```\n");
+    String input = sb.toString();
+    assertEquals(Legacy.clean(input), MermaidSanitizer.clean(input));
+  }
+
+  @Test
+  void normalizeEdgeLineMatchesLegacy() {
+    Random random = new Random(42L);
+    Map<String, String> legacyIds = new HashMap<>();
+    Map<String, String> ids = new HashMap<>();
+    int[] legacyCounter = {1};
+    int[] counter = {1};
+    for (int i = 0; i < 20_000; i++) {
+      String line = randomInput(random, 1 + random.nextInt(8));
+      assertEquals(
+          Legacy.normalizeEdgeLine(line, legacyIds, legacyCounter),
+          MermaidSanitizer.normalizeEdgeLine(line, ids, counter),
+          () -> "输入: " + escape(line));
+    }
+    assertEquals(legacyIds, ids);
+    assertEquals(legacyCounter[0], counter[0]);
+  }
+
+  private static String randomInput(Random random, int fragments) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < fragments; i++) {
+      sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+    }
+    return sb.toString();
+  }
+
+  private static String escape(String text) {
+    StringBuilder sb = new StringBuilder();
+    for (char c : text.toCharArray()) {
+      if (c < ' ' || c > '~') {
+        sb.append(String.format("\\u%04X", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  /** 单遍重写前的实现，原样保留作为对照 */
+  private static final class Legacy {
+
+    static String clean(String raw) {
+      if (raw == null) {
+        return "";
+      }
+      String trimmed = raw.trim();
+      if (trimmed.isEmpty()) {
+        return trimmed;
+      }
+
+      String normalized = trimmed.replace("\r\n", "\n").replace("\r", "\n");
+      String[] lines = normalized.split("\n", -1);
+
+      List<String> out = new ArrayList<>();
+      boolean headerHandled = false;
+
+      for (String lineRaw : lines) {
+        String line = lineRaw.trim();
+        if (line.isEmpty()) {
+          if (headerHandled) {
+            out.add("");
+          }
+          continue;
+        }
+        if (line.startsWith("```")) {
+          continue;
+        }
+        if (line.equalsIgnoreCase("mermaid")) {
+          continue;
+        }
+
+        if (!headerHandled) {
+          String header = MermaidSanitizer.normalizeHeader(line);
+          if (header != null) {
+            out.add(header);
+            headerHandled = true;
+            continue;
+          }
+          out.add("graph TB");
+          headerHandled = true;
+        }
+
+        out.add(line);
+      }
+
+      if (!headerHandled) {
+        out.add("graph TB");
+      }
+
+      List<String> normalizedLines = normalizeFlowchartEdges(out);
+      return String.join("\n", normalizedLines).trim();
+    }
+
+    private static List<String> normalizeFlowchartEdges(List<String> lines) {
+      String header = firstNonEmpty(lines);
+      if (header == null) {
+        return lines;
+      }
+      String lower = header.toLowerCase();
+      if (!lower.startsWith("graph") && !lower.startsWith("flowchart")) {
+        return lines;
+      }
+
+      Map<String, String> labelToId = new HashMap<>();
+      int[] counter = new int[] {1};
+      List<String> out = new ArrayList<>(lines.size());
+
+      for (String line : lines) {
+        if (line == null || line.isBlank() || line == header || line.startsWith("%%")) {
+          out.add(line);
+          continue;
+        }
+        out.add(normalizeEdgeLine(line, labelToId, counter));
+      }
+
+      return out;
+    }
+
+    static String normalizeEdgeLine(String line, Map<String, String> labelToId, int[] counter) {
+      int arrowIdx = line.indexOf("-->");
+      if (arrowIdx < 0) {
+        return line;
+      }
+
+      int nonSpace = 0;
+      while (nonSpace < line.length() && Character.isWhitespace(line.charAt(nonSpace))) {
+        nonSpace++;
+      }
+      String indent = line.substring(0, nonSpace);
+      String content = line.substring(nonSpace);
+
+      int contentArrow = content.indexOf("-->");
+      if (contentArrow < 0) {
+        return line;
+      }
+
+      String leftRaw = content.substring(0, contentArrow).trim();
+      String rightRaw = content.substring(contentArrow + 3).trim();
+      String edgeLabel = null;
+
+      if (rightRaw.startsWith("|")) {
+        int end = rightRaw.indexOf('|', 1);
+        if (end > 0) {
+          edgeLabel = rightRaw.substring(0, end + 1).trim();
+          rightRaw = rightRaw.substring(end + 1).trim();
+        }
+      }
+
+      String left = normalizeToken(leftRaw, labelToId, counter);
+      String right = normalizeToken(rightRaw, labelToId, counter);
+
+      StringBuilder sb = new StringBuilder(indent);
+      sb.append(left).append(" -->");
+      if (edgeLabel != null) {
+        sb.append(edgeLabel).append(" ");
+      } else {
+        sb.append(" ");
+      }
+      sb.append(right);
+      return sb.toString();
+    }
+
+    private static String normalizeToken(
+        String token, Map<String, String> labelToId, int[] counter) {
+      if (token == null) {
+        return "";
+      }
+      String trimmed = token.trim();
+      if (trimmed.isEmpty()) {
+        return trimmed;
+      }
+      if (trimmed.matches("^[A-Za-z0-9_]+$")) {
+        return trimmed;
+      }
+      if (trimmed.matches("^[A-Za-z0-9_]+\\s*[\\[{(].*")) {
+        return trimmed;
+      }
+
+      String id = labelToId.get(trimmed);
+      if (id == null) {
+        id = "N" + counter[0]++;
+        labelToId.put(trimmed, id);
+      }
+
+      String label = trimmed.replace("\\", "\\\\").replace("\"", "\\\"");
+      return id + "[\"" + label + "\"]";
+    }
+
+    private static String firstNonEmpty(List<String> lines) {
+      for (String line : lines) {
+        if (line != null && !line.isBlank()) {
+          return line.trim();
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.easydraw.backend.style;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.easydraw.backend.dto.ModifyStyleCommand;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class StylePhraseCompilerTest {
+
+  private final StylePhraseCompiler compiler = new StylePhraseCompiler();
+  private final ModifyStyleValidator validator = new ModifyStyleValidator();
+
+  /** {指令, 期望指令}：期望格式为 “target 样式=值 属性:操作:值” */
+  private static final String[][] COMPILED = {
+    {"把选中的改成红色", "selected fillColor=#FF0000"},
+    {"把连线改成红色", "edges strokeColor=#FF0000"},
+    {"把边框改成 #333", "selected strokeColor=#333"},
+    {"把文字颜色改成蓝色", "selected fontColor=#0000FF"},
+    {"把背景改成灰色", "selected fillColor=#808080"},
+    {"把所有线条加粗", "edges strokeWidth:increase:2"},
+    {"把线条变细", "edges strokeWidth:decrease:1"},
+    {"线条加粗3倍", "edges strokeWidth:multiply:3"},
+    {"把线条设为5像素", "edges strokeWidth:set:5"},
+    {"把线条改成虚线", "edges dashed=1"},
+    {"连线改成曲线", "edges curved=1"},
+    {"全部改成圆角", "all rounded=1"},
+    {"把文字放大", "selected fontSize:increase:4"},
+    {"把文字放大两倍", "selected fontSize:multiply:2"},
+    {"字号改成14", "selected fontSize:set:14"},
+    {"把文字加粗", "selected fontStyle=1"},
+    {"给图形加上阴影", "vertices shadow=1"},
+    {"让图形更透明一些", "vertices opacity:decrease:20"},
+    {"make the shapes more transparent", "vertices opacity:decrease:20"},
+    {"把所有图形改成半透明", "vertices opacity=50"},
+    {"make all edges dashed", "edges dashed=1"},
+    {"make the text bigger", "selected fontSize:increase:4"},
+    {"Make All Edges Red.", "edges strokeColor=#FF0000"},
+  };
+
+  /** 否定指令：词表里没有否定词，不能被当成肯定指令编译 */
+  private static final String[] NEGATIONS = {
+    "不要虚线", "去掉阴影", "把阴影去掉", "取消加粗", "线条不要加粗", "no shadow", "remove the shadow",
+    "don't make it bold",
+  };
+
+  /** 多个对象：属性归属不确定 */
+  private static final String[] MIXED_SUBJECTS = {
+    "把图形的边框改成红色", "把线条和文字改成蓝色", "把背景和文字改成白色", "make the text and lines red",
+  };
+
+  /** 词表外内容或自相矛盾的指令 */
+  private static final String[] UNSUPPORTED = {
+    "",
+    "   ",
+    "整理一下布局",
+    "把连线改成好看的颜色",
+    "把节点对齐",
+    "make it pretty",
+    "把选中的改成红色和蓝色",
+    "把虚线改成实线",
+    "把图形放大",
+    "把边框改成 #12",
+    "把连线改成 #FF0000ff",
+    // “透明”可能是完全透明，不能当成调淡 20%
+    "把背景设为透明",
+    "把图形改成透明",
+    "make it transparent",
+    "make the background transparent",
+  };
+
+  @Test
+  void phraseTable() {
+    for (String[] c : COMPILED) {
+      Optional<ModifyStyleCommand> command = compiler.compile(c[0]);
+      assertTrue(command.isPresent(), () -> "应本地编译: " + c[0]);
+      assertEquals(c[1], describe(command.get()), () -> "输入: " + c[0]);
+      validator.validate(command.get());
+    }
+  }
+
+  @Test
+  void negationsFallBackToModel() {
+    assertFallsBack(NEGATIONS);
+  }
+
+  @Test
+  void mixedSubjectsFallBackToModel() {
+    assertFallsBack(MIXED_SUBJECTS);
+  }
+
+  @Test
+  void unsupportedTextFallsBackToModel() {
+    assertFallsBack(UNSUPPORTED);
+    assertFalse(compiler.compile(null).isPresent());
+  }
+
+  private void assertFallsBack(String[] prompts) {
+    for (String prompt : prompts) {
+      assertEquals(
+          Optional.empty(),
+          compiler.compile(prompt).map(StylePhraseCompilerTest::describe),
+          () -> "应交给模型: " + prompt);
+    }
+  }
+
+  private static String describe(ModifyStyleCommand command) {
+    assertEquals("modifyStyle", command.getAction());
+    List<String> parts = new ArrayList<>();
+    parts.add(command.getTarget());
+    if (command.getStyles() != null) {
+      for (Map.Entry<String, Object> style : command.getStyles().entrySet()) {
+        parts.add(style.getKey() + "=" + style.getValue());
+      }
+    }
+    if (command.getOperations() != null) {
+      for (Map.Entry<String, ModifyStyleCommand.Operation> op :
+          command.getOperations().entrySet()) {
+        double value = op.getValue().getValue();
+        String number = value == Math.rint(value) ? String.valueOf((long) value) : "" + value;
+        parts.add(op.getKey() + ":" + op.getValue().getOp() + ":" + number);
+      }
+    }
+    return String.join(" ", parts);
+  }
+}
@@ -0,0 +1,134 @@
+package com.easydraw.backend.style;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.easydraw.backend.config.StylePromptProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 章节裁剪的回归保护：常见指令检索到的章节须包含生成正确指令所需的属性说明。
+ *
+ * <p>固定前缀（示例、target 说明、选择指南）本身就包含大部分属性名，断言只看检索附加的章节。
+ */
+class StylePromptTemplateTest {
+
+  private static final List<String> STATIC_SECTIONS =
+      List.of("AI 指令生成示例", "target 目标选择", "AI 指令选择指南");
+
+  private static final String COLOR = "颜色属性";
+  private static final String COLOR_REF = "颜色参考";
+  private static final String LINE = "线条属性";
+  private static final String FONT = "字体属性";
+  private static final String OPACITY = "透明度属性";
+  private static final String ALIGN = "对齐属性";
+  private static final String ARROW = "箭头属性 (仅用于边/连接线)";
+  private static final String SHADOW = "阴影属性";
+  private static final String GEOMETRY = "尺寸和位置属性";
+  private static final String SHAPE = "形状属性";
+  private static final String OPERATIONS = "相对操作 (operations)";
+
+  /**
+   * 指令 -> 应检索到的全部章节，以及正确指令中用到、须出现在这些章节里的属性/操作名。
+   */
+  private record Case(String instruction, Set<String> sections, List<String> terms) {}
+
+  private static final List<Case> CASES =
+      List.of(
+          new Case("把选中的改成红色", Set.of(COLOR, COLOR_REF), List.of("fillColor", "#FF0000")),
+          new Case(
+              "把连线改成红色", Set.of(COLOR, LINE, COLOR_REF), List.of("strokeColor", "#FF0000")),
+          new Case(
+              "把文字颜色改成蓝色", Set.of(COLOR, FONT, COLOR_REF), List.of("fontColor", "#0000FF")),
+          new Case("把所有线条加粗", Set.of(LINE, OPERATIONS), List.of("strokeWidth", "increase")),
+          new Case("把线条变细", Set.of(LINE, OPERATIONS), List.of("strokeWidth", "decrease")),
+          new Case("把线条改成虚线", Set.of(LINE), List.of("dashed")),
+          new Case("把文字放大", Set.of(FONT, OPERATIONS), List.of("fontSize", "increase")),
+          new Case("把文字放大两倍", Set.of(FONT, OPERATIONS), List.of("fontSize", "multiply")),
+          new Case("给图形加上阴影", Set.of(SHADOW), List.of("shadow")),
+          new Case("让图形更透明一些", Set.of(OPACITY, OPERATIONS), List.of("opacity", "decrease")),
+          new Case("把线条设为5像素", Set.of(LINE, OPERATIONS), List.of("strokeWidth", "\"set\"")),
+          new Case("把终点箭头改成菱形", Set.of(ARROW, SHAPE), List.of("endArrow", "diamond")),
+          new Case("把文字居中", Set.of(FONT, ALIGN), List.of("align", "center")),
+          new Case("旋转90度", Set.of(GEOMETRY), List.of("rotation")),
+          new Case("改成椭圆", Set.of(SHAPE), List.of("shape", "ellipse")),
+          new Case("make all edges dashed", Set.of(LINE), List.of("dashed")),
+          new Case(
+              "make the edges red",
+              Set.of(COLOR, LINE, COLOR_REF),
+              List.of("strokeColor", "#FF0000")),
+          // ordered 里的 red、append 里的 end 不能当作颜色、箭头词
+          new Case("append the ordered edges", Set.of(LINE), List.of("strokeWidth")),
+          new Case(
+              "make the text bigger", Set.of(FONT, OPERATIONS), List.of("fontSize", "increase")));
+
+  private final StylePromptTemplate template =
+      new StylePromptTemplate(new StylePromptProperties(), new SimpleMeterRegistry());
+
+  @Test
+  void retrievedSectionsMatchInstruction() {
+    for (Case c : CASES) {
+      String prompt = template.render(c.instruction());
+      Map<String, String> retrieved = retrievedSections(prompt);
+      // 精确比较，无关章节不能被附加
+      assertEquals(c.sections(), retrieved.keySet(), () -> c.instruction() + " 检索到的章节不符");
+
+      String bodies = String.join("\n", retrieved.values());
+      for (String term : c.terms()) {
+        assertTrue(bodies.contains(term), () -> c.instruction() + " 检索到的章节中缺少 " + term);
+      }
+      assertTrue(suffixOf(prompt).contains(c.instruction()), "用户指令必须放在提示词最后");
+    }
+  }
+
+  @Test
+  void trimmedPromptIsSmallerAndSharesStaticPrefix() {
+    String a = template.render("把连线改成红色");
+    String b = template.render("给图形加上阴影");
+    String full = template.renderFull("把连线改成红色");
+    assertTrue(a.length() < full.length());
+
+    int common = 0;
+    while (common < Math.min(a.length(), b.length()) && a.charAt(common) == b.charAt(common)) {
+      common++;
+    }
+    assertTrue(common > 1000, "固定前缀应在不同指令间保持一致");
+  }
+
+  @Test
+  void unknownInstructionFallsBackToFullTemplate() {
+    assertEquals(template.renderFull("整理一下布局"), template.render("整理一下布局"));
+    // 英文检索词按整词匹配：stop 不含 top，ordered 不含 red
+    for (String instruction : List.of("stop", "ordered", "append", "hardline")) {
+      assertEquals(template.renderFull(instruction), template.render(instruction), instruction);
+    }
+  }
+
+  /**
+   * 裁剪结果中检索附加的章节：标题 -> 正文。不含前言、固定章节与最后一行的用户指令。
+   */
+  private static Map<String, String> retrievedSections(String prompt) {
+    String body = prompt.substring(0, prompt.length() - suffixOf(prompt).length());
+    String[] chunks = body.split("\n## ");
+    Map<String, String> sections = new LinkedHashMap<>();
+    // 第一段是前言
+    for (int i = 1; i < chunks.length; i++) {
+      int headingEnd = chunks[i].indexOf('\n');
+      String heading = headingEnd < 0 ? chunks[i] : chunks[i].substring(0, headingEnd);
+      if (STATIC_SECTIONS.stream().noneMatch(heading::startsWith)) {
+        sections.put(heading.trim(), chunks[i]);
+      }
+    }
+    return sections;
+  }
+
+  /** 用户指令所在的最后一段（模板的指令部分是单独一行） */
+  private static String suffixOf(String prompt) {
+    return prompt.substring(prompt.lastIndexOf("\n\n"));
+  }
+}